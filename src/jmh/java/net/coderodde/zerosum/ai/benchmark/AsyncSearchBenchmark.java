@@ -0,0 +1,101 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.SearchFuture;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the cancellation latency of the asynchronous search:
+ * the time from cancelling a deep Connect Four search that has been running
+ * for {@code delay} milliseconds until its thread is free again. Starting the
+ * search and the delay are not measured.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class AsyncSearchBenchmark {
+
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+
+    /**
+     * The search depth, too deep for the search to complete.
+     */
+    private static final int DEPTH = 20;
+
+    /**
+     * The time in milliseconds the search runs before being cancelled.
+     */
+    @Param({ "10", "100" })
+    public long delay;
+
+    private final ConnectFourState state = ConnectFourState.fromMoves("4453");
+    private AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            gameEngine;
+    private ExecutorService executor;
+    private SearchFuture<ConnectFourState> future;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameEngine = new PrincipalVariationSearchGameEngine<>(
+                new ConnectFourEvaluatorFunction(),
+                DEPTH);
+
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void startSearch() throws InterruptedException {
+        gameEngine.getTranspositionTable().clear();
+        future = gameEngine.makePlyAsync(state,
+                                         ConnectFourPlayerColor.YELLOW_PLAYER,
+                                         ConnectFourPlayerColor.RED_PLAYER,
+                                         ConnectFourPlayerColor.RED_PLAYER,
+                                         executor);
+        Thread.sleep(delay);
+    }
+
+    @Benchmark
+    public ConnectFourState cancel() throws InterruptedException,
+                                            ExecutionException {
+        future.cancel(true);
+        // The executor runs the next task once the search has unwound:
+        executor.submit(() -> {}).get();
+        return future.getBestStateSoFar();
+    }
+}
@@ -0,0 +1,139 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.SearchStatistics;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.SortingAlphaBetaPruningGameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class benchmarks the batch evaluation of the leaves by the engines
+ * supporting it: the minimax engine and the sorting alpha-beta engine with
+ * the sorting depth of one. The evaluator adds a fixed cost per call on top
+ * of the Connect Four evaluation, which models the evaluators that amortize
+ * the setup of a call over a batch, such as the small neural networks. With
+ * {@code mode = "single"}, the evaluator does not override the batch method
+ * and pays the cost for each state.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 27, 2019)
+ * @since 1.61 (Sep 27, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class BatchEvaluationBenchmark {
+
+    @Param({ "Minimax", "SortingAlphaBeta" })
+    public String engine;
+
+    @Param({ "6" })
+    public int depth;
+
+    @Param({ "single", "batch" })
+    public String mode;
+
+    /**
+     * The cost of an evaluator call in {@link Blackhole#consumeCPU(long)}
+     * tokens.
+     */
+    @Param({ "0", "100", "1000" })
+    public long callCost;
+
+    private CallCostEvaluatorFunction evaluatorFunction;
+    private AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            gameEngine;
+    private final ConnectFourState state = ConnectFourState.fromMoves("4453");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        evaluatorFunction = mode.equals("batch") ?
+                            new BatchingEvaluatorFunction(callCost) :
+                            new CallCostEvaluatorFunction(callCost);
+
+        gameEngine = GameEngines.create(engine, evaluatorFunction, depth);
+
+        if (gameEngine instanceof SortingAlphaBetaPruningGameEngine) {
+            ((SortingAlphaBetaPruningGameEngine<?, ?>) gameEngine)
+                    .setSortingDepth(1);
+        }
+    }
+
+    @Benchmark
+    public ConnectFourState makePly(NodeCounter nodeCounter) {
+        SearchStatistics searchStatistics = gameEngine.getSearchStatistics();
+        long numberOfNodes = searchStatistics.getNumberOfNodes();
+        ConnectFourState result =
+                gameEngine.makePly(state,
+                                   ConnectFourPlayerColor.YELLOW_PLAYER,
+                                   ConnectFourPlayerColor.RED_PLAYER,
+                                   state.getPlayerToMove());
+
+        nodeCounter.nodes +=
+                searchStatistics.getNumberOfNodes() - numberOfNodes;
+        return result;
+    }
+
+    /**
+     * Evaluates the states one by one, paying the call cost for each.
+     */
+    private static class CallCostEvaluatorFunction
+            implements EvaluatorFunction<ConnectFourState> {
+
+        final ConnectFourEvaluatorFunction ef =
+                new ConnectFourEvaluatorFunction();
+
+        final long callCost;
+
+        CallCostEvaluatorFunction(long callCost) {
+            this.callCost = callCost;
+        }
+
+        @Override
+        public double evaluate(ConnectFourState state) {
+            Blackhole.consumeCPU(callCost);
+            return ef.evaluate(state);
+        }
+    }
+
+    /**
+     * Evaluates the batches paying the call cost once per batch.
+     */
+    private static final class BatchingEvaluatorFunction
+            extends CallCostEvaluatorFunction {
+
+        BatchingEvaluatorFunction(long callCost) {
+            super(callCost);
+        }
+
+        @Override
+        public void evaluateBatch(List<ConnectFourState> states,
+                                  double[] scores) {
+            Blackhole.consumeCPU(callCost);
+
+            for (int i = 0; i < states.size(); i++) {
+                scores[i] = ef.evaluate(states.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.SearchStatistics;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks a single {@code makePly} call of each game engine on
+ * Connect Four positions. Unlike the demo trees, the children are generated
+ * during the search, so the allocation rate reported by {@code -prof gc}
+ * includes the states constructed by the engines.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 24, 2019)
+ * @since 1.61 (Sep 24, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ConnectFourBenchmark {
+
+    @Param({ "Minimax",
+             "AlphaBeta",
+             "SortingAlphaBeta",
+             "PrincipalVariationSearch",
+             "MTDF",
+             "YoungBrothersWait",
+             "LazySMP",
+             "Mcts" })
+    public String engine;
+
+    @Param({ "4", "6", "8" })
+    public int depth;
+
+    /**
+     * The moves leading to the searched position as 1-based columns.
+     */
+    @Param({ "", "4453", "44444433" })
+    public String opening;
+
+    private AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            gameEngine;
+    private ConnectFourState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameEngine = GameEngines.create(engine,
+                                        new ConnectFourEvaluatorFunction(),
+                                        depth);
+
+        state = ConnectFourState.fromMoves(opening);
+    }
+
+    /**
+     * Clears the transposition table, if any, as {@link #makePly} does before
+     * each search. Its time is to be subtracted from that of
+     * {@code makePly}; a per-invocation setup would distort the timings of
+     * the shallow searches instead.
+     */
+    @Benchmark
+    public void clearTranspositionTable() {
+        if (gameEngine.getTranspositionTable() != null) {
+            gameEngine.getTranspositionTable().clear();
+        }
+    }
+
+    /**
+     * Searches the position from scratch.
+     */
+    @Benchmark
+    public ConnectFourState makePly(NodeCounter nodeCounter) {
+        clearTranspositionTable();
+        SearchStatistics searchStatistics = gameEngine.getSearchStatistics();
+        long numberOfNodes = searchStatistics.getNumberOfNodes();
+        ConnectFourState result =
+                gameEngine.makePly(state,
+                                   ConnectFourPlayerColor.YELLOW_PLAYER,
+                                   ConnectFourPlayerColor.RED_PLAYER,
+                                   state.getPlayerToMove());
+
+        nodeCounter.nodes +=
+                searchStatistics.getNumberOfNodes() - numberOfNodes;
+        return result;
+    }
+}
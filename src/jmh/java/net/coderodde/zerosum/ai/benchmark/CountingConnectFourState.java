@@ -0,0 +1,100 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.ChildIterator;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+
+/**
+ * This class wraps a Connect Four state hiding its in-place move API, so that
+ * the engines take the {@link AbstractState#children()} path, and counts the
+ * constructed states. In the eager mode, the lazy child iterator of the
+ * wrapped state is not used.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+final class CountingConnectFourState
+        extends AbstractState<CountingConnectFourState,
+                              ConnectFourPlayerColor> {
+
+    private final ConnectFourState state;
+    private final boolean lazy;
+    private final LongAdder constructedStates;
+
+    CountingConnectFourState(ConnectFourState state,
+                             boolean lazy,
+                             LongAdder constructedStates) {
+        this.state = state;
+        this.lazy = lazy;
+        this.constructedStates = constructedStates;
+    }
+
+    ConnectFourState getState() {
+        return state;
+    }
+
+    @Override
+    public List<CountingConnectFourState> children() {
+        List<CountingConnectFourState> children = new ArrayList<>();
+
+        for (ConnectFourState child : state.children()) {
+            children.add(wrap(child));
+        }
+
+        return children;
+    }
+
+    @Override
+    public ChildIterator<CountingConnectFourState>
+        childIterator(int firstIndex) {
+        if (!lazy) {
+            return super.childIterator(firstIndex);
+        }
+
+        ChildIterator<ConnectFourState> iterator =
+                state.childIterator(firstIndex);
+
+        return new ChildIterator<CountingConnectFourState>() {
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public CountingConnectFourState next() {
+                return wrap(iterator.next());
+            }
+
+            @Override
+            public int index() {
+                return iterator.index();
+            }
+        };
+    }
+
+    @Override
+    public boolean isTerminal() {
+        return state.isTerminal();
+    }
+
+    @Override
+    public ConnectFourPlayerColor checkVictory() {
+        return state.checkVictory();
+    }
+
+    @Override
+    public long getHashKey() {
+        return state.getHashKey();
+    }
+
+    private CountingConnectFourState wrap(ConnectFourState child) {
+        constructedStates.increment();
+        return new CountingConnectFourState(child, lazy, constructedStates);
+    }
+}
@@ -0,0 +1,111 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.SearchStatistics;
+import net.coderodde.zerosum.ai.demo.DemoEvaluatorFunction;
+import net.coderodde.zerosum.ai.demo.DemoPlayerColor;
+import net.coderodde.zerosum.ai.demo.DemoState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks a single {@code makePly} call of each game engine on
+ * random {@link DemoState} trees of the given depth and branching factor. The
+ * tree is built once per trial, so the benchmark measures the search and not
+ * the generation of the children. Only the Monte Carlo tree search may run
+ * past the depth of the tree, whose states then generate and keep their
+ * children on the first visit. Run with {@code -prof gc} to get the
+ * allocation rate.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 24, 2019)
+ * @since 1.61 (Sep 24, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class DemoStateBenchmark {
+
+    private static final double MINIMIZING_PLAYER_VICTORY_CUT_OFF = -2.0;
+    private static final double MAXIMIZING_PLAYER_VICTORY_CUT_OFF = 2.0;
+    private static final long SEED = 13L;
+
+    @Param({ "Minimax",
+             "AlphaBeta",
+             "SortingAlphaBeta",
+             "PrincipalVariationSearch",
+             "MTDF",
+             "YoungBrothersWait",
+             "LazySMP",
+             "Mcts" })
+    public String engine;
+
+    @Param({ "4", "6" })
+    public int depth;
+
+    @Param({ "2", "4", "8" })
+    public int branchingFactor;
+
+    private AbstractGameEngine<DemoState, DemoPlayerColor> gameEngine;
+    private DemoState root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameEngine = GameEngines.create(engine,
+                                        new DemoEvaluatorFunction(),
+                                        depth);
+
+        root = DemoTrees.create(new Random(SEED),
+                                depth,
+                                branchingFactor,
+                                branchingFactor,
+                                MINIMIZING_PLAYER_VICTORY_CUT_OFF,
+                                MAXIMIZING_PLAYER_VICTORY_CUT_OFF);
+    }
+
+    /**
+     * Measures the clearing of the transposition table that precedes each
+     * search of {@link #makePly}, so that it can be subtracted. The smallest
+     * trees are searched too fast for a per-invocation setup.
+     */
+    @Benchmark
+    public void clearTranspositionTable() {
+        if (gameEngine.getTranspositionTable() != null) {
+            gameEngine.getTranspositionTable().clear();
+        }
+    }
+
+    /**
+     * Searches the tree from scratch.
+     */
+    @Benchmark
+    public DemoState makePly(NodeCounter nodeCounter) {
+        clearTranspositionTable();
+        SearchStatistics searchStatistics = gameEngine.getSearchStatistics();
+        long numberOfNodes = searchStatistics.getNumberOfNodes();
+        DemoState result =
+                gameEngine.makePly(root,
+                                   DemoPlayerColor.MINIMIZING_PLAYER,
+                                   DemoPlayerColor.MAXIMIZING_PLAYER,
+                                   DemoPlayerColor.MAXIMIZING_PLAYER);
+
+        nodeCounter.nodes +=
+                searchStatistics.getNumberOfNodes() - numberOfNodes;
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.Random;
+import net.coderodde.zerosum.ai.demo.DemoPlayerColor;
+import net.coderodde.zerosum.ai.demo.DemoState;
+
+/**
+ * This class builds the random {@link DemoState} trees searched by the
+ * benchmarks. The trees are built ahead, so that the benchmarks measure the
+ * search and not the generation of the children.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+final class DemoTrees {
+
+    private DemoTrees() {}
+
+    /**
+     * Builds a random tree.
+     *
+     * @param random                        the random number generator.
+     * @param depth                         the depth of the tree.
+     * @param minimumChildren               the minimum number of children.
+     * @param maximumChildren               the maximum number of children.
+     * @param minimizingPlayerVictoryCutOff the score at or below which the
+     *                                      minimizing player wins.
+     * @param maximizingPlayerVictoryCutOff the score at or above which the
+     *                                      maximizing player wins.
+     * @return the root of the tree.
+     */
+    static DemoState create(Random random,
+                            int depth,
+                            int minimumChildren,
+                            int maximumChildren,
+                            double minimizingPlayerVictoryCutOff,
+                            double maximizingPlayerVictoryCutOff) {
+        DemoState root = new DemoState(random,
+                                       DemoPlayerColor.MAXIMIZING_PLAYER,
+                                       minimizingPlayerVictoryCutOff,
+                                       maximizingPlayerVictoryCutOff,
+                                       minimumChildren,
+                                       maximumChildren);
+        createGameTree(root, depth);
+        return root;
+    }
+
+    private static void createGameTree(DemoState state, int depth) {
+        if (depth == 0 || state.checkVictory() != null) {
+            return;
+        }
+
+        for (DemoState child : state.children()) {
+            createGameTree(child, depth - 1);
+        }
+    }
+}
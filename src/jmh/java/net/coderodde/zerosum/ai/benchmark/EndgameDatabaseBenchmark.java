@@ -0,0 +1,113 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEndgameDatabase;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEndgameDatabaseGenerator;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEndgameEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class compares solving a late Connect Four position by a full-depth
+ * search with a shallow search reaching the endgame database at its leaves.
+ * The database is generated into a temporary file once per trial.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class EndgameDatabaseBenchmark {
+
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+
+    /**
+     * The moves leading to the searched position as 1-based columns.
+     */
+    private static final String ENDGAME = "477172563453443215215366";
+
+    /**
+     * The maximum number of empty cells of the positions in the database.
+     */
+    private static final int ENDGAME_DATABASE_EMPTY_CELLS = 16;
+
+    @Param({ "false", "true" })
+    public boolean endgameDatabase;
+
+    private AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            gameEngine;
+    private final ConnectFourState state = ConnectFourState.fromMoves(ENDGAME);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int emptyCells = ConnectFourState.WIDTH * ConnectFourState.HEIGHT -
+                         state.getNumberOfMoves();
+
+        if (endgameDatabase) {
+            Path path = Files.createTempFile("connect-four-", ".endgame");
+            // The database stays mapped until the fork exits:
+            path.toFile().deleteOnExit();
+            new ConnectFourEndgameDatabaseGenerator()
+                    .generate(state, ENDGAME_DATABASE_EMPTY_CELLS, path);
+
+            gameEngine = new PrincipalVariationSearchGameEngine<>(
+                    new ConnectFourEndgameEvaluatorFunction(
+                            new ConnectFourEndgameDatabase(path)),
+                    emptyCells - ENDGAME_DATABASE_EMPTY_CELLS);
+        } else {
+            gameEngine = new PrincipalVariationSearchGameEngine<>(
+                    new ConnectFourEvaluatorFunction(),
+                    emptyCells);
+        }
+
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+    }
+
+    /**
+     * Clears the transposition table alone. The shallow search reaching the
+     * database is short, so {@link #makePly} clears the table itself instead
+     * of in a per-invocation setup, and this time is to be subtracted from
+     * its time.
+     */
+    @Benchmark
+    public void clearTranspositionTable() {
+        gameEngine.getTranspositionTable().clear();
+    }
+
+    /**
+     * Solves the position with an empty transposition table.
+     */
+    @Benchmark
+    public ConnectFourState makePly() {
+        clearTranspositionTable();
+        return gameEngine.makePly(state,
+                                  ConnectFourPlayerColor.YELLOW_PLAYER,
+                                  ConnectFourPlayerColor.RED_PLAYER,
+                                  state.getPlayerToMove());
+    }
+}
@@ -0,0 +1,191 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.AlphaBetaPruningGameEngine;
+import net.coderodde.zerosum.ai.impl.MctsGameEngine;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks whole games of Connect Four, with and without
+ * reusing the work of the previous moves: keeping the transposition table
+ * between the moves, pondering on the opponent's time and keeping the Monte
+ * Carlo search tree between the moves. Each operation is a single game
+ * against a weaker alpha-beta engine, or against itself when keeping the
+ * tables.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GameBenchmark {
+
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+    private static final int DEPTH = 8;
+    private static final int PONDERING_DEPTH = 10;
+    private static final int PONDERING_OPPONENT_DEPTH = 7;
+
+    /**
+     * The time in milliseconds the opponent thinks before each of its moves,
+     * giving the time to ponder.
+     */
+    private static final long PONDERING_OPPONENT_DELAY = 100L;
+
+    private static final int MCTS_ITERATIONS = 20000;
+    private static final int MCTS_OPPONENT_DEPTH = 4;
+
+    /**
+     * Whether to reuse the work of the previous moves.
+     */
+    @Param({ "false", "true" })
+    public boolean reuse;
+
+    private final ConnectFourEvaluatorFunction ef =
+            new ConnectFourEvaluatorFunction();
+
+    private AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            gameEngine;
+    private MctsGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            mctsGameEngine;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        gameEngine = new PrincipalVariationSearchGameEngine<>(ef, DEPTH);
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+
+        mctsGameEngine = new MctsGameEngine<>(ef, MCTS_ITERATIONS);
+        mctsGameEngine.setTreeReuse(reuse);
+    }
+
+    /**
+     * Plays a game by a single engine for both players, starting each move
+     * with a new game unless keeping the tables.
+     *
+     * @return the final position.
+     */
+    @Benchmark
+    public ConnectFourState tableReuse() {
+        ConnectFourState state = ConnectFourState.fromMoves("");
+
+        while (!isOver(state)) {
+            if (!reuse) {
+                gameEngine.newGame();
+            }
+
+            state = makePly(gameEngine, state);
+        }
+
+        return state;
+    }
+
+    /**
+     * Plays a game against an alpha-beta engine that waits for a while before
+     * each of its moves.
+     *
+     * @return the final position.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @Benchmark
+    public ConnectFourState pondering() throws InterruptedException {
+        gameEngine.setDepth(PONDERING_DEPTH);
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                opponentGameEngine =
+                new AlphaBetaPruningGameEngine<>(ef, PONDERING_OPPONENT_DEPTH);
+
+        ConnectFourState state = ConnectFourState.fromMoves("");
+
+        try {
+            while (true) {
+                state = reuse ?
+                        gameEngine.makePonderedPly(
+                                state,
+                                ConnectFourPlayerColor.YELLOW_PLAYER,
+                                ConnectFourPlayerColor.RED_PLAYER,
+                                ConnectFourPlayerColor.RED_PLAYER) :
+                        makePly(gameEngine, state);
+
+                if (isOver(state)) {
+                    return state;
+                }
+
+                if (reuse) {
+                    gameEngine.startPondering(
+                            state,
+                            ConnectFourPlayerColor.YELLOW_PLAYER,
+                            ConnectFourPlayerColor.RED_PLAYER,
+                            ConnectFourPlayerColor.RED_PLAYER);
+                }
+
+                Thread.sleep(PONDERING_OPPONENT_DELAY);
+                state = makePly(opponentGameEngine, state);
+
+                if (isOver(state)) {
+                    return state;
+                }
+            }
+        } finally {
+            gameEngine.stopPondering();
+        }
+    }
+
+    /**
+     * Plays a game of the Monte Carlo tree search engine against a shallow
+     * alpha-beta engine.
+     *
+     * @return the final position.
+     */
+    @Benchmark
+    public ConnectFourState mcts() {
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                opponentGameEngine =
+                new AlphaBetaPruningGameEngine<>(ef, MCTS_OPPONENT_DEPTH);
+
+        ConnectFourState state = ConnectFourState.fromMoves("");
+
+        while (!isOver(state)) {
+            state = state.getPlayerToMove() ==
+                    ConnectFourPlayerColor.RED_PLAYER ?
+                    makePly(mctsGameEngine, state) :
+                    makePly(opponentGameEngine, state);
+        }
+
+        return state;
+    }
+
+    private static boolean isOver(ConnectFourState state) {
+        return state.checkVictory() != null || state.isTerminal();
+    }
+
+    private static ConnectFourState makePly(
+            AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine,
+            ConnectFourState state) {
+        return gameEngine.makePly(state,
+                                  ConnectFourPlayerColor.YELLOW_PLAYER,
+                                  ConnectFourPlayerColor.RED_PLAYER,
+                                  state.getPlayerToMove());
+    }
+}
@@ -0,0 +1,106 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.impl.AlphaBetaPruningGameEngine;
+import net.coderodde.zerosum.ai.impl.LazySMPGameEngine;
+import net.coderodde.zerosum.ai.impl.MTDFGameEngine;
+import net.coderodde.zerosum.ai.impl.MctsGameEngine;
+import net.coderodde.zerosum.ai.impl.MinimaxGameEngine;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import net.coderodde.zerosum.ai.impl.SortingAlphaBetaPruningGameEngine;
+import net.coderodde.zerosum.ai.impl.YoungBrothersWaitGameEngine;
+
+/**
+ * This class constructs the benchmarked game engines by their names, which
+ * are the values of the {@code engine} parameters of the benchmarks.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 24, 2019)
+ * @since 1.61 (Sep 24, 2019)
+ */
+final class GameEngines {
+
+    /**
+     * The number of entries in the transposition tables of the engines that
+     * require one.
+     */
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+
+    /**
+     * The number of plies above the leaves at which Young Brothers Wait stops
+     * splitting.
+     */
+    private static final int SEQUENTIAL_PLIES = 2;
+
+    /**
+     * The number of Monte Carlo tree search iterations per ply of the depth.
+     * The tree search has no depth of its own, so its work grows with the
+     * depth parameter like that of the other engines.
+     */
+    private static final int MCTS_ITERATIONS_PER_PLY = 1000;
+
+    private GameEngines() {}
+
+    /**
+     * Constructs the game engine {@code name}.
+     *
+     * @param <S>               the state type.
+     * @param <P>               the player color type.
+     * @param name              the name of the engine.
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     * @return the game engine.
+     */
+    static <S extends AbstractState<S, P>, P extends Enum<P>>
+        AbstractGameEngine<S, P> create(String name,
+                                        EvaluatorFunction<S> evaluatorFunction,
+                                        int depth) {
+        switch (name) {
+            case "Minimax":
+                return new MinimaxGameEngine<>(evaluatorFunction, depth);
+
+            case "AlphaBeta":
+                return new AlphaBetaPruningGameEngine<>(evaluatorFunction,
+                                                        depth);
+
+            case "SortingAlphaBeta":
+                return new SortingAlphaBetaPruningGameEngine<>(
+                        evaluatorFunction,
+                        depth);
+
+            case "PrincipalVariationSearch":
+                return new PrincipalVariationSearchGameEngine<>(
+                        evaluatorFunction,
+                        depth);
+
+            case "MTDF":
+                return new MTDFGameEngine<>(
+                        evaluatorFunction,
+                        depth,
+                        new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+
+            case "YoungBrothersWait":
+                return new YoungBrothersWaitGameEngine<>(
+                        evaluatorFunction,
+                        depth,
+                        Math.max(1, depth - SEQUENTIAL_PLIES));
+
+            case "LazySMP":
+                return new LazySMPGameEngine<>(
+                        evaluatorFunction,
+                        depth,
+                        Runtime.getRuntime().availableProcessors());
+
+            case "Mcts":
+                return new MctsGameEngine<>(evaluatorFunction,
+                                            MCTS_ITERATIONS_PER_PLY * depth);
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown game engine: " + name + ".");
+        }
+    }
+}
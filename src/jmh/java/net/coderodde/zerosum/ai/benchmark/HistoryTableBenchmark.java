@@ -0,0 +1,112 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.HistoryTable;
+import net.coderodde.zerosum.ai.SearchStatistics;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the killer move and history heuristics of the
+ * alpha-beta and the principal variation search engines on Connect Four
+ * positions. The evaluator-based ordering of the sorting engine on the same
+ * positions is benchmarked by {@link ConnectFourBenchmark}. Both tables are
+ * cleared before each search.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class HistoryTableBenchmark {
+
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+
+    @Param({ "AlphaBeta", "PrincipalVariationSearch" })
+    public String engine;
+
+    @Param({ "false", "true" })
+    public boolean historyTable;
+
+    @Param({ "8" })
+    public int depth;
+
+    /**
+     * The moves leading to the searched position as 1-based columns.
+     */
+    @Param({ "4453", "44444433" })
+    public String opening;
+
+    private AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            gameEngine;
+    private ConnectFourState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameEngine = GameEngines.create(engine,
+                                        new ConnectFourEvaluatorFunction(),
+                                        depth);
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+
+        if (historyTable) {
+            gameEngine.setHistoryTable(
+                    new HistoryTable(ConnectFourState.WIDTH));
+        }
+
+        state = ConnectFourState.fromMoves(opening);
+    }
+
+    /**
+     * Clears the tables alone. The time of {@link #makePly} includes this
+     * clearing, since doing it in a per-invocation setup would distort the
+     * timings.
+     */
+    @Benchmark
+    public void clearTables() {
+        gameEngine.getTranspositionTable().clear();
+
+        if (gameEngine.getHistoryTable() != null) {
+            gameEngine.getHistoryTable().clear();
+        }
+    }
+
+    /**
+     * Searches the position with empty tables.
+     */
+    @Benchmark
+    public ConnectFourState makePly(NodeCounter nodeCounter) {
+        clearTables();
+        SearchStatistics searchStatistics = gameEngine.getSearchStatistics();
+        long numberOfNodes = searchStatistics.getNumberOfNodes();
+        ConnectFourState result =
+                gameEngine.makePly(state,
+                                   ConnectFourPlayerColor.YELLOW_PLAYER,
+                                   ConnectFourPlayerColor.RED_PLAYER,
+                                   state.getPlayerToMove());
+
+        nodeCounter.nodes +=
+                searchStatistics.getNumberOfNodes() - numberOfNodes;
+        return result;
+    }
+}
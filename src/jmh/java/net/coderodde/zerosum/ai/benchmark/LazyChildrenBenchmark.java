@@ -0,0 +1,104 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class compares the eager and the lazy child generation on Connect Four
+ * positions wrapped in {@link CountingConnectFourState}. Here, the
+ * {@link NodeCounter#nodes} counter reports the number of constructed states
+ * instead of the searched nodes.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class LazyChildrenBenchmark {
+
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+
+    @Param({ "AlphaBeta", "SortingAlphaBeta", "PrincipalVariationSearch" })
+    public String engine;
+
+    @Param({ "false", "true" })
+    public boolean lazy;
+
+    @Param({ "8" })
+    public int depth;
+
+    /**
+     * The moves leading to the searched position as 1-based columns.
+     */
+    @Param({ "4453" })
+    public String opening;
+
+    private final LongAdder constructedStates = new LongAdder();
+    private AbstractGameEngine<CountingConnectFourState,
+                               ConnectFourPlayerColor> gameEngine;
+    private CountingConnectFourState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConnectFourEvaluatorFunction ef = new ConnectFourEvaluatorFunction();
+        EvaluatorFunction<CountingConnectFourState> wrappingEf =
+                (position) -> ef.evaluate(position.getState());
+
+        gameEngine = GameEngines.create(engine, wrappingEf, depth);
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+
+        state = new CountingConnectFourState(
+                ConnectFourState.fromMoves(opening),
+                lazy,
+                constructedStates);
+    }
+
+    /**
+     * Clears the transposition table as {@link #makePly} does before each
+     * search, for subtracting the time of the clearing from its time.
+     */
+    @Benchmark
+    public void clearTranspositionTable() {
+        gameEngine.getTranspositionTable().clear();
+    }
+
+    /**
+     * Searches the position with an empty transposition table.
+     */
+    @Benchmark
+    public CountingConnectFourState makePly(NodeCounter nodeCounter) {
+        clearTranspositionTable();
+        CountingConnectFourState result =
+                gameEngine.makePly(state,
+                                   ConnectFourPlayerColor.YELLOW_PLAYER,
+                                   ConnectFourPlayerColor.RED_PLAYER,
+                                   state.getState().getPlayerToMove());
+
+        nodeCounter.nodes += constructedStates.sumThenReset();
+        return result;
+    }
+}
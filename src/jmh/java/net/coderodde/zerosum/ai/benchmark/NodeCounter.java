@@ -0,0 +1,33 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * This class reports the number of searched nodes as a secondary result of
+ * the benchmarks. The benchmarks take the count from the search statistics of
+ * the engine, so that the inner nodes count along with the leaves. In the
+ * throughput mode, JMH divides the count by the time, which yields the nodes
+ * per second.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 24, 2019)
+ * @since 1.61 (Sep 24, 2019)
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class NodeCounter {
+
+    /**
+     * The number of nodes searched in the current iteration.
+     */
+    public long nodes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        nodes = 0L;
+    }
+}
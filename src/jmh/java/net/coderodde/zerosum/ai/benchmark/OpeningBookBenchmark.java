@@ -0,0 +1,98 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.OpeningBook;
+import net.coderodde.zerosum.ai.OpeningBookGenerator;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks playing the opening moves of Connect Four with and
+ * without an opening book. The book is generated into a temporary file once
+ * per trial.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class OpeningBookBenchmark {
+
+    private static final int DEPTH = 8;
+
+    /**
+     * The number of plies covered by the book.
+     */
+    private static final int OPENING_BOOK_PLIES = 3;
+
+    @Param({ "false", "true" })
+    public boolean openingBook;
+
+    private AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+            gameEngine;
+    private final ConnectFourState root = ConnectFourState.fromMoves("");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ConnectFourEvaluatorFunction ef = new ConnectFourEvaluatorFunction();
+        gameEngine = new PrincipalVariationSearchGameEngine<>(ef, DEPTH);
+
+        if (openingBook) {
+            Path path = Files.createTempFile("connect-four-", ".book");
+            // The book stays mapped until the fork exits:
+            path.toFile().deleteOnExit();
+            new OpeningBookGenerator<>(
+                    () -> new PrincipalVariationSearchGameEngine<>(ef, DEPTH))
+                    .generate(root,
+                              ConnectFourPlayerColor.YELLOW_PLAYER,
+                              ConnectFourPlayerColor.RED_PLAYER,
+                              root.getPlayerToMove(),
+                              OPENING_BOOK_PLIES,
+                              path);
+
+            gameEngine.setOpeningBook(new OpeningBook(path));
+        }
+    }
+
+    /**
+     * Plays the moves up to the first one not covered by the book.
+     *
+     * @return the final position.
+     */
+    @Benchmark
+    public ConnectFourState playOpening() {
+        ConnectFourState state = root;
+
+        for (int ply = 0; ply <= OPENING_BOOK_PLIES; ply++) {
+            state = gameEngine.makePly(state,
+                                       ConnectFourPlayerColor.YELLOW_PLAYER,
+                                       ConnectFourPlayerColor.RED_PLAYER,
+                                       state.getPlayerToMove());
+        }
+
+        return state;
+    }
+}
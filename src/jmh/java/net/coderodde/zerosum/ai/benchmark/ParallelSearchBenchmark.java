@@ -0,0 +1,132 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.SearchStatistics;
+import net.coderodde.zerosum.ai.demo.DemoEvaluatorFunction;
+import net.coderodde.zerosum.ai.demo.DemoPlayerColor;
+import net.coderodde.zerosum.ai.demo.DemoState;
+import net.coderodde.zerosum.ai.impl.AlphaBetaPruningGameEngine;
+import net.coderodde.zerosum.ai.impl.MinimaxGameEngine;
+import net.coderodde.zerosum.ai.impl.SortingAlphaBetaPruningGameEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class compares the sequential and the fork-join search paths of the
+ * engines supporting the parallel depth on a random {@link DemoState} tree.
+ * Young Brothers Wait and Lazy SMP, which are parallel only, are benchmarked
+ * by {@link DemoStateBenchmark}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ParallelSearchBenchmark {
+
+    private static final double MINIMIZING_PLAYER_VICTORY_CUT_OFF = -2.0;
+    private static final double MAXIMIZING_PLAYER_VICTORY_CUT_OFF = 2.0;
+    private static final int MINIMUM_CHILDREN = 3;
+    private static final int MAXIMUM_CHILDREN = 6;
+    private static final int DEPTH = 8;
+    private static final long SEED = 1568550404808L;
+
+    @Param({ "Minimax", "AlphaBeta", "SortingAlphaBeta" })
+    public String engine;
+
+    /**
+     * The depth down to which the subtrees are split into fork-join tasks, or
+     * zero for the sequential search.
+     */
+    @Param({ "0", "5" })
+    public int parallelDepth;
+
+    private ForkJoinPool forkJoinPool;
+    private AbstractGameEngine<DemoState, DemoPlayerColor> gameEngine;
+    private DemoState root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        forkJoinPool = new ForkJoinPool();
+        gameEngine = createGameEngine(new DemoEvaluatorFunction());
+        root = DemoTrees.create(new Random(SEED),
+                                DEPTH,
+                                MINIMUM_CHILDREN,
+                                MAXIMUM_CHILDREN,
+                                MINIMIZING_PLAYER_VICTORY_CUT_OFF,
+                                MAXIMIZING_PLAYER_VICTORY_CUT_OFF);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public DemoState makePly(NodeCounter nodeCounter) {
+        SearchStatistics searchStatistics = gameEngine.getSearchStatistics();
+        long numberOfNodes = searchStatistics.getNumberOfNodes();
+        DemoState result =
+                gameEngine.makePly(root,
+                                   DemoPlayerColor.MINIMIZING_PLAYER,
+                                   DemoPlayerColor.MAXIMIZING_PLAYER,
+                                   DemoPlayerColor.MAXIMIZING_PLAYER);
+
+        nodeCounter.nodes +=
+                searchStatistics.getNumberOfNodes() - numberOfNodes;
+        return result;
+    }
+
+    private AbstractGameEngine<DemoState, DemoPlayerColor>
+        createGameEngine(EvaluatorFunction<DemoState> evaluatorFunction) {
+        if (parallelDepth == 0) {
+            return GameEngines.create(engine, evaluatorFunction, DEPTH);
+        }
+
+        switch (engine) {
+            case "Minimax":
+                return new MinimaxGameEngine<>(evaluatorFunction,
+                                               DEPTH,
+                                               parallelDepth,
+                                               forkJoinPool);
+
+            case "AlphaBeta":
+                return new AlphaBetaPruningGameEngine<>(evaluatorFunction,
+                                                        DEPTH,
+                                                        parallelDepth,
+                                                        forkJoinPool);
+
+            case "SortingAlphaBeta":
+                return new SortingAlphaBetaPruningGameEngine<>(
+                        evaluatorFunction,
+                        DEPTH,
+                        parallelDepth,
+                        forkJoinPool);
+
+            default:
+                throw new IllegalArgumentException(
+                        "No parallel depth for the game engine " + engine +
+                        ".");
+        }
+    }
+}
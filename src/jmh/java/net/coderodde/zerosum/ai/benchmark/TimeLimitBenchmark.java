@@ -0,0 +1,90 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.SearchStatistics;
+import net.coderodde.zerosum.ai.demo.DemoEvaluatorFunction;
+import net.coderodde.zerosum.ai.demo.DemoPlayerColor;
+import net.coderodde.zerosum.ai.demo.DemoState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the time-bounded iterative deepening on a random
+ * {@link DemoState} tree. The soft time limit is half the hard one. The
+ * average time shows how closely the hard limit is kept, and the nodes per
+ * operation how far the search gets within it.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class TimeLimitBenchmark {
+
+    private static final double MINIMIZING_PLAYER_VICTORY_CUT_OFF = -2.0;
+    private static final double MAXIMIZING_PLAYER_VICTORY_CUT_OFF = 2.0;
+    private static final int MINIMUM_CHILDREN = 3;
+    private static final int MAXIMUM_CHILDREN = 6;
+    private static final int DEPTH = 8;
+    private static final long SEED = 1568550404808L;
+
+    @Param({ "AlphaBeta", "PrincipalVariationSearch" })
+    public String engine;
+
+    /**
+     * The hard time limit in milliseconds.
+     */
+    @Param({ "1", "5", "20", "100" })
+    public long hardTimeLimit;
+
+    private AbstractGameEngine<DemoState, DemoPlayerColor> gameEngine;
+    private DemoState root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameEngine = GameEngines.create(engine,
+                                        new DemoEvaluatorFunction(),
+                                        DEPTH);
+
+        root = DemoTrees.create(new Random(SEED),
+                                DEPTH,
+                                MINIMUM_CHILDREN,
+                                MAXIMUM_CHILDREN,
+                                MINIMIZING_PLAYER_VICTORY_CUT_OFF,
+                                MAXIMIZING_PLAYER_VICTORY_CUT_OFF);
+    }
+
+    @Benchmark
+    public DemoState makePly(NodeCounter nodeCounter) {
+        SearchStatistics searchStatistics = gameEngine.getSearchStatistics();
+        long numberOfNodes = searchStatistics.getNumberOfNodes();
+        DemoState result =
+                gameEngine.makePly(root,
+                                   DemoPlayerColor.MINIMIZING_PLAYER,
+                                   DemoPlayerColor.MAXIMIZING_PLAYER,
+                                   DemoPlayerColor.MAXIMIZING_PLAYER,
+                                   hardTimeLimit / 2,
+                                   hardTimeLimit);
+
+        nodeCounter.nodes +=
+                searchStatistics.getNumberOfNodes() - numberOfNodes;
+        return result;
+    }
+}
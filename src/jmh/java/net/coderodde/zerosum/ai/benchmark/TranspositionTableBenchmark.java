@@ -0,0 +1,109 @@
+package net.coderodde.zerosum.ai.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.SearchStatistics;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.demo.DemoEvaluatorFunction;
+import net.coderodde.zerosum.ai.demo.DemoPlayerColor;
+import net.coderodde.zerosum.ai.demo.DemoState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the replacement policies of the transposition table.
+ * Each invocation searches the same random {@link DemoState} tree twice
+ * starting from an empty table, so that the second search shows how much of
+ * the first one the table has kept. The small capacity makes the positions
+ * compete for the entries.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 17, 2019)
+ * @since 1.61 (Oct 17, 2019)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class TranspositionTableBenchmark {
+
+    private static final double MINIMIZING_PLAYER_VICTORY_CUT_OFF = -2.0;
+    private static final double MAXIMIZING_PLAYER_VICTORY_CUT_OFF = 2.0;
+    private static final int MINIMUM_CHILDREN = 3;
+    private static final int MAXIMUM_CHILDREN = 6;
+    private static final int DEPTH = 8;
+    private static final long SEED = 1568550404808L;
+
+    @Param({ "AlphaBeta", "SortingAlphaBeta", "PrincipalVariationSearch" })
+    public String engine;
+
+    @Param({ "ALWAYS_REPLACE", "DEPTH_PREFERRED", "TWO_TIER" })
+    public TranspositionTable.ReplacementPolicy replacementPolicy;
+
+    @Param({ "4096", "1048576" })
+    public int capacity;
+
+    private AbstractGameEngine<DemoState, DemoPlayerColor> gameEngine;
+    private DemoState root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gameEngine = GameEngines.create(engine,
+                                        new DemoEvaluatorFunction(),
+                                        DEPTH);
+
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(capacity, replacementPolicy));
+
+        root = DemoTrees.create(new Random(SEED),
+                                DEPTH,
+                                MINIMUM_CHILDREN,
+                                MAXIMUM_CHILDREN,
+                                MINIMIZING_PLAYER_VICTORY_CUT_OFF,
+                                MAXIMIZING_PLAYER_VICTORY_CUT_OFF);
+    }
+
+    /**
+     * Clears the transposition table alone. Its time grows with the capacity
+     * and is included in that of {@link #searchTwice}.
+     */
+    @Benchmark
+    public void clearTranspositionTable() {
+        gameEngine.getTranspositionTable().clear();
+    }
+
+    /**
+     * Searches the tree twice starting from an empty transposition table.
+     */
+    @Benchmark
+    public DemoState searchTwice(NodeCounter nodeCounter) {
+        clearTranspositionTable();
+        SearchStatistics searchStatistics = gameEngine.getSearchStatistics();
+        long numberOfNodes = searchStatistics.getNumberOfNodes();
+        makePly();
+        DemoState result = makePly();
+        nodeCounter.nodes +=
+                searchStatistics.getNumberOfNodes() - numberOfNodes;
+        return result;
+    }
+
+    private DemoState makePly() {
+        return gameEngine.makePly(root,
+                                  DemoPlayerColor.MINIMIZING_PLAYER,
+                                  DemoPlayerColor.MAXIMIZING_PLAYER,
+                                  DemoPlayerColor.MAXIMIZING_PLAYER);
+    }
+}
@@ -1,5 +1,14 @@
 package net.coderodde.zerosum.ai;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.ToDoubleFunction;
+
 /**
  * This abstract class defines the API for game-playing AI algorithms such as 
  * Minimax, Alpha-beta pruning, and so on.
@@ -25,6 +34,49 @@ public abstract class AbstractGameEngine<
      */
     private static final int MINIMUM_PARALLEL_DEPTH = 1;
 
+    /**
+     * The number of entries in the transposition table used by the 
+     * time-bounded search if the engine has no table of its own.
+     */
+    private static final int ITERATIVE_DEEPENING_TABLE_CAPACITY = 1 << 16;
+
+    /**
+     * Denotes the absence of the search deadline.
+     */
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * Runs each asynchronous search in a new daemon thread.
+     */
+    private static final Executor ASYNC_SEARCH_EXECUTOR = (runnable) -> {
+        Thread thread = new Thread(runnable, "zerosum-async-search");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    /**
+     * Thrown in order to unwind a search: by {@link #checkSearchStopped()}
+     * after the hard time limit has been exceeded or the asynchronous search
+     * has been cancelled, and by the parallel engines in order to abort the
+     * tasks whose results are no longer needed. Since it is used only for
+     * control flow, a single instance without a stack trace is shared.
+     */
+    protected static final class SearchStoppedException
+            extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private SearchStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The only instance of {@link SearchStoppedException}.
+     */
+    protected static final SearchStoppedException SEARCH_STOPPED_EXCEPTION =
+            new SearchStoppedException();
+
     /**
      * The state evaluator function.
      */
@@ -40,20 +92,125 @@ public abstract class AbstractGameEngine<
      */
     protected int parallelDepth;
 
+    /**
+     * The thread pool running the tasks spawned by the parallel search.
+     */
+    protected ForkJoinPool forkJoinPool;
+
+    /**
+     * The transposition table, or {@code null} if the search should not 
+     * remember the positions it has searched.
+     */
+    protected TranspositionTable transpositionTable;
+
+    /**
+     * The killer move and history tables, or {@code null} if the engines 
+     * supporting them should not learn the move ordering during the search.
+     */
+    protected HistoryTable historyTable;
+
+    /**
+     * The opening book consulted before each search, or {@code null}.
+     */
+    protected OpeningBook openingBook;
+
+    /**
+     * The statistics of the searches of this engine.
+     */
+    private final SearchStatistics searchStatistics = new SearchStatistics();
+
+    /**
+     * The listener notified of the completed searches, or {@code null}.
+     */
+    private SearchListener<S> searchListener;
+
+    /**
+     * The {@link System#nanoTime()} after which the current search must be 
+     * aborted, or {@link #NO_DEADLINE}.
+     */
+    private volatile long searchDeadline = NO_DEADLINE;
+
+    /**
+     * Set when the running asynchronous search has been cancelled.
+     */
+    private volatile boolean searchCancelled;
+
+    /**
+     * The future of the running asynchronous search, or {@code null}. Guarded
+     * by {@code this}.
+     */
+    private SearchFuture<S> asyncSearch;
+
+    /**
+     * The future of the pondering search, or {@code null} if this engine is
+     * not pondering.
+     */
+    private SearchFuture<S> ponderSearch;
+
+    /**
+     * The state searched by the pondering, or {@code null}.
+     */
+    private S ponderState;
+
+    /**
+     * The player to move in {@link #ponderState}, or {@code null}.
+     */
+    private P ponderPlayer;
+
+    /**
+     * The depth of the deepest iteration completed by the latest time-bounded
+     * search.
+     */
+    private int completedDepth;
+
+    /**
+     * Set while the iterations after the first one of an iterative deepening
+     * search are running. Those continue the search of the same root, so 
+     * that the transposition and history tables are not aged for them.
+     */
+    private boolean continuingSearch;
+
     /**
      * Constructs this game engine with given parameters. Note that if 
      * {@code parallelDepth > depth}, the entire computation will be run in this
-     * thread without spawning 
-     * @param evaluatorFunction
-     * @param depth
-     * @param parallelDepth 
+     * thread without spawning any tasks. The tasks, if any, are run in the 
+     * common fork-join pool.
+     * 
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     * @param parallelDepth     the minimum remaining depth at which the search
+     *                          splits the children of a node into parallel 
+     *                          tasks.
      */
     public AbstractGameEngine(EvaluatorFunction<S> evaluatorFunction,
                       int depth,
                       int parallelDepth) {
+        this(evaluatorFunction, 
+             depth,
+             parallelDepth,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs this game engine with given parameters. Note that if 
+     * {@code parallelDepth > depth}, the entire computation will be run in this
+     * thread without spawning any tasks.
+     * 
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     * @param parallelDepth     the minimum remaining depth at which the search
+     *                          splits the children of a node into parallel 
+     *                          tasks.
+     * @param forkJoinPool      the pool for running the parallel tasks.
+     */
+    public AbstractGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                      int depth,
+                      int parallelDepth,
+                      ForkJoinPool forkJoinPool) {
         setEvaluatorFunction(evaluatorFunction);
         setDepth(depth);
         setParallelDepth(parallelDepth);
+        setForkJoinPool(forkJoinPool);
     }
 
     public EvaluatorFunction<S> getEvaluatorFunction() {
@@ -68,6 +225,41 @@ public abstract class AbstractGameEngine<
         return parallelDepth;
     }
 
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public HistoryTable getHistoryTable() {
+        return historyTable;
+    }
+
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    public SearchStatistics getSearchStatistics() {
+        return searchStatistics;
+    }
+
+    public SearchListener<S> getSearchListener() {
+        return searchListener;
+    }
+
+    /**
+     * Returns the depth of the deepest iteration completed by the latest call
+     * to the time-bounded 
+     * {@link #makePly(AbstractState, Enum, Enum, Enum, long, long)}.
+     * 
+     * @return the depth of the latest completed iteration.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
     public void setEvaluatorFunction(EvaluatorFunction<S> evaluatorFunction) {
         this.evaluatorFunction = evaluatorFunction;
     }
@@ -80,6 +272,79 @@ public abstract class AbstractGameEngine<
         this.parallelDepth = checkParallelDepth(parallelDepth);
     }
 
+    public void setForkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = 
+                Objects.requireNonNull(
+                        forkJoinPool, 
+                        "The input fork-join pool is null.");
+    }
+
+    /**
+     * Sets the transposition table used by the search. Passing {@code null} 
+     * disables the transposition table.
+     * 
+     * @param transpositionTable the transposition table or {@code null}.
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Sets the killer move and history tables used for ordering the moves. 
+     * Passing {@code null} disables the heuristics.
+     * 
+     * @param historyTable the history table or {@code null}.
+     */
+    public void setHistoryTable(HistoryTable historyTable) {
+        this.historyTable = historyTable;
+    }
+
+    /**
+     * Sets the opening book consulted before each search. The positions found
+     * in the book are not searched at all. Passing {@code null} disables the
+     * book.
+     * 
+     * @param openingBook the opening book or {@code null}.
+     */
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Sets the listener notified of each completed search. Passing 
+     * {@code null} removes the listener.
+     * 
+     * @param searchListener the search listener or {@code null}.
+     */
+    public void setSearchListener(SearchListener<S> searchListener) {
+        this.searchListener = searchListener;
+    }
+
+    /**
+     * Prepares this engine for a new game. The knowledge kept between the 
+     * moves of a game, the transposition table and the history table, is 
+     * cleared, and the pondering, if any, is stopped. Between the moves of 
+     * the same game, the tables are kept: the transposition table is aged 
+     * instead, and the engines search the best move stored for the new root,
+     * which is usually the continuation of the previous principal variation,
+     * first.
+     * <p>
+     * The engines keeping their own knowledge between the searches override
+     * this method to forget it as well.
+     */
+    public void newGame() {
+        stopPondering();
+        completedDepth = 0;
+
+        if (transpositionTable != null) {
+            transpositionTable.clear();
+        }
+
+        if (historyTable != null) {
+            historyTable.clear();
+        }
+    }
+
     /**
      * Computes and makes a single move. 
      * @param state the source game state.
@@ -88,13 +353,771 @@ public abstract class AbstractGameEngine<
      * @param initialPlayer the initial player. Must be either 
      * {@code minimizingPlayer} or {@code maximizingPlayer}. The ply is computed
      * for this specific player.
-     * @return the next game state.
+     * @return the next game state, or {@code null} if the game is over in 
+     * {@code state}.
      */
     public abstract S makePly(S state, 
                               P minimizingPlayer,
                               P maximizingPlayer,
                               P initialPlayer);
 
+    /**
+     * Computes and makes a single move within a time budget. The search 
+     * deepens iteratively from depth 1 up to the depth of this engine. No new
+     * iteration is started after {@code softTimeLimit} milliseconds, or if the
+     * next iteration is not expected to complete before 
+     * {@code hardTimeLimit}, and an iteration still running after 
+     * {@code hardTimeLimit} milliseconds is aborted. The move is taken from 
+     * the deepest completed iteration; the first iteration always completes.
+     * <p>
+     * Each iteration searches the best line of the previous one first via the
+     * transposition table. If this engine has no table, a temporary one is 
+     * used for the duration of the call.
+     * 
+     * @param state            the source game state.
+     * @param minimizingPlayer the player that seeks to minimize the score.
+     * @param maximizingPlayer the player that seeks to maximize the score.
+     * @param initialPlayer    the player to compute the ply for.
+     * @param softTimeLimit    the time in milliseconds after which no new 
+     *                         iteration is started.
+     * @param hardTimeLimit    the time in milliseconds after which the running
+     *                         iteration is aborted.
+     * @return the next game state.
+     */
+    public S makePly(S state,
+                     P minimizingPlayer,
+                     P maximizingPlayer,
+                     P initialPlayer,
+                     long softTimeLimit,
+                     long hardTimeLimit) {
+        checkTimeLimits(softTimeLimit, hardTimeLimit);
+        long startTime = System.nanoTime();
+        return searchIteratively(state,
+                                 minimizingPlayer, 
+                                 maximizingPlayer,
+                                 initialPlayer,
+                                 startTime + softTimeLimit * 1_000_000L,
+                                 startTime + hardTimeLimit * 1_000_000L,
+                                 null);
+    }
+
+    /**
+     * Starts computing a single move in a new thread and returns 
+     * immediately. The search deepens iteratively from depth 1 up to the 
+     * depth of this engine, and the returned future completes with the move
+     * of the last iteration. The move of the deepest iteration completed so
+     * far is available at any time via 
+     * {@link SearchFuture#getBestStateSoFar()}. Cancelling the future stops
+     * the search.
+     * <p>
+     * The engine must not be used for anything else until the returned 
+     * future is done.
+     * 
+     * @param state            the source game state.
+     * @param minimizingPlayer the player that seeks to minimize the score.
+     * @param maximizingPlayer the player that seeks to maximize the score.
+     * @param initialPlayer    the player to compute the ply for.
+     * @return the future of the next game state.
+     */
+    public SearchFuture<S> makePlyAsync(S state,
+                                        P minimizingPlayer,
+                                        P maximizingPlayer,
+                                        P initialPlayer) {
+        return makePlyAsync(state,
+                            minimizingPlayer,
+                            maximizingPlayer,
+                            initialPlayer,
+                            ASYNC_SEARCH_EXECUTOR);
+    }
+
+    /**
+     * Starts computing a single move in {@code executor} like 
+     * {@link #makePlyAsync(AbstractState, Enum, Enum, Enum)}. The executor
+     * must not be the fork-join pool of this engine unless the pool has a
+     * thread to spare for the parallel tasks.
+     * 
+     * @param state            the source game state.
+     * @param minimizingPlayer the player that seeks to minimize the score.
+     * @param maximizingPlayer the player that seeks to maximize the score.
+     * @param initialPlayer    the player to compute the ply for.
+     * @param executor         the executor running the search.
+     * @return the future of the next game state.
+     */
+    public SearchFuture<S> makePlyAsync(S state,
+                                        P minimizingPlayer,
+                                        P maximizingPlayer,
+                                        P initialPlayer,
+                                        Executor executor) {
+        Objects.requireNonNull(executor, "The input executor is null.");
+        SearchFuture<S> future = new SearchFuture<>(this);
+
+        executor.execute(() -> {
+            if (!startAsyncSearch(future)) {
+                return;
+            }
+
+            try {
+                future.complete(searchIteratively(state,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  initialPlayer,
+                                                  NO_DEADLINE,
+                                                  NO_DEADLINE,
+                                                  future));
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                finishAsyncSearch();
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Deepens the search iteratively from depth 1 up to the depth of this 
+     * engine. No new iteration is started after {@code softDeadline}, or if
+     * the next iteration is not expected to complete before 
+     * {@code hardDeadline}, and an iteration still running after 
+     * {@code hardDeadline} is aborted. Unless cancelled, the first iteration
+     * always completes.
+     * 
+     * @param state            the source game state.
+     * @param minimizingPlayer the player that seeks to minimize the score.
+     * @param maximizingPlayer the player that seeks to maximize the score.
+     * @param initialPlayer    the player to compute the ply for.
+     * @param softDeadline     the {@link System#nanoTime()} after which no 
+     *                         new iteration is started, or 
+     *                         {@link #NO_DEADLINE}.
+     * @param hardDeadline     the {@link System#nanoTime()} after which the
+     *                         running iteration is aborted, or 
+     *                         {@link #NO_DEADLINE}.
+     * @param future           the future receiving the result of each 
+     *                         completed iteration, or {@code null}.
+     * @return the state after the best move of the deepest completed 
+     *         iteration, or {@code null} if the first one has been cancelled.
+     */
+    private S searchIteratively(S state,
+                                P minimizingPlayer,
+                                P maximizingPlayer,
+                                P initialPlayer,
+                                long softDeadline,
+                                long hardDeadline,
+                                SearchFuture<S> future) {
+        completedDepth = 0;
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+
+        if (bookState != null) {
+            if (future != null) {
+                future.iterationCompleted(depth, bookState);
+            }
+
+            return bookState;
+        }
+
+        int maximumDepth = depth;
+        TranspositionTable originalTranspositionTable = transpositionTable;
+        S bestState = null;
+        long previousIterationDuration = 0L;
+
+        if (transpositionTable == null) {
+            transpositionTable = 
+                    new TranspositionTable(ITERATIVE_DEEPENING_TABLE_CAPACITY);
+        }
+
+        try {
+            for (int d = 1; d <= maximumDepth; d++) {
+                long iterationStartTime = System.nanoTime();
+
+                if (d > 1) {
+                    if (softDeadline != NO_DEADLINE 
+                            && iterationStartTime - softDeadline >= 0) {
+                        break;
+                    }
+
+                    // Abort only the iterations after the first one:
+                    searchDeadline = hardDeadline;
+                }
+
+                depth = d;
+                continuingSearch = d > 1;
+                S iterationBestState;
+
+                try {
+                    iterationBestState = makePly(state, 
+                                                 minimizingPlayer, 
+                                                 maximizingPlayer, 
+                                                 initialPlayer);
+                } catch (SearchStoppedException ex) {
+                    searchStatistics.searchStopped(d, false);
+                    break;
+                }
+
+                bestState = iterationBestState;
+                completedDepth = d;
+
+                if (future != null) {
+                    future.iterationCompleted(d, bestState);
+                }
+
+                long iterationEndTime = System.nanoTime();
+                long iterationDuration = iterationEndTime - iterationStartTime;
+
+                // Estimate the duration of the next iteration by the growth of
+                // the durations of the last two ones:
+                double growth = previousIterationDuration == 0L ? 
+                        1.0 : 
+                        Math.max(1.0,
+                                 (double) iterationDuration / 
+                                          previousIterationDuration);
+
+                if (d > 1 
+                        && hardDeadline != NO_DEADLINE
+                        && iterationEndTime + iterationDuration * growth 
+                           - hardDeadline >= 0) {
+                    break;
+                }
+
+                previousIterationDuration = Math.max(1L, iterationDuration);
+            }
+        } finally {
+            searchDeadline = NO_DEADLINE;
+            continuingSearch = false;
+            depth = maximumDepth;
+            transpositionTable = originalTranspositionTable;
+        }
+
+        return bestState;
+    }
+
+    /**
+     * Makes {@code future} the running asynchronous search unless it has 
+     * already been cancelled.
+     * 
+     * @param future the future of the search to start.
+     * @return {@code true} if the search should run.
+     */
+    private synchronized boolean startAsyncSearch(SearchFuture<S> future) {
+        if (future.isDone()) {
+            return false;
+        }
+
+        asyncSearch = future;
+        searchCancelled = false;
+        return true;
+    }
+
+    /**
+     * Stops the search of {@code future} if it is still running. Called by 
+     * the future when it is cancelled.
+     * 
+     * @param future the future of the search to stop.
+     */
+    synchronized void stopAsyncSearch(SearchFuture<?> future) {
+        if (asyncSearch == future) {
+            searchCancelled = true;
+        }
+    }
+
+    /**
+     * Marks the end of the running asynchronous search. By now, all the 
+     * tasks of the search have completed.
+     */
+    private synchronized void finishAsyncSearch() {
+        asyncSearch = null;
+        searchCancelled = false;
+        notifyAll();
+    }
+
+    /**
+     * Waits until the thread of the running asynchronous search, if any, has
+     * left the search.
+     */
+    private synchronized void awaitAsyncSearch() {
+        boolean interrupted = false;
+
+        while (asyncSearch != null) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts searching on the opponent's time. Call this with the state 
+     * after the move of this engine, while the opponent is thinking. The 
+     * expected reply of the opponent is taken from the transposition table
+     * filled by the previous search, and the position after it is searched
+     * in the background for {@code initialPlayer}. If the reply cannot be
+     * predicted, the engine searches the position for the opponent instead,
+     * which fills the transposition table for all the replies.
+     * <p>
+     * Once the opponent has replied, call 
+     * {@link #makePonderedPly(AbstractState, Enum, Enum, Enum)}. The engine
+     * must not be used for anything else while pondering.
+     * 
+     * @param state            the state after the move of this engine.
+     * @param minimizingPlayer the player that seeks to minimize the score.
+     * @param maximizingPlayer the player that seeks to maximize the score.
+     * @param initialPlayer    the player this engine computes the plies for.
+     */
+    public void startPondering(S state,
+                               P minimizingPlayer,
+                               P maximizingPlayer,
+                               P initialPlayer) {
+        stopPondering();
+
+        if (state.checkVictory() != null || state.isTerminal()) {
+            return;
+        }
+
+        P opponent = initialPlayer == minimizingPlayer ? 
+                     maximizingPlayer : 
+                     minimizingPlayer;
+
+        S expectedReply = getExpectedReply(state, 
+                                           opponent == minimizingPlayer ? 
+                                           -1 : 1);
+
+        if (expectedReply != null) {
+            ponderState = expectedReply;
+            ponderPlayer = initialPlayer;
+        } else {
+            ponderState = state;
+            ponderPlayer = opponent;
+        }
+
+        ponderSearch = makePlyAsync(ponderState, 
+                                    minimizingPlayer, 
+                                    maximizingPlayer, 
+                                    ponderPlayer);
+    }
+
+    /**
+     * Stops pondering, if this engine is, and waits until the pondering 
+     * search has unwound. The transposition table keeps the results of the
+     * pondering.
+     */
+    public void stopPondering() {
+        if (ponderSearch == null) {
+            return;
+        }
+
+        ponderSearch.cancel(true);
+        awaitAsyncSearch();
+        ponderSearch = null;
+        ponderState = null;
+        ponderPlayer = null;
+    }
+
+    /**
+     * Returns {@code true} if this engine is pondering.
+     * 
+     * @return {@code true} if the pondering search has been started and not
+     *         stopped.
+     */
+    public boolean isPondering() {
+        return ponderSearch != null;
+    }
+
+    /**
+     * Computes and makes a single move after pondering. If the opponent has
+     * made the expected reply, the pondering search continues until it 
+     * reaches the full depth, and its result is returned, immediately if the
+     * search has already completed. Otherwise, the pondering is stopped and 
+     * the position is searched by 
+     * {@link #makePly(AbstractState, Enum, Enum, Enum)}, which benefits from
+     * the transposition table warmed by the pondering.
+     * 
+     * @param state            the source game state.
+     * @param minimizingPlayer the player that seeks to minimize the score.
+     * @param maximizingPlayer the player that seeks to maximize the score.
+     * @param initialPlayer    the player to compute the ply for.
+     * @return the next game state.
+     */
+    public S makePonderedPly(S state,
+                             P minimizingPlayer,
+                             P maximizingPlayer,
+                             P initialPlayer) {
+        if (ponderSearch != null 
+                && ponderPlayer == initialPlayer
+                && ponderState.getHashKey() == state.getHashKey()) {
+            SearchFuture<S> future = ponderSearch;
+            ponderSearch = null;
+            ponderState = null;
+            ponderPlayer = null;
+
+            try {
+                S bestState = future.join();
+
+                if (bestState != null) {
+                    return bestState;
+                }
+            } finally {
+                awaitAsyncSearch();
+            }
+        }
+
+        stopPondering();
+        return makePly(state, 
+                       minimizingPlayer, 
+                       maximizingPlayer, 
+                       initialPlayer);
+    }
+
+    /**
+     * Predicts the reply of the opponent by the best move stored in the 
+     * transposition table.
+     * 
+     * @param state the state with the opponent to move.
+     * @param color the color of the opponent. -1 for the minimizing player,
+     *              +1 for the maximizing player.
+     * @return the state after the expected reply, or {@code null} if it is 
+     *         not known.
+     */
+    private S getExpectedReply(S state, int color) {
+        if (transpositionTable == null) {
+            return null;
+        }
+
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+        if (!transpositionTable.probe(getHashKey(state, color), entry)
+                || entry.getBestMove() == TranspositionTable.NO_MOVE) {
+            return null;
+        }
+
+        List<S> children = state.children();
+        int bestMove = entry.getBestMove();
+        return bestMove < children.size() ? children.get(bestMove) : null;
+    }
+
+    /**
+     * Looks up {@code state} in the opening book of this engine. The engines
+     * call this at the beginning of 
+     * {@link #makePly(AbstractState, Enum, Enum, Enum)} and return the book
+     * move without searching if there is one.
+     * 
+     * @param state            the state to look up.
+     * @param minimizingPlayer the minimizing player.
+     * @param initialPlayer    the player to move in {@code state}.
+     * @return the state after the book move, or {@code null} if there is no
+     *         book or {@code state} is not in it.
+     */
+    protected final S getBookMove(S state, 
+                                  P minimizingPlayer, 
+                                  P initialPlayer) {
+        if (openingBook == null) {
+            return null;
+        }
+
+        int move = openingBook.getMove(
+                getHashKey(state, initialPlayer == minimizingPlayer ? -1 : 1));
+
+        if (move == OpeningBook.NO_MOVE) {
+            return null;
+        }
+
+        List<S> children = state.children();
+        return move < children.size() ? children.get(move) : null;
+    }
+
+    /**
+     * Marks the start of a search in the statistics, starts a new generation
+     * of the transposition table and ages the history table, unless the 
+     * search continues the iterative deepening of the same root. The engines
+     * call this at the beginning of 
+     * {@link #makePly(AbstractState, Enum, Enum, Enum)}.
+     */
+    protected final void searchStarted() {
+        searchStatistics.searchStarted();
+
+        if (continuingSearch) {
+            return;
+        }
+
+        if (transpositionTable != null) {
+            transpositionTable.age();
+        }
+
+        if (historyTable != null) {
+            historyTable.age();
+        }
+    }
+
+    /**
+     * Marks the completion of a search in the statistics and notifies the 
+     * listener. The engines return the result of their 
+     * {@link #makePly(AbstractState, Enum, Enum, Enum)} through this method.
+     * 
+     * @param bestState the state after the best move.
+     * @return {@code bestState}.
+     */
+    protected final S searchCompleted(S bestState) {
+        searchStatistics.searchStopped(depth, true);
+
+        if (searchListener != null) {
+            searchListener.searchCompleted(depth, bestState, searchStatistics);
+        }
+
+        return bestState;
+    }
+
+    /**
+     * Counts a visited node and aborts the search if its deadline has passed.
+     * The engines call this on entering each node below the root.
+     * 
+     * @param depth the remaining depth of the node.
+     */
+    protected final void visitNode(int depth) {
+        searchStatistics.countNode(this.depth - depth);
+        checkSearchStopped();
+    }
+
+    /**
+     * Evaluates a leaf state and counts it.
+     * 
+     * @param state the leaf state.
+     * @return the value of the state.
+     */
+    protected final double evaluateLeaf(S state) {
+        searchStatistics.countLeaf();
+        return evaluatorFunction.evaluate(state);
+    }
+
+    /**
+     * Visits and evaluates the leaf states {@code leaves} with a single call
+     * of {@link EvaluatorFunction#evaluateBatch(List, double[])}. The engines
+     * call this on the nodes whose children are all leaves.
+     * 
+     * @param leaves the leaf states at the maximum depth.
+     * @return the values of the states in the same order as {@code leaves}.
+     */
+    protected final double[] evaluateLeaves(List<S> leaves) {
+        for (int i = 0; i < leaves.size(); i++) {
+            visitNode(0);
+            searchStatistics.countLeaf();
+        }
+        
+        double[] values = new double[leaves.size()];
+        evaluatorFunction.evaluateBatch(leaves, values);
+        return values;
+    }
+
+    /**
+     * Evaluates a leaf state with the {@link IntEvaluatorFunction} of this 
+     * engine and counts it. A win score is moved towards zero by the distance
+     * of the leaf from the root.
+     * 
+     * @param state the leaf state.
+     * @param ply   the distance of the leaf from the root.
+     * @return the value of the state.
+     */
+    @SuppressWarnings("unchecked")
+    protected final int evaluateLeafInt(S state, int ply) {
+        searchStatistics.countLeaf();
+        int score = 
+                ((IntEvaluatorFunction<S>) evaluatorFunction).evaluateInt(state);
+        
+        return IntEvaluatorFunction.addWinDistance(score, ply);
+    }
+
+    /**
+     * Counts a beta cut-off.
+     * 
+     * @param position the position of the cut-off move in the search order, 
+     *                 starting from zero.
+     */
+    protected final void countCutoff(int position) {
+        searchStatistics.countCutoff(position);
+    }
+
+    /**
+     * Counts a re-search of a child with a wider window.
+     */
+    protected final void countReSearch() {
+        searchStatistics.countReSearch();
+    }
+
+    /**
+     * Counts a re-search of the root with a wider aspiration window.
+     */
+    protected final void countAspirationReSearch() {
+        searchStatistics.countAspirationReSearch();
+    }
+
+    /**
+     * Aborts the search by throwing a {@link SearchStoppedException} if the
+     * hard time limit of the current time-bounded search has been exceeded 
+     * or the current asynchronous search has been cancelled. The engines call
+     * this once per node.
+     */
+    protected final void checkSearchStopped() {
+        if (searchCancelled) {
+            throw SEARCH_STOPPED_EXCEPTION;
+        }
+
+        long deadline = searchDeadline;
+
+        if (deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0) {
+            throw SEARCH_STOPPED_EXCEPTION;
+        }
+    }
+
+    /**
+     * Returns {@code true} if a node with {@code depth} plies left to search 
+     * should have its children searched in parallel.
+     * 
+     * @param depth the remaining depth of the node.
+     * @return {@code true} if the children of the node should be forked.
+     */
+    protected final boolean isParallelDepth(int depth) {
+        return depth >= parallelDepth;
+    }
+
+    /**
+     * Returns the transposition table key of {@code state}. Since the engines
+     * may store the scores from the point of view of the player to move, the
+     * key of a state with the minimizing player to move is complemented.
+     * 
+     * @param state the state to hash.
+     * @param color the color of the player to move. -1 for the minimizing 
+     *              player, +1 for the maximizing player.
+     * @return the transposition table key of the state.
+     */
+    protected static long getHashKey(AbstractState<?, ?> state, int color) {
+        return color == 1 ? state.getHashKey() : ~state.getHashKey();
+    }
+
+    /**
+     * Maps the search order of the children to the child indices so that the
+     * child at {@code firstIndex}, if any, is searched first and the rest are
+     * searched in their natural order.
+     * 
+     * @param i                the position in the search order.
+     * @param firstIndex       the index of the child to search first, or a 
+     *                         negative value.
+     * @param numberOfChildren the number of children.
+     * @return the index of the child to search at position {@code i}.
+     */
+    protected static int getSearchIndex(int i, 
+                                        int firstIndex, 
+                                        int numberOfChildren) {
+        if (firstIndex < 0 || firstIndex >= numberOfChildren) {
+            return i;
+        }
+
+        if (i == 0) {
+            return firstIndex;
+        }
+
+        return i <= firstIndex ? i - 1 : i;
+    }
+
+    /**
+     * Returns an iterator over the children of {@code state} in search order.
+     * Without a history table, this is the lazy iterator of the state. 
+     * Otherwise, the state orders the children by the killer move and history
+     * heuristics, the hash move first.
+     * 
+     * @param state    the state whose children to iterate.
+     * @param hashMove the index of the child to search first, or a negative
+     *                 value.
+     * @param ply      the distance of {@code state} from the root.
+     * @return the iterator over the children.
+     */
+    protected final ChildIterator<S> 
+        orderedChildIterator(S state, int hashMove, int ply) {
+        return orderedChildIterator(state, hashMove, ply, historyTable);
+    }
+
+    /**
+     * Returns an iterator over the children of {@code state} in search order
+     * by the given history table instead of the one of this engine.
+     * 
+     * @param state        the state whose children to iterate.
+     * @param hashMove     the index of the child to search first, or a
+     *                     negative value.
+     * @param ply          the distance of {@code state} from the root.
+     * @param historyTable the history table, or {@code null} for the lazy 
+     *                     iterator of the state.
+     * @return the iterator over the children.
+     */
+    protected final ChildIterator<S> 
+        orderedChildIterator(S state, 
+                             int hashMove, 
+                             int ply, 
+                             HistoryTable historyTable) {
+        if (historyTable == null) {
+            return state.childIterator(hashMove);
+        }
+
+        return state.childIterator(hashMove, historyTable, ply);
+    }
+
+    /**
+     * Searches each child in {@code children} as a separate task in the 
+     * fork-join pool of this engine and waits for all of them to complete. If
+     * called outside of that pool, the tasks are first submitted to it.
+     * 
+     * @param children    the child states to search.
+     * @param childSearch the function computing the value of a single child.
+     * @return the values of the children in the same order as 
+     *         {@code children}.
+     */
+    protected final double[] 
+        searchInParallel(List<S> children, ToDoubleFunction<S> childSearch) {
+        List<ForkJoinTask<Double>> tasks = new ArrayList<>(children.size());
+
+        for (S child : children) {
+            tasks.add(ForkJoinTask.adapt(
+                    () -> childSearch.applyAsDouble(child)));
+        }
+
+        invokeAll(tasks);
+        double[] values = new double[tasks.size()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = tasks.get(i).join();
+        }
+
+        return values;
+    }
+
+    /**
+     * Runs all the {@code tasks} in the fork-join pool of this engine and 
+     * waits for all of them to complete. If called outside of that pool, the
+     * tasks are first submitted to it. If the search is stopped, this method
+     * still waits for the running tasks to unwind so that none of them 
+     * outlives the search.
+     * 
+     * @param tasks the tasks to run.
+     */
+    protected final void 
+        invokeAll(Collection<? extends ForkJoinTask<?>> tasks) {
+        try {
+            if (ForkJoinTask.getPool() == forkJoinPool) {
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                forkJoinPool.invoke(
+                        ForkJoinTask.adapt(
+                                () -> ForkJoinTask.invokeAll(tasks)));
+            }
+        } catch (SearchStoppedException ex) {
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+
+            throw ex;
+        }
+    }
+
     /**
      * Validates the depth candidate.
      * @param depthCandidate the depth candidate to validate.
@@ -110,6 +1133,27 @@ public abstract class AbstractGameEngine<
         return depthCandidate;
     }
 
+    /**
+     * Validates the time limits of a time-bounded search.
+     * @param softTimeLimit the soft time limit in milliseconds.
+     * @param hardTimeLimit the hard time limit in milliseconds.
+     */
+    private static void checkTimeLimits(long softTimeLimit, 
+                                        long hardTimeLimit) {
+        if (softTimeLimit < 0L) {
+            throw new IllegalArgumentException(
+                    "The requested soft time limit (" + softTimeLimit + 
+                    ") is too small. Must be at least 0.");
+        }
+
+        if (hardTimeLimit < softTimeLimit) {
+            throw new IllegalArgumentException(
+                    "The requested hard time limit (" + hardTimeLimit + 
+                    ") is too small. Must be at least the soft time limit (" +
+                    softTimeLimit + ").");
+        }
+    }
+
     /**
      * Validates the parallel depth candidate.
      * @param parallelDepthCandidate the parallel depth candidate to validate.
@@ -1,9 +1,16 @@
 package net.coderodde.zerosum.ai;
 
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * This interface defines the API for search states.
+ * <p>
+ * The states carry no data of the searches over them: the engines pass the
+ * remaining depth, the ply and the search window down their recursion, and
+ * count the statistics per thread. The same state may thus be reached at 
+ * different depths and searched by several threads or engines at once, 
+ * provided that its {@link #children()} is safe to call concurrently.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (May 26, 2019)
@@ -12,11 +19,6 @@ import java.util.List;
 public abstract class AbstractState<S extends AbstractState<S, P>,
                                     P extends Enum<P>> {
 
-    /**
-     * The depth of this state.
-     */
-    private int depth;
-
     /**
      * Returns the next ply.
      * 
@@ -24,6 +26,124 @@ public abstract class AbstractState<S extends AbstractState<S, P>,
      */
     public abstract List<S> children();
 
+    /**
+     * Returns a lazy iterator over the children of this state. The child at
+     * {@code firstIndex} in the {@link #children()} list, if any, is returned
+     * first. The default implementation materializes the children eagerly; 
+     * the subclasses able to construct a single child cheaply should override
+     * this and generate the children on demand, possibly in a better order.
+     * 
+     * @param firstIndex the index of the child to return first, or a negative
+     *                   value.
+     * @return the iterator over the children.
+     */
+    public ChildIterator<S> childIterator(int firstIndex) {
+        List<S> children = children();
+        int first = firstIndex < children.size() ? firstIndex : -1;
+
+        return new ChildIterator<S>() {
+
+            private int i;
+            private int index = -1;
+
+            @Override
+            public boolean hasNext() {
+                return i < children.size();
+            }
+
+            @Override
+            public S next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                if (first < 0) {
+                    index = i;
+                } else if (i == 0) {
+                    index = first;
+                } else {
+                    index = i <= first ? i - 1 : i;
+                }
+
+                i++;
+                return children.get(index);
+            }
+
+            @Override
+            public int index() {
+                return index;
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the children of this state ordered by the 
+     * killer move and history heuristics of {@code historyTable}, the child at
+     * {@code firstIndex}, if any, first. The default implementation 
+     * materializes the children and sorts them with
+     * {@link HistoryTable#orderMoves(int[], int, int, int, int[])}; the 
+     * subclasses able to tell their move ids without constructing the 
+     * children should override this and score the moves on demand.
+     * 
+     * @param firstIndex   the index of the child to return first, or a
+     *                     negative value.
+     * @param historyTable the history table scoring the moves.
+     * @param ply          the distance of this state from the root.
+     * @return the iterator over the children.
+     */
+    public ChildIterator<S> childIterator(int firstIndex,
+                                          HistoryTable historyTable,
+                                          int ply) {
+        List<S> children = children();
+        int[] moveIds = new int[children.size()];
+        int[] order = new int[children.size()];
+
+        for (int i = 0; i < moveIds.length; i++) {
+            moveIds[i] = getMoveId(i);
+        }
+
+        historyTable.orderMoves(moveIds, moveIds.length, firstIndex, ply, order);
+
+        return new ChildIterator<S>() {
+
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < order.length;
+            }
+
+            @Override
+            public S next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return children.get(order[i++]);
+            }
+
+            @Override
+            public int index() {
+                return order[i - 1];
+            }
+        };
+    }
+
+    /**
+     * Returns a compact, non-negative id of the move leading to the child at
+     * {@code childIndex} in the {@link #children()} list. The same move made
+     * in different positions should have the same id, since the killer move
+     * and history heuristics learn the good moves by their ids. For the 
+     * states implementing {@link MutableState}, the id must equal the code of
+     * the move. The default implementation returns the child index.
+     * 
+     * @param childIndex the index of the child.
+     * @return the id of the move.
+     */
+    public int getMoveId(int childIndex) {
+        return childIndex;
+    }
+
     /**
      * Returns {@code true} if this state is a terminal state.
      * 
@@ -38,11 +158,16 @@ public abstract class AbstractState<S extends AbstractState<S, P>,
      */
     public abstract P checkVictory();
 
-    public int getDepth() {
-        return depth;
-    }
-
-    public void setDepth(int depth) {
-        this.depth = depth;
+    /**
+     * Returns a 64-bit key identifying the position represented by this state.
+     * Any two states representing the same position must return the same key,
+     * which is used for looking up the state in transposition tables. The 
+     * default implementation spreads the bits of {@link #hashCode()}; the 
+     * subclasses should override this with a genuine 64-bit position key.
+     * 
+     * @return the hash key of this state.
+     */
+    public long getHashKey() {
+        return hashCode() * 0x9E3779B97F4A7C15L;
     }
 }
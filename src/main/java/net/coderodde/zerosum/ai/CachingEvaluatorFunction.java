@@ -0,0 +1,335 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements an evaluator function that caches the scores of
+ * another one in a fixed-size table keyed on {@link AbstractState#getHashKey()}.
+ * The same leaf is often evaluated several times during a search, for
+ * example via transpositions, by each iteration of iterative deepening and by
+ * the move ordering of the sorting engines, so that an expensive evaluator
+ * function is worth wrapping into this class.
+ * <p>
+ * The table is 2-way set-associative. Each entry occupies two {@code long}
+ * words: a check word holding the XOR of the position key with the score bits
+ * and the score bits. A new score is stored in the first way of its set,
+ * moving the previous entry to the second way, and a hit in the second way
+ * swaps the two entries, so that the least recently used entry of the set is
+ * evicted. Like {@link TranspositionTable}, the table may be shared by
+ * several search threads without locking: a reader accepts an entry only if
+ * the check word matches, which filters out the entries torn by concurrent
+ * writes.
+ * <p>
+ * Use {@link #wrap(EvaluatorFunction, int)} for wrapping an
+ * {@link IntEvaluatorFunction}, so that the engines keep searching with the
+ * integer scores.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 28, 2019)
+ * @since 1.61 (Sep 28, 2019)
+ * @param <S> the state type.
+ * @param <P> the player color type.
+ */
+public class CachingEvaluatorFunction<S extends AbstractState<S, P>,
+                                      P extends Enum<P>>
+        implements EvaluatorFunction<S> {
+
+    /**
+     * The minimum number of entries in a cache.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * The maximum number of entries in a cache.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * The number of entries per set.
+     */
+    private static final int WAYS = 2;
+
+    /**
+     * The number of {@code long} words per entry.
+     */
+    private static final int WORDS_PER_ENTRY = 2;
+
+    /**
+     * The number of {@code long} words per set.
+     */
+    private static final int WORDS_PER_SET = WAYS * WORDS_PER_ENTRY;
+
+    /**
+     * The score bits returned by a probe that finds no entry. A score with
+     * these bits is never stored.
+     */
+    private static final long MISSING = 0x7ff8_0000_0000_0001L;
+
+    /**
+     * The cached evaluator function.
+     */
+    private final EvaluatorFunction<S> evaluatorFunction;
+
+    /**
+     * The entry words.
+     */
+    private final long[] table;
+
+    /**
+     * The mask for mapping a hash key to a set index.
+     */
+    private final int setIndexMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a cache with at least {@code capacity} entries for the given
+     * evaluator function. The actual capacity is rounded up to the nearest
+     * power of two.
+     *
+     * @param evaluatorFunction the evaluator function to cache.
+     * @param capacity          the requested number of entries.
+     */
+    public CachingEvaluatorFunction(EvaluatorFunction<S> evaluatorFunction,
+                                    int capacity) {
+        checkCapacity(capacity);
+        this.evaluatorFunction =
+                Objects.requireNonNull(
+                        evaluatorFunction,
+                        "The input evaluator function is null.");
+
+        int actualCapacity = Integer.highestOneBit(capacity);
+
+        if (actualCapacity < capacity) {
+            actualCapacity <<= 1;
+        }
+
+        this.table = new long[WORDS_PER_ENTRY * actualCapacity];
+        this.setIndexMask = actualCapacity / WAYS - 1;
+    }
+
+    /**
+     * Wraps the given evaluator function into a cache with at least
+     * {@code capacity} entries. The returned cache is an
+     * {@link IntEvaluatorFunction} if and only if {@code evaluatorFunction}
+     * is.
+     *
+     * @param <S>               the state type.
+     * @param <P>               the player color type.
+     * @param evaluatorFunction the evaluator function to cache.
+     * @param capacity          the requested number of entries.
+     * @return the caching evaluator function.
+     */
+    public static <S extends AbstractState<S, P>, P extends Enum<P>>
+        CachingEvaluatorFunction<S, P>
+        wrap(EvaluatorFunction<S> evaluatorFunction, int capacity) {
+        if (evaluatorFunction instanceof IntEvaluatorFunction) {
+            return new CachingIntEvaluatorFunction<>(
+                    (IntEvaluatorFunction<S>) evaluatorFunction,
+                    capacity);
+        }
+
+        return new CachingEvaluatorFunction<>(evaluatorFunction, capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double evaluate(S state) {
+        long key = state.getHashKey();
+        long scoreBits = probe(key);
+
+        if (scoreBits != MISSING) {
+            return Double.longBitsToDouble(scoreBits);
+        }
+
+        double score = evaluatorFunction.evaluate(state);
+        store(key, score);
+        return score;
+    }
+
+    /**
+     * Looks up the given states and passes only the missing ones to the
+     * batch evaluation of the cached evaluator function.
+     *
+     * @param states the states to evaluate.
+     * @param scores the array to receive the evaluation score of each state
+     *               at the same index. Must have room for all the states.
+     */
+    @Override
+    public void evaluateBatch(List<S> states, double[] scores) {
+        List<S> missingStates = null;
+        int[] missingIndices = null;
+
+        for (int i = 0; i < states.size(); i++) {
+            long scoreBits = probe(states.get(i).getHashKey());
+
+            if (scoreBits != MISSING) {
+                scores[i] = Double.longBitsToDouble(scoreBits);
+                continue;
+            }
+
+            if (missingStates == null) {
+                missingStates = new ArrayList<>(states.size() - i);
+                missingIndices = new int[states.size() - i];
+            }
+
+            missingIndices[missingStates.size()] = i;
+            missingStates.add(states.get(i));
+        }
+
+        if (missingStates == null) {
+            return;
+        }
+
+        double[] missingScores = new double[missingStates.size()];
+        evaluatorFunction.evaluateBatch(missingStates, missingScores);
+
+        for (int i = 0; i < missingScores.length; i++) {
+            scores[missingIndices[i]] = missingScores[i];
+            store(missingStates.get(i).getHashKey(), missingScores[i]);
+        }
+    }
+
+    public EvaluatorFunction<S> getEvaluatorFunction() {
+        return evaluatorFunction;
+    }
+
+    /**
+     * Returns the number of entries in this cache.
+     *
+     * @return the capacity of this cache.
+     */
+    public int getCapacity() {
+        return table.length / WORDS_PER_ENTRY;
+    }
+
+    public long getNumberOfHits() {
+        return hits.sum();
+    }
+
+    public long getNumberOfMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of the evaluations that have been answered from
+     * this cache.
+     *
+     * @return the hit rate, or zero if there have been no evaluations.
+     */
+    public double getHitRate() {
+        long numberOfHits = hits.sum();
+        long numberOfEvaluations = numberOfHits + misses.sum();
+        return numberOfEvaluations == 0L ?
+               0.0 :
+               (double) numberOfHits / numberOfEvaluations;
+    }
+
+    /**
+     * Removes all the entries from this cache. The statistics are not reset.
+     * Must be called whenever the cached evaluator function starts scoring
+     * the positions differently.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * Resets the hit and miss counters of this cache.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "[capacity = " + getCapacity() +
+               ", hits = " + getNumberOfHits() +
+               ", misses = " + getNumberOfMisses() +
+               ", hit rate = " + getHitRate() + "]";
+    }
+
+    /**
+     * Looks up the score of the position with the hash key {@code key}.
+     *
+     * @param key the hash key of the position.
+     * @return the score bits, or {@link #MISSING} if the position is not in
+     *         this cache.
+     */
+    private long probe(long key) {
+        int offset = getSetOffset(key);
+        long check0 = table[offset];
+        long scoreBits0 = table[offset + 1];
+
+        if ((check0 ^ scoreBits0) == key && (check0 | scoreBits0) != 0L) {
+            hits.increment();
+            return scoreBits0;
+        }
+
+        long check1 = table[offset + 2];
+        long scoreBits1 = table[offset + 3];
+
+        if ((check1 ^ scoreBits1) == key && (check1 | scoreBits1) != 0L) {
+            // Make the hit entry the most recently used one:
+            table[offset] = check1;
+            table[offset + 1] = scoreBits1;
+            table[offset + 2] = check0;
+            table[offset + 3] = scoreBits0;
+            hits.increment();
+            return scoreBits1;
+        }
+
+        misses.increment();
+        return MISSING;
+    }
+
+    /**
+     * Stores the score of a position into the first way of its set, evicting
+     * the entry in the second way.
+     *
+     * @param key   the hash key of the position.
+     * @param score the score of the position.
+     */
+    private void store(long key, double score) {
+        long scoreBits = Double.doubleToRawLongBits(score);
+
+        if (scoreBits == MISSING) {
+            return;
+        }
+
+        int offset = getSetOffset(key);
+        table[offset + 2] = table[offset];
+        table[offset + 3] = table[offset + 1];
+        table[offset] = key ^ scoreBits;
+        table[offset + 1] = scoreBits;
+    }
+
+    private int getSetOffset(long key) {
+        return WORDS_PER_SET * ((int)(key ^ (key >>> 32)) & setIndexMask);
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity < MINIMUM_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "The requested capacity (" + capacity + ") is too " +
+                    "small. Must be at least " + MINIMUM_CAPACITY + ".");
+        }
+
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "The requested capacity (" + capacity + ") is too " +
+                    "large. Must be at most " + MAXIMUM_CAPACITY + ".");
+        }
+    }
+}
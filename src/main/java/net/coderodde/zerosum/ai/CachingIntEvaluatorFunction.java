@@ -0,0 +1,40 @@
+package net.coderodde.zerosum.ai;
+
+/**
+ * This class implements a {@link CachingEvaluatorFunction} for the integer
+ * evaluator functions. The integer scores are exactly representable by the
+ * {@code double} scores held in the cache, so that both evaluation methods
+ * share the same entries.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 28, 2019)
+ * @since 1.61 (Sep 28, 2019)
+ * @param <S> the state type.
+ * @param <P> the player color type.
+ */
+public final class CachingIntEvaluatorFunction<S extends AbstractState<S, P>,
+                                               P extends Enum<P>>
+        extends CachingEvaluatorFunction<S, P>
+        implements IntEvaluatorFunction<S> {
+
+    /**
+     * Constructs a cache with at least {@code capacity} entries for the given
+     * integer evaluator function.
+     *
+     * @param evaluatorFunction the evaluator function to cache.
+     * @param capacity          the requested number of entries.
+     */
+    public CachingIntEvaluatorFunction(
+            IntEvaluatorFunction<S> evaluatorFunction,
+            int capacity) {
+        super(evaluatorFunction, capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int evaluateInt(S state) {
+        return (int) evaluate(state);
+    }
+}
@@ -0,0 +1,26 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.Iterator;
+
+/**
+ * This interface defines the API for iterating over the children of a state
+ * lazily. Since alpha-beta search often cuts off after the first child or 
+ * two, a state generating its children on demand saves constructing the 
+ * siblings after the cut-off.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 22, 2019)
+ * @since 1.61 (Sep 22, 2019)
+ * @param <S> the state type.
+ */
+public interface ChildIterator<S> extends Iterator<S> {
+
+    /**
+     * Returns the index of the child last returned by {@link #next()} in the
+     * list returned by {@link AbstractState#children()}. The engines store 
+     * these indices in the transposition table.
+     * 
+     * @return the index of the current child.
+     */
+    public int index();
+}
@@ -1,5 +1,7 @@
 package net.coderodde.zerosum.ai;
 
+import java.util.List;
+
 /**
  * This interface defines the API for evaluation functions.
  * 
@@ -15,4 +17,20 @@ public interface EvaluatorFunction<S> {
      * @return the evaluation score.
      */
     public double evaluate(S state);
+
+    /**
+     * Evaluates the given states in one call. The engines pass all the leaf
+     * children of a node at once, so that the evaluators with a per-call
+     * overhead or a vectorizable kernel can amortize it. The default 
+     * implementation evaluates the states one by one.
+     * 
+     * @param states the states to evaluate.
+     * @param scores the array to receive the evaluation score of each state
+     *               at the same index. Must have room for all the states.
+     */
+    public default void evaluateBatch(List<S> states, double[] scores) {
+        for (int i = 0; i < states.size(); i++) {
+            scores[i] = evaluate(states.get(i));
+        }
+    }
 }
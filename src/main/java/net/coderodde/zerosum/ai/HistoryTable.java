@@ -0,0 +1,226 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.Arrays;
+
+/**
+ * This class implements the killer move and the history heuristics for
+ * ordering the moves without evaluating the children. The moves are
+ * identified by the compact move ids of {@link AbstractState#getMoveId(int)}.
+ * Each ply keeps the two latest distinct moves that caused a beta cut-off
+ * (the killer moves), and each move id accumulates a history score of the
+ * squared remaining depths of its cut-offs over the whole search.
+ * <p>
+ * The table is not synchronized. The parallel searches may lose some of the
+ * concurrent updates, which affects only the move ordering and never the
+ * result of the search.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 23, 2019)
+ * @since 1.61 (Sep 23, 2019)
+ */
+public final class HistoryTable {
+
+    /**
+     * The minimum number of move ids.
+     */
+    private static final int MINIMUM_NUMBER_OF_MOVE_IDS = 1;
+
+    /**
+     * The number of plies having killer moves. The deeper plies do without.
+     */
+    private static final int MAXIMUM_PLY = 128;
+
+    /**
+     * The number of killer moves per ply.
+     */
+    private static final int KILLERS_PER_PLY = 2;
+
+    /**
+     * Denotes an empty killer slot.
+     */
+    private static final int NO_KILLER = -1;
+
+    /**
+     * The history scores indexed by the move id.
+     */
+    private final long[] historyScores;
+
+    /**
+     * The killer move ids. The slots of the ply {@code p} start at
+     * {@code p * KILLERS_PER_PLY}, the most recent one first.
+     */
+    private final int[] killers = new int[MAXIMUM_PLY * KILLERS_PER_PLY];
+
+    /**
+     * Constructs this table.
+     *
+     * @param numberOfMoveIds the number of distinct move ids. The moves with
+     *                        greater ids are not tracked.
+     */
+    public HistoryTable(int numberOfMoveIds) {
+        this.historyScores = new long[checkNumberOfMoveIds(numberOfMoveIds)];
+        Arrays.fill(killers, NO_KILLER);
+    }
+
+    public int getNumberOfMoveIds() {
+        return historyScores.length;
+    }
+
+    /**
+     * Returns the history score of the move {@code moveId}.
+     *
+     * @param moveId the move id.
+     * @return the history score.
+     */
+    public long getHistoryScore(int moveId) {
+        return moveId >= 0 && moveId < historyScores.length ?
+               historyScores[moveId] :
+               0L;
+    }
+
+    /**
+     * Returns {@code true} if {@code moveId} is a killer move of the ply
+     * {@code ply}.
+     *
+     * @param ply    the distance from the root.
+     * @param moveId the move id.
+     * @return {@code true} if the move is a killer move.
+     */
+    public boolean isKiller(int ply, int moveId) {
+        return getKillerRank(ply, moveId) < KILLERS_PER_PLY;
+    }
+
+    /**
+     * Returns the ordering score of the move {@code moveId} at the ply
+     * {@code ply}. The killer moves score above all the other moves, the most
+     * recent killer first, and the rest of the moves score their history
+     * scores.
+     *
+     * @param ply    the distance from the root.
+     * @param moveId the move id.
+     * @return the ordering score, the greater the earlier to search.
+     */
+    public long getOrderingScore(int ply, int moveId) {
+        int killerRank = getKillerRank(ply, moveId);
+
+        if (killerRank < KILLERS_PER_PLY) {
+            return Long.MAX_VALUE - 1 - killerRank;
+        }
+
+        return getHistoryScore(moveId);
+    }
+
+    /**
+     * Records a move that caused a beta cut-off.
+     *
+     * @param ply    the distance of the node from the root.
+     * @param moveId the id of the move.
+     * @param depth  the remaining depth of the node.
+     */
+    public void recordCutoff(int ply, int moveId, int depth) {
+        if (moveId >= 0 && moveId < historyScores.length) {
+            historyScores[moveId] += (long) depth * depth;
+        }
+
+        if (ply >= 0 && ply < MAXIMUM_PLY) {
+            int slot = ply * KILLERS_PER_PLY;
+
+            if (killers[slot] != moveId) {
+                killers[slot + 1] = killers[slot];
+                killers[slot] = moveId;
+            }
+        }
+    }
+
+    /**
+     * Orders the moves for searching. The hash move comes first, the killer
+     * moves of the ply next, and the rest of the moves follow in the
+     * decreasing order of their history scores. The moves of equal rank keep
+     * their generation order.
+     *
+     * @param moveIds       the move ids in generation order.
+     * @param numberOfMoves the number of moves.
+     * @param hashMove      the index of the hash move, or a negative value.
+     * @param ply           the distance of the node from the root.
+     * @param order         the array to receive the move indices in search
+     *                      order.
+     */
+    public void orderMoves(int[] moveIds,
+                           int numberOfMoves,
+                           int hashMove,
+                           int ply,
+                           int[] order) {
+        for (int i = 0; i < numberOfMoves; i++) {
+            long score = getOrderingScore(moveIds, i, hashMove, ply);
+            int j = i;
+
+            // Insertion sort, the number of moves is small:
+            while (j > 0
+                    && getOrderingScore(moveIds, order[j - 1], hashMove, ply)
+                            < score) {
+                order[j] = order[j - 1];
+                j--;
+            }
+
+            order[j] = i;
+        }
+    }
+
+    /**
+     * Halves the history scores and forgets the killer moves. Called between
+     * the searches so that the old cut-offs weigh less than the fresh ones.
+     */
+    public void age() {
+        for (int i = 0; i < historyScores.length; i++) {
+            historyScores[i] >>>= 1;
+        }
+
+        Arrays.fill(killers, NO_KILLER);
+    }
+
+    /**
+     * Clears the table.
+     */
+    public void clear() {
+        Arrays.fill(historyScores, 0L);
+        Arrays.fill(killers, NO_KILLER);
+    }
+
+    private long getOrderingScore(int[] moveIds,
+                                  int moveIndex,
+                                  int hashMove,
+                                  int ply) {
+        if (moveIndex == hashMove) {
+            return Long.MAX_VALUE;
+        }
+
+        return getOrderingScore(ply, moveIds[moveIndex]);
+    }
+
+    /**
+     * Returns the slot of {@code moveId} among the killer moves of the ply,
+     * or {@link #KILLERS_PER_PLY} if it is not a killer move.
+     */
+    private int getKillerRank(int ply, int moveId) {
+        if (ply >= 0 && ply < MAXIMUM_PLY) {
+            for (int i = 0; i < KILLERS_PER_PLY; i++) {
+                if (killers[ply * KILLERS_PER_PLY + i] == moveId) {
+                    return i;
+                }
+            }
+        }
+
+        return KILLERS_PER_PLY;
+    }
+
+    private static int checkNumberOfMoveIds(int numberOfMoveIds) {
+        if (numberOfMoveIds < MINIMUM_NUMBER_OF_MOVE_IDS) {
+            throw new IllegalArgumentException(
+                    "The requested number of move ids (" + numberOfMoveIds +
+                    ") is too small. Must be at least " +
+                    MINIMUM_NUMBER_OF_MOVE_IDS + ".");
+        }
+
+        return numberOfMoveIds;
+    }
+}
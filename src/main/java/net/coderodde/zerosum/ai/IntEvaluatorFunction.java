@@ -0,0 +1,97 @@
+package net.coderodde.zerosum.ai;
+
+/**
+ * This interface defines the API for evaluation functions with integer
+ * scores. The engines that support it search with {@code int} scores and
+ * exact null windows of width one instead of the {@code double} ones.
+ * <p>
+ * A won position must score at least {@link #WIN_SCORE} in absolute value,
+ * and every other position less than {@link #WIN_SCORE} minus
+ * {@link #MAXIMUM_WIN_DISTANCE}. The engines move the win scores towards
+ * zero by the distance of the win from the root, so that the faster wins and
+ * the slower losses are preferred. Since the distance depends on the root,
+ * the win scores are stored in the transposition tables by their distance
+ * from the storing node instead.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 26, 2019)
+ * @since 1.61 (Sep 26, 2019)
+ * @param <S> the state type.
+ */
+public interface IntEvaluatorFunction<S> extends EvaluatorFunction<S> {
+
+    /**
+     * The minimum absolute score of a won position.
+     */
+    public static final int WIN_SCORE = 1_000_000;
+
+    /**
+     * The maximum distance in plies by which the engines may move a win score
+     * towards zero.
+     */
+    public static final int MAXIMUM_WIN_DISTANCE = 1_000;
+
+    /**
+     * The absolute score exceeding every score of a position. Used as the
+     * initial search window.
+     */
+    public static final int INFINITE_SCORE = 2 * WIN_SCORE;
+
+    /**
+     * Evaluates the given state and returns the result.
+     *
+     * @param state the state to evaluate.
+     * @return the evaluation score.
+     */
+    public int evaluateInt(S state);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public default double evaluate(S state) {
+        return evaluateInt(state);
+    }
+
+    /**
+     * Returns {@code true} if {@code score} is the score of a won or a lost
+     * position.
+     *
+     * @param score the score to check.
+     * @return {@code true} if {@code score} is a win score.
+     */
+    public static boolean isWinScore(int score) {
+        return Math.abs(score) > WIN_SCORE - MAXIMUM_WIN_DISTANCE;
+    }
+
+    /**
+     * Moves the win score {@code score} towards zero by {@code distance}
+     * plies. The other scores are returned as they are.
+     *
+     * @param score    the score.
+     * @param distance the distance of the win in plies.
+     * @return the score of the win at the given distance.
+     */
+    public static int addWinDistance(int score, int distance) {
+        if (score > WIN_SCORE - MAXIMUM_WIN_DISTANCE) {
+            return score - distance;
+        }
+
+        if (score < MAXIMUM_WIN_DISTANCE - WIN_SCORE) {
+            return score + distance;
+        }
+
+        return score;
+    }
+
+    /**
+     * Undoes {@link #addWinDistance(int, int)}.
+     *
+     * @param score    the score.
+     * @param distance the distance of the win in plies.
+     * @return the score of the win without the distance.
+     */
+    public static int removeWinDistance(int score, int distance) {
+        return addWinDistance(score, -distance);
+    }
+}
@@ -0,0 +1,59 @@
+package net.coderodde.zerosum.ai;
+
+/**
+ * This interface defines the optional in-place move API for the states. A
+ * state implementing it can be searched by making and unmaking the moves on a
+ * single instance instead of materializing the {@link AbstractState#children()}
+ * lists. The moves are encoded as {@code int} codes, and the moves must be
+ * generated in the same order as the corresponding children so that the move
+ * indices stored in the transposition table mean the same in both modes. The
+ * move codes double as the move ids of {@link AbstractState#getMoveId(int)},
+ * so they should be small non-negative integers.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 21, 2019)
+ * @since 1.61 (Sep 21, 2019)
+ * @param <S> the actual state type.
+ */
+public interface MutableState<S> {
+
+    /**
+     * Returns the maximum number of moves that
+     * {@link #generateMoves(int[])} may produce in any state.
+     *
+     * @return the maximum number of moves.
+     */
+    public int getMaximumNumberOfMoves();
+
+    /**
+     * Writes the codes of the legal moves of this state into {@code moves}.
+     *
+     * @param moves the array to receive the move codes. Must have room for at
+     *              least {@link #getMaximumNumberOfMoves()} moves.
+     * @return the number of moves written.
+     */
+    public int generateMoves(int[] moves);
+
+    /**
+     * Makes the move {@code move} in this state.
+     *
+     * @param move the move code produced by {@link #generateMoves(int[])}.
+     */
+    public void makeMove(int move);
+
+    /**
+     * Takes back the move {@code move}, which must be the last move made in
+     * this state.
+     *
+     * @param move the move code to take back.
+     */
+    public void unmakeMove(int move);
+
+    /**
+     * Returns an independent copy of this state. The search works on a copy in
+     * order to leave the state given to it intact.
+     *
+     * @return a copy of this state.
+     */
+    public S copy();
+}
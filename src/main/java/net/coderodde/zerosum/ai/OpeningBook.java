@@ -0,0 +1,209 @@
+package net.coderodde.zerosum.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements a read-only opening book backed by a memory-mapped
+ * file written by {@link OpeningBookGenerator}. The file consists of a
+ * header of two {@code long} words, the magic number and the number of
+ * records, followed by the records sorted by their position keys. Each record
+ * occupies twelve bytes: the {@code long} position key and the {@code int}
+ * index of the best child of the position. All the values are big-endian.
+ * <p>
+ * The file is never read into the heap: the operating system pages in only
+ * the parts touched by the lookups. Since the position keys are hash values
+ * spread uniformly over the key space, a lookup does an interpolation search,
+ * which takes about {@code log log n} probes, and falls back to the binary
+ * search if the interpolation stops converging.
+ * <p>
+ * The position key of a state is its {@link AbstractState#getHashKey()},
+ * complemented if the minimizing player is to move, exactly like in the
+ * transposition tables. The lookups may be done by several threads
+ * concurrently.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 29, 2019)
+ * @since 1.61 (Sep 29, 2019)
+ */
+public final class OpeningBook {
+
+    /**
+     * Denotes the absence of a position in the book.
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The first word of each opening book file: the ASCII codes of
+     * "ZSOPBOOK".
+     */
+    static final long MAGIC = 0x5a534f50424f4f4bL;
+
+    /**
+     * The number of bytes in the file header.
+     */
+    static final int HEADER_BYTES = 2 * Long.BYTES;
+
+    /**
+     * The number of bytes per record.
+     */
+    static final int RECORD_BYTES = Long.BYTES + Integer.BYTES;
+
+    /**
+     * The largest file that fits into a single mapping.
+     */
+    private static final long MAXIMUM_FILE_BYTES = Integer.MAX_VALUE;
+
+    /**
+     * The number of the interpolation steps after which the lookup switches
+     * to the binary search.
+     */
+    private static final int MAXIMUM_INTERPOLATION_STEPS = 8;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of records in the book.
+     */
+    private final int size;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Opens the opening book in the file {@code path}. The file is mapped
+     * into memory and stays mapped until this book is garbage collected.
+     *
+     * @param path the path of the opening book file.
+     * @throws IOException if the file cannot be read or is not an opening
+     *                     book.
+     */
+    public OpeningBook(Path path) throws IOException {
+        Objects.requireNonNull(path, "The input path is null.");
+
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            long fileBytes = channel.size();
+
+            if (fileBytes < HEADER_BYTES || fileBytes > MAXIMUM_FILE_BYTES) {
+                throw new IOException(
+                        "The file \"" + path + "\" is not an opening book: " +
+                        "bad size " + fileBytes + ".");
+            }
+
+            // The mapping remains valid after the channel is closed:
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileBytes);
+        }
+
+        long size = buffer.getLong(Long.BYTES);
+
+        if (buffer.getLong(0) != MAGIC
+                || size < 0
+                || HEADER_BYTES + size * RECORD_BYTES != buffer.capacity()) {
+            throw new IOException(
+                    "The file \"" + path + "\" is not an opening book.");
+        }
+
+        this.size = (int) size;
+    }
+
+    /**
+     * Returns the number of positions in this book.
+     *
+     * @return the size of this book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up the position with the key {@code key}.
+     *
+     * @param key the position key.
+     * @return the index of the best child of the position, or
+     *         {@link #NO_MOVE} if the position is not in this book.
+     */
+    public int getMove(long key) {
+        probes.increment();
+        int low = 0;
+        int high = size - 1;
+        int steps = 0;
+
+        while (low <= high) {
+            long lowKey = getKey(low);
+            long highKey = getKey(high);
+
+            if (key < lowKey || key > highKey) {
+                return NO_MOVE;
+            }
+
+            int index;
+
+            if (lowKey == highKey
+                    || ++steps > MAXIMUM_INTERPOLATION_STEPS) {
+                index = (low + high) >>> 1;
+            } else {
+                // The keys are uniform, so estimate the index linearly:
+                double fraction = ((double) key - lowKey) /
+                                  ((double) highKey - lowKey);
+                index = low + (int)(fraction * (high - low));
+                index = Math.max(low, Math.min(high, index));
+            }
+
+            long indexKey = getKey(index);
+
+            if (indexKey < key) {
+                low = index + 1;
+            } else if (indexKey > key) {
+                high = index - 1;
+            } else {
+                hits.increment();
+                return buffer.getInt(getOffset(index) + Long.BYTES);
+            }
+        }
+
+        return NO_MOVE;
+    }
+
+    public long getNumberOfProbes() {
+        return probes.sum();
+    }
+
+    public long getNumberOfHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Resets the probe and hit counters of this book.
+     */
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "[size = " + size() +
+               ", probes = " + getNumberOfProbes() +
+               ", hits = " + getNumberOfHits() + "]";
+    }
+
+    private long getKey(int index) {
+        return buffer.getLong(getOffset(index));
+    }
+
+    private static int getOffset(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+}
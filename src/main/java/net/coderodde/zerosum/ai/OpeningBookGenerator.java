@@ -0,0 +1,226 @@
+package net.coderodde.zerosum.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * This class implements the offline generation of the opening book files
+ * read by {@link OpeningBook}. The generator enumerates all the distinct
+ * positions reachable from a root within a given number of plies, searches
+ * the best move of each of them with a game engine in parallel and writes
+ * the moves sorted by the position keys.
+ * <p>
+ * The game engines are not thread-safe, so that each worker thread of the
+ * fork-join pool gets its own engine from the supplier.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 29, 2019)
+ * @since 1.61 (Sep 29, 2019)
+ * @param <S> the state type.
+ * @param <P> the player color type.
+ */
+public final class OpeningBookGenerator<S extends AbstractState<S, P>,
+                                        P extends Enum<P>> {
+
+    /**
+     * The supplier of the game engines for the worker threads.
+     */
+    private final Supplier<? extends AbstractGameEngine<S, P>>
+            gameEngineSupplier;
+
+    /**
+     * The pool running the searches.
+     */
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * Constructs a generator running the searches in the common fork-join
+     * pool.
+     *
+     * @param gameEngineSupplier the supplier of the game engines.
+     */
+    public OpeningBookGenerator(
+            Supplier<? extends AbstractGameEngine<S, P>> gameEngineSupplier) {
+        this(gameEngineSupplier, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a generator.
+     *
+     * @param gameEngineSupplier the supplier of the game engines.
+     * @param forkJoinPool       the pool for running the searches.
+     */
+    public OpeningBookGenerator(
+            Supplier<? extends AbstractGameEngine<S, P>> gameEngineSupplier,
+            ForkJoinPool forkJoinPool) {
+        this.gameEngineSupplier =
+                Objects.requireNonNull(
+                        gameEngineSupplier,
+                        "The input game engine supplier is null.");
+        this.forkJoinPool =
+                Objects.requireNonNull(forkJoinPool,
+                                       "The input fork-join pool is null.");
+    }
+
+    /**
+     * Generates the opening book of all the positions at most
+     * {@code maximumPly} plies away from {@code root} and writes it to the
+     * file {@code path}. The won and the terminal positions are left out.
+     *
+     * @param root             the root position.
+     * @param minimizingPlayer the minimizing player.
+     * @param maximizingPlayer the maximizing player.
+     * @param initialPlayer    the player to move in {@code root}.
+     * @param maximumPly       the maximum distance of a position from
+     *                         {@code root}.
+     * @param path             the path of the file to write.
+     * @return the number of the positions in the book.
+     * @throws IOException if the file cannot be written.
+     */
+    public int generate(S root,
+                        P minimizingPlayer,
+                        P maximizingPlayer,
+                        P initialPlayer,
+                        int maximumPly,
+                        Path path) throws IOException {
+        checkMaximumPly(maximumPly);
+        Objects.requireNonNull(path, "The input path is null.");
+        List<S> states = new ArrayList<>();
+        List<P> players = new ArrayList<>();
+        Set<Long> keys = new HashSet<>();
+        List<S> level = Collections.singletonList(root);
+        P player = initialPlayer;
+
+        // Enumerate the positions level by level:
+        for (int ply = 0; ply <= maximumPly; ply++) {
+            int color = player == minimizingPlayer ? -1 : 1;
+            List<S> nextLevel = new ArrayList<>();
+
+            for (S state : level) {
+                if (state.checkVictory() != null
+                        || state.isTerminal()
+                        || !keys.add(
+                                AbstractGameEngine.getHashKey(state, color))) {
+                    continue;
+                }
+
+                states.add(state);
+                players.add(player);
+
+                if (ply < maximumPly) {
+                    nextLevel.addAll(state.children());
+                }
+            }
+
+            level = nextLevel;
+            player = player == minimizingPlayer ?
+                     maximizingPlayer :
+                     minimizingPlayer;
+        }
+
+        long[] positionKeys = new long[states.size()];
+        int[] moves = new int[states.size()];
+        ThreadLocal<AbstractGameEngine<S, P>> gameEngines =
+                ThreadLocal.withInitial(gameEngineSupplier);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(states.size());
+
+        for (int i = 0; i < states.size(); i++) {
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                S state = states.get(index);
+                P statePlayer = players.get(index);
+                positionKeys[index] =
+                        AbstractGameEngine.getHashKey(
+                                state,
+                                statePlayer == minimizingPlayer ? -1 : 1);
+                moves[index] = getBestMove(gameEngines.get(),
+                                           state,
+                                           minimizingPlayer,
+                                           maximizingPlayer,
+                                           statePlayer);
+            }));
+        }
+
+        forkJoinPool.invoke(
+                ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        write(path, positionKeys, moves);
+        return states.size();
+    }
+
+    /**
+     * Searches the best move of {@code state}.
+     *
+     * @return the index of the best child of {@code state}.
+     */
+    private int getBestMove(AbstractGameEngine<S, P> gameEngine,
+                            S state,
+                            P minimizingPlayer,
+                            P maximizingPlayer,
+                            P player) {
+        S bestState = gameEngine.makePly(state,
+                                         minimizingPlayer,
+                                         maximizingPlayer,
+                                         player);
+        List<S> children = state.children();
+
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i).getHashKey() == bestState.getHashKey()) {
+                return i;
+            }
+        }
+
+        throw new IllegalStateException(
+                "The game engine returned a state that is not a child of " +
+                "the searched position.");
+    }
+
+    /**
+     * Writes the records sorted by the position keys.
+     */
+    private static void write(Path path, long[] positionKeys, int[] moves)
+            throws IOException {
+        Integer[] order = new Integer[positionKeys.length];
+
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (i1, i2) -> Long.compare(positionKeys[i1],
+                                                    positionKeys[i2]));
+
+        try (DataOutputStream out =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(path)))) {
+            out.writeLong(OpeningBook.MAGIC);
+            out.writeLong(order.length);
+
+            for (int i : order) {
+                out.writeLong(positionKeys[i]);
+                out.writeInt(moves[i]);
+            }
+        }
+    }
+
+    private static void checkMaximumPly(int maximumPly) {
+        if (maximumPly < 0) {
+            throw new IllegalArgumentException(
+                    "The requested maximum ply (" + maximumPly + ") is too " +
+                    "small. Must be at least 0.");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class implements the handle of an asynchronous search started by
+ * {@link AbstractGameEngine#makePlyAsync(AbstractState, Enum, Enum, Enum)}.
+ * The future completes with the state after the best move once the search
+ * has reached the full depth of the engine. Until then,
+ * {@link #getBestStateSoFar()} returns the best move of the deepest
+ * iteration completed so far.
+ * <p>
+ * Cancelling the future stops the search: the engine checks for the
+ * cancellation on each node, so that the searching thread and the worker
+ * threads of the parallel engines are released within the time of searching
+ * a single node. The best state found before the cancellation remains
+ * available via {@link #getBestStateSoFar()}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 1, 2019)
+ * @since 1.61 (Oct 1, 2019)
+ * @param <S> the state type.
+ */
+public final class SearchFuture<S> extends CompletableFuture<S> {
+
+    /**
+     * The engine running the search.
+     */
+    private final AbstractGameEngine<?, ?> gameEngine;
+
+    /**
+     * The state after the best move of the deepest completed iteration, or
+     * {@code null}.
+     */
+    private volatile S bestStateSoFar;
+
+    /**
+     * The depth of the deepest completed iteration.
+     */
+    private volatile int completedDepth;
+
+    SearchFuture(AbstractGameEngine<?, ?> gameEngine) {
+        this.gameEngine = gameEngine;
+    }
+
+    /**
+     * Returns the state after the best move found so far. This is the result
+     * of the deepest completed iteration, or the final result if the search
+     * has completed.
+     *
+     * @return the best state so far, or {@code null} if not even the first
+     *         iteration has completed.
+     */
+    public S getBestStateSoFar() {
+        return bestStateSoFar;
+    }
+
+    /**
+     * Returns the depth of the deepest iteration completed so far.
+     *
+     * @return the completed depth, or zero if no iteration has completed.
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Cancels this future and stops the search. The search stops
+     * asynchronously: the engine may still be unwinding when this method
+     * returns.
+     *
+     * @param mayInterruptIfRunning ignored, since the search is stopped
+     *                              cooperatively.
+     * @return {@code true} if this future has been cancelled by this call.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        gameEngine.stopAsyncSearch(this);
+        return cancelled;
+    }
+
+    /**
+     * Stops the search if this future has been completed by other means than
+     * the search itself, for example by a timeout.
+     */
+    @Override
+    public boolean completeExceptionally(Throwable ex) {
+        boolean completed = super.completeExceptionally(ex);
+        gameEngine.stopAsyncSearch(this);
+        return completed;
+    }
+
+    /**
+     * Records the result of a completed iteration.
+     *
+     * @param depth     the depth of the iteration.
+     * @param bestState the state after the best move of the iteration.
+     */
+    void iterationCompleted(int depth, S bestState) {
+        bestStateSoFar = bestState;
+        completedDepth = depth;
+    }
+}
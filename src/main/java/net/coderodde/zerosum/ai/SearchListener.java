@@ -0,0 +1,27 @@
+package net.coderodde.zerosum.ai;
+
+/**
+ * This interface defines the API for observing the progress of the searches
+ * of a game engine. The listener is notified from the searching thread after
+ * each completed search, which in the time-bounded mode means after each
+ * completed iteration.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 25, 2019)
+ * @since 1.61 (Sep 25, 2019)
+ * @param <S> the state type.
+ */
+@FunctionalInterface
+public interface SearchListener<S> {
+
+    /**
+     * Called after a search or an iteration of a search has completed.
+     *
+     * @param depth      the depth of the completed search.
+     * @param bestState  the state after the best move found.
+     * @param statistics the statistics of the engine.
+     */
+    public void searchCompleted(int depth,
+                                S bestState,
+                                SearchStatistics statistics);
+}
@@ -0,0 +1,363 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class collects the statistics of the searches of a game engine: the
+ * nodes visited, the leaves evaluated, the beta cut-offs by the position of
+ * the cut-off move in the search order, the maximum ply reached, the
+ * re-searches of the children and of the root aspiration windows and the
+ * search time. The statistics accumulate over the
+ * searches until {@link #reset()}.
+ * <p>
+ * Each search thread counts into its own plain counters, which are summed up
+ * only when read, so the counting stays cheap under parallel search. The sums
+ * are exact once the searches have completed; read during a search, they may
+ * lag behind the other threads. The counters of the terminated threads are 
+ * folded into a common total, so that the engines starting a new thread per
+ * search keep only the counters of the live threads.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 25, 2019)
+ * @since 1.61 (Sep 25, 2019)
+ */
+public final class SearchStatistics {
+
+    /**
+     * The number of cut-off move positions counted separately. The cut-offs
+     * at the later positions are counted in the last bucket.
+     */
+    public static final int NUMBER_OF_CUTOFF_POSITIONS = 8;
+
+    /**
+     * Holds the counters of a single search thread.
+     */
+    private static final class Counters {
+        final Thread thread;
+        long nodes;
+        long leaves;
+        long reSearches;
+        long aspirationReSearches;
+        int maximumPly;
+        final long[] cutoffs = new long[NUMBER_OF_CUTOFF_POSITIONS];
+
+        Counters(Thread thread) {
+            this.thread = thread;
+        }
+
+        void add(Counters counters) {
+            nodes += counters.nodes;
+            leaves += counters.leaves;
+            reSearches += counters.reSearches;
+            aspirationReSearches += counters.aspirationReSearches;
+            maximumPly = Math.max(maximumPly, counters.maximumPly);
+
+            for (int i = 0; i < NUMBER_OF_CUTOFF_POSITIONS; i++) {
+                cutoffs[i] += counters.cutoffs[i];
+            }
+        }
+
+        void clear() {
+            nodes = 0L;
+            leaves = 0L;
+            reSearches = 0L;
+            aspirationReSearches = 0L;
+            maximumPly = 0;
+
+            for (int i = 0; i < NUMBER_OF_CUTOFF_POSITIONS; i++) {
+                cutoffs[i] = 0L;
+            }
+        }
+    }
+
+    /**
+     * The counters of the live threads that have searched. Guarded by 
+     * {@code this}.
+     */
+    private final List<Counters> allCounters = new ArrayList<>();
+
+    /**
+     * The sums of the counters of the terminated threads. Guarded by
+     * {@code this}.
+     */
+    private final Counters retiredCounters = new Counters(null);
+
+    /**
+     * The counters of the current thread.
+     */
+    private final ThreadLocal<Counters> threadCounters =
+            ThreadLocal.withInitial(this::addThreadCounters);
+
+    private long numberOfSearches;
+    private long searchTime;
+    private long searchStartTime;
+    private long searchStartNodes;
+    private long lastSearchNodes;
+    private int lastSearchDepth;
+
+    /**
+     * Counts a visited node.
+     *
+     * @param ply the distance of the node from the root.
+     */
+    public void countNode(int ply) {
+        Counters counters = threadCounters.get();
+        counters.nodes++;
+
+        if (counters.maximumPly < ply) {
+            counters.maximumPly = ply;
+        }
+    }
+
+    /**
+     * Counts an evaluated leaf.
+     */
+    public void countLeaf() {
+        threadCounters.get().leaves++;
+    }
+
+    /**
+     * Counts a beta cut-off.
+     *
+     * @param position the position of the cut-off move in the search order,
+     *                 starting from zero.
+     */
+    public void countCutoff(int position) {
+        threadCounters.get().cutoffs[
+                Math.min(position, NUMBER_OF_CUTOFF_POSITIONS - 1)]++;
+    }
+
+    /**
+     * Counts a re-search of a child with a wider window.
+     */
+    public void countReSearch() {
+        threadCounters.get().reSearches++;
+    }
+
+    /**
+     * Counts a re-search of the root after the score fell outside the
+     * aspiration window.
+     */
+    public void countAspirationReSearch() {
+        threadCounters.get().aspirationReSearches++;
+    }
+
+    /**
+     * Marks the start of a search. Called by the engine from the searching
+     * thread.
+     */
+    public void searchStarted() {
+        searchStartNodes = getNumberOfNodes();
+        searchStartTime = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a search. Called by the engine from the searching
+     * thread.
+     *
+     * @param depth     the depth of the search.
+     * @param completed {@code false} if the search was aborted.
+     */
+    public void searchStopped(int depth, boolean completed) {
+        searchTime += System.nanoTime() - searchStartTime;
+
+        if (completed) {
+            numberOfSearches++;
+            lastSearchNodes = getNumberOfNodes() - searchStartNodes;
+            lastSearchDepth = depth;
+        }
+    }
+
+    public long getNumberOfNodes() {
+        return sumCounters().nodes;
+    }
+
+    public long getNumberOfLeaves() {
+        return sumCounters().leaves;
+    }
+
+    public long getNumberOfReSearches() {
+        return sumCounters().reSearches;
+    }
+
+    public long getNumberOfAspirationReSearches() {
+        return sumCounters().aspirationReSearches;
+    }
+
+    /**
+     * Returns the average number of the aspiration window re-searches per
+     * completed search.
+     *
+     * @return the aspiration re-search rate.
+     */
+    public double getAspirationReSearchRate() {
+        return numberOfSearches == 0L ?
+               0.0 :
+               (double) getNumberOfAspirationReSearches() / numberOfSearches;
+    }
+
+    /**
+     * Returns the number of the beta cut-offs caused by the move at position
+     * {@code position} in the search order. The last position covers all the
+     * later moves as well.
+     *
+     * @param position the position of the move, starting from zero.
+     * @return the number of cut-offs.
+     */
+    public long getNumberOfCutoffs(int position) {
+        return sumCounters().cutoffs[position];
+    }
+
+    public long getNumberOfCutoffs() {
+        long cutoffs = 0L;
+
+        for (long positionCutoffs : sumCounters().cutoffs) {
+            cutoffs += positionCutoffs;
+        }
+
+        return cutoffs;
+    }
+
+    /**
+     * Returns the share of the beta cut-offs caused by the first move
+     * searched, which measures the quality of the move ordering.
+     *
+     * @return the first move cut-off rate.
+     */
+    public double getFirstMoveCutoffRate() {
+        long cutoffs = getNumberOfCutoffs();
+        return cutoffs == 0L ? 0.0 : (double) getNumberOfCutoffs(0) / cutoffs;
+    }
+
+    /**
+     * Returns the maximum distance from the root of a node visited.
+     *
+     * @return the maximum ply reached.
+     */
+    public int getMaximumPly() {
+        return sumCounters().maximumPly;
+    }
+
+    public long getNumberOfSearches() {
+        return numberOfSearches;
+    }
+
+    /**
+     * Returns the total time spent searching in nanoseconds.
+     *
+     * @return the search time.
+     */
+    public long getSearchTime() {
+        return searchTime;
+    }
+
+    public double getNodesPerSecond() {
+        return searchTime == 0L ?
+               0.0 :
+               getNumberOfNodes() * 1_000_000_000.0 / searchTime;
+    }
+
+    /**
+     * Returns the effective branching factor of the last completed search,
+     * that is, the number b for which b to the power of the search depth
+     * equals the number of nodes visited.
+     *
+     * @return the effective branching factor.
+     */
+    public double getEffectiveBranchingFactor() {
+        return lastSearchDepth == 0 ?
+               0.0 :
+               Math.pow(lastSearchNodes, 1.0 / lastSearchDepth);
+    }
+
+    /**
+     * Resets the statistics. Must not be called during a search.
+     */
+    public synchronized void reset() {
+        retireTerminatedThreads();
+        retiredCounters.clear();
+
+        for (Counters counters : allCounters) {
+            counters.clear();
+        }
+
+        numberOfSearches = 0L;
+        searchTime = 0L;
+        lastSearchNodes = 0L;
+        lastSearchDepth = 0;
+    }
+
+    /**
+     * Registers the counters of the current thread.
+     *
+     * @return the new counters.
+     */
+    private synchronized Counters addThreadCounters() {
+        retireTerminatedThreads();
+        Counters counters = new Counters(Thread.currentThread());
+        allCounters.add(counters);
+        return counters;
+    }
+
+    /**
+     * Returns the sums of the counters of all the threads.
+     *
+     * @return the sums of the counters.
+     */
+    private synchronized Counters sumCounters() {
+        retireTerminatedThreads();
+        Counters sums = new Counters(null);
+        sums.add(retiredCounters);
+
+        for (Counters counters : allCounters) {
+            sums.add(counters);
+        }
+
+        return sums;
+    }
+
+    /**
+     * Folds the counters of the terminated threads into
+     * {@link #retiredCounters}. A thread observed terminated has made all its
+     * counts visible to the caller. Must be called holding the lock.
+     */
+    private void retireTerminatedThreads() {
+        Iterator<Counters> iterator = allCounters.iterator();
+
+        while (iterator.hasNext()) {
+            Counters counters = iterator.next();
+
+            if (!counters.thread.isAlive()) {
+                retiredCounters.add(counters);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder cutoffs = new StringBuilder("[");
+
+        for (int i = 0; i < NUMBER_OF_CUTOFF_POSITIONS; i++) {
+            cutoffs.append(i == 0 ? "" : ", ").append(getNumberOfCutoffs(i));
+        }
+
+        return "[searches = " + getNumberOfSearches() +
+               ", nodes = " + getNumberOfNodes() +
+               ", leaves = " + getNumberOfLeaves() +
+               ", cutoffs = " + cutoffs.append(']') +
+               ", first move cutoff rate = " + getFirstMoveCutoffRate() +
+               ", re-searches = " + getNumberOfReSearches() +
+               ", aspiration re-searches = " +
+               getNumberOfAspirationReSearches() +
+               ", maximum ply = " + getMaximumPly() +
+               ", effective branching factor = " +
+               getEffectiveBranchingFactor() +
+               ", nodes per second = " + getNodesPerSecond() + "]";
+    }
+}
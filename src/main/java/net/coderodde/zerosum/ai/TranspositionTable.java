@@ -0,0 +1,500 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements a fixed-size transposition table that may be shared
+ * by several search threads without locking. Each entry occupies three
+ * {@code long} words: the score, the packed depth/bound/best move information
+ * and a check word holding the XOR of the position key with the other two
+ * words. A reader accepts an entry only if the check word matches, which
+ * filters out both the entries of other positions and the entries torn by
+ * concurrent writes.
+ * <p>
+ * The entries are grouped into buckets according to the
+ * {@link ReplacementPolicy} of the table. Each entry is stamped with the
+ * generation of the table at the time of the store, and {@link #age()}
+ * starts a new generation. The entries older than the previous generation
+ * remain valid, but are the first to be overwritten, so that a table kept 
+ * over the consecutive moves of a game is not clogged by the deep entries of
+ * the positions that can no longer occur. The table counts the probes, hits,
+ * stores and overwrites in {@link LongAdder}s, so that the statistics remain
+ * cheap under parallel search.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 18, 2019)
+ * @since 1.61 (Sep 17, 2019)
+ */
+public final class TranspositionTable {
+
+    /**
+     * Lists the policies for choosing the entry to overwrite on a store.
+     */
+    public enum ReplacementPolicy {
+
+        /**
+         * Each position maps to a single entry, which is always overwritten.
+         */
+        ALWAYS_REPLACE(1),
+
+        /**
+         * Each position maps to a single entry, which is overwritten only by
+         * a search of at least the same depth.
+         */
+        DEPTH_PREFERRED(1),
+
+        /**
+         * Each position maps to a bucket of two entries: the first one is
+         * depth-preferred, the second one is always replaced by the searches
+         * that do not make it into the first one.
+         */
+        TWO_TIER(2);
+
+        private final int bucketSize;
+
+        private ReplacementPolicy(int bucketSize) {
+            this.bucketSize = bucketSize;
+        }
+
+        public int getBucketSize() {
+            return bucketSize;
+        }
+    }
+
+    /**
+     * The bound type of an exact score.
+     */
+    public static final int EXACT = 0;
+
+    /**
+     * The bound type of a score that is a lower bound of the actual score.
+     */
+    public static final int LOWER_BOUND = 1;
+
+    /**
+     * The bound type of a score that is an upper bound of the actual score.
+     */
+    public static final int UPPER_BOUND = 2;
+
+    /**
+     * Denotes the absence of the best move.
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The replacement policy used by default.
+     */
+    public static final ReplacementPolicy DEFAULT_REPLACEMENT_POLICY =
+            ReplacementPolicy.TWO_TIER;
+
+    /**
+     * The minimum number of entries in a table.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * The maximum number of entries in a table.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * The number of {@code long} words per entry.
+     */
+    private static final int WORDS_PER_ENTRY = 3;
+
+    /**
+     * The number of bytes per entry.
+     */
+    private static final int BYTES_PER_ENTRY = WORDS_PER_ENTRY * Long.BYTES;
+
+    private static final int DEPTH_BITS = 16;
+    private static final int BOUND_BITS = 2;
+    private static final int MOVE_BITS = 16;
+    private static final int GENERATION_BITS = 8;
+
+    private static final int BOUND_SHIFT = DEPTH_BITS;
+    private static final int MOVE_SHIFT = BOUND_SHIFT + BOUND_BITS;
+
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    private static final long BOUND_MASK = (1L << BOUND_BITS) - 1;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+
+    /**
+     * Keeps a stored entry distinguishable from an empty one.
+     */
+    private static final long PRESENT_BIT = 1L << (MOVE_SHIFT + MOVE_BITS);
+
+    private static final int GENERATION_SHIFT = MOVE_SHIFT + MOVE_BITS + 1;
+    private static final int GENERATION_MASK = (1 << GENERATION_BITS) - 1;
+
+    /**
+     * The number of the latest generations whose entries are protected by 
+     * the depth-preferred replacement. The previous search of a game covers
+     * the subtrees of the next root, so that its entries are kept as well.
+     */
+    private static final int PROTECTED_GENERATIONS = 2;
+
+    /**
+     * This class holds the contents of a single entry after a successful
+     * probe. The instances are not thread-safe and are meant to be reused by
+     * a single search thread.
+     */
+    public static final class Entry {
+
+        private double score;
+        private int depth;
+        private int bound;
+        private int bestMove;
+
+        public double getScore() {
+            return score;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getBound() {
+            return bound;
+        }
+
+        public int getBestMove() {
+            return bestMove;
+        }
+    }
+
+    /**
+     * The entry words.
+     */
+    private final long[] table;
+
+    /**
+     * The mask for mapping a hash key to a bucket index.
+     */
+    private final int bucketIndexMask;
+
+    /**
+     * The replacement policy of this table.
+     */
+    private final ReplacementPolicy replacementPolicy;
+
+    /**
+     * The generation stamped on the stored entries. Changed only between the
+     * searches.
+     */
+    private int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder overwrites = new LongAdder();
+
+    /**
+     * Constructs a transposition table with at least {@code capacity} entries
+     * and the default replacement policy.
+     *
+     * @param capacity the requested number of entries.
+     */
+    public TranspositionTable(int capacity) {
+        this(capacity, DEFAULT_REPLACEMENT_POLICY);
+    }
+
+    /**
+     * Constructs a transposition table with at least {@code capacity} entries.
+     * The actual capacity is rounded up to the nearest power of two.
+     *
+     * @param capacity          the requested number of entries.
+     * @param replacementPolicy the replacement policy.
+     */
+    public TranspositionTable(int capacity,
+                              ReplacementPolicy replacementPolicy) {
+        checkCapacity(capacity);
+        this.replacementPolicy =
+                Objects.requireNonNull(
+                        replacementPolicy,
+                        "The input replacement policy is null.");
+
+        int actualCapacity = Integer.highestOneBit(capacity);
+
+        if (actualCapacity < capacity) {
+            actualCapacity <<= 1;
+        }
+
+        this.table = new long[WORDS_PER_ENTRY * actualCapacity];
+        this.bucketIndexMask =
+                actualCapacity / replacementPolicy.getBucketSize() - 1;
+    }
+
+    /**
+     * Constructs a transposition table occupying at most {@code megabytes}
+     * megabytes.
+     *
+     * @param megabytes         the memory budget of the table.
+     * @param replacementPolicy the replacement policy.
+     * @return a transposition table.
+     */
+    public static TranspositionTable
+        withMegabytes(int megabytes, ReplacementPolicy replacementPolicy) {
+        long capacity = (long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY;
+        return new TranspositionTable(
+                Integer.highestOneBit(
+                        (int) Math.min(capacity, MAXIMUM_CAPACITY)),
+                replacementPolicy);
+    }
+
+    /**
+     * Returns the number of entries in this table.
+     *
+     * @return the capacity of this table.
+     */
+    public int getCapacity() {
+        return table.length / WORDS_PER_ENTRY;
+    }
+
+    public ReplacementPolicy getReplacementPolicy() {
+        return replacementPolicy;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Starts a new generation of entries. Called before each search from a
+     * new root so that the entries of the previous searches give way to the
+     * fresh ones, yet are still found by the probes until overwritten.
+     */
+    public void age() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Looks up the entry of the position with the hash key {@code key}.
+     *
+     * @param key   the hash key of the position.
+     * @param entry the entry to load the data into on a hit.
+     * @return {@code true} if the entry of the position was found.
+     */
+    public boolean probe(long key, Entry entry) {
+        probes.increment();
+        int bucketOffset = getBucketOffset(key);
+        int bucketEnd = bucketOffset +
+                        WORDS_PER_ENTRY * replacementPolicy.getBucketSize();
+
+        for (int offset = bucketOffset;
+                offset < bucketEnd;
+                offset += WORDS_PER_ENTRY) {
+            long check = table[offset];
+            long scoreBits = table[offset + 1];
+            long info = table[offset + 2];
+
+            if ((check ^ scoreBits ^ info) == key && info != 0L) {
+                entry.score = Double.longBitsToDouble(scoreBits);
+                entry.depth = (int)(info & DEPTH_MASK);
+                entry.bound = (int)((info >>> BOUND_SHIFT) & BOUND_MASK);
+                entry.bestMove = (int)((info >>> MOVE_SHIFT) & MOVE_MASK) - 1;
+                hits.increment();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Stores the search result of a position. The entry to overwrite is 
+     * chosen by the replacement policy of this table. Under the 
+     * depth-preferred and the two-tier policies, an entry of the same 
+     * position searched to a greater depth is never overwritten, and an entry
+     * older than the previous generation is treated like an empty one.
+     *
+     * @param key      the hash key of the position.
+     * @param depth    the depth to which the position was searched.
+     * @param bound    the bound type of {@code score}.
+     * @param score    the score of the position.
+     * @param bestMove the index of the best child, or {@link #NO_MOVE}.
+     */
+    public void store(long key, int depth, int bound, double score,
+                      int bestMove) {
+        int offset = getBucketOffset(key);
+
+        switch (replacementPolicy) {
+            case ALWAYS_REPLACE:
+                // The single entry is overwritten unconditionally:
+                break;
+
+            case DEPTH_PREFERRED:
+                if (isDeeperEntryOf(offset, key, depth)
+                        || (getStoredDepth(offset) > depth 
+                            && isProtected(offset))) {
+                    return;
+                }
+
+                break;
+
+            case TWO_TIER:
+                if (isDeeperEntryOf(offset, key, depth)
+                        || isDeeperEntryOf(offset + WORDS_PER_ENTRY,
+                                           key,
+                                           depth)) {
+                    return;
+                }
+
+                if (getStoredDepth(offset) > depth && isProtected(offset)) {
+                    // Keep the deeper entry in the depth-preferred tier:
+                    offset += WORDS_PER_ENTRY;
+                }
+
+                break;
+        }
+
+        long storedInfo = table[offset + 2];
+
+        if (storedInfo != 0L
+                && (table[offset] ^ table[offset + 1] ^ storedInfo) != key) {
+            overwrites.increment();
+        }
+
+        long scoreBits = Double.doubleToRawLongBits(score);
+        long info = (depth & DEPTH_MASK)
+                  | ((long) bound << BOUND_SHIFT)
+                  | (((bestMove + 1) & MOVE_MASK) << MOVE_SHIFT)
+                  | PRESENT_BIT
+                  | ((long) generation << GENERATION_SHIFT);
+
+        table[offset] = key ^ scoreBits ^ info;
+        table[offset + 1] = scoreBits;
+        table[offset + 2] = info;
+        stores.increment();
+    }
+
+    /**
+     * Classifies the score returned by a fail-soft search with the window
+     * {@code (alpha, beta)}.
+     *
+     * @param score the score returned by the search.
+     * @param alpha the alpha value the search started with.
+     * @param beta  the beta value the search started with.
+     * @return the bound type of {@code score}.
+     */
+    public static int getBound(double score, double alpha, double beta) {
+        if (score <= alpha) {
+            return UPPER_BOUND;
+        }
+
+        return score >= beta ? LOWER_BOUND : EXACT;
+    }
+
+    /**
+     * Removes all the entries from this table. The statistics are not reset.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    public long getNumberOfProbes() {
+        return probes.sum();
+    }
+
+    public long getNumberOfHits() {
+        return hits.sum();
+    }
+
+    public long getNumberOfStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Returns the number of stores that have evicted the entry of another
+     * position.
+     *
+     * @return the number of overwrites.
+     */
+    public long getNumberOfOverwrites() {
+        return overwrites.sum();
+    }
+
+    /**
+     * Returns the fraction of the probes that have found an entry.
+     *
+     * @return the hit rate, or zero if there have been no probes.
+     */
+    public double getHitRate() {
+        long numberOfProbes = probes.sum();
+        return numberOfProbes == 0L ?
+               0.0 :
+               (double) hits.sum() / numberOfProbes;
+    }
+
+    /**
+     * Resets all the statistics counters of this table.
+     */
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        overwrites.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "[capacity = " + getCapacity() +
+               ", policy = " + replacementPolicy +
+               ", generation = " + getGeneration() +
+               ", probes = " + getNumberOfProbes() +
+               ", hits = " + getNumberOfHits() +
+               ", hit rate = " + getHitRate() +
+               ", stores = " + getNumberOfStores() +
+               ", overwrites = " + getNumberOfOverwrites() + "]";
+    }
+
+    private boolean isDeeperEntryOf(int offset, long key, int depth) {
+        long info = table[offset + 2];
+        return (table[offset] ^ table[offset + 1] ^ info) == key
+                && info != 0L
+                && (int)(info & DEPTH_MASK) > depth;
+    }
+
+    /**
+     * Returns {@code true} if the entry at {@code offset} has been stored in 
+     * one of the {@link #PROTECTED_GENERATIONS} latest generations.
+     */
+    private boolean isProtected(int offset) {
+        long info = table[offset + 2];
+        int entryGeneration = 
+                (int)((info >>> GENERATION_SHIFT) & GENERATION_MASK);
+
+        return info != 0L
+                && ((generation - entryGeneration) & GENERATION_MASK) 
+                   < PROTECTED_GENERATIONS;
+    }
+
+    private int getStoredDepth(int offset) {
+        return (int)(table[offset + 2] & DEPTH_MASK);
+    }
+
+    private int getBucketOffset(long key) {
+        return WORDS_PER_ENTRY *
+               replacementPolicy.getBucketSize() *
+               ((int)(key ^ (key >>> 32)) & bucketIndexMask);
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity < MINIMUM_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "The requested capacity (" + capacity + ") is too " +
+                    "small. Must be at least " + MINIMUM_CAPACITY + ".");
+        }
+
+        if (capacity > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "The requested capacity (" + capacity + ") is too " +
+                    "large. Must be at most " + MAXIMUM_CAPACITY + ".");
+        }
+    }
+}
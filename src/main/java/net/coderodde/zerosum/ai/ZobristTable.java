@@ -0,0 +1,67 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.Random;
+
+/**
+ * This class holds the random keys for
+ * <a href="https://en.wikipedia.org/wiki/Zobrist_hashing">Zobrist hashing</a>.
+ * The hash key of a position is the XOR of the keys of all (piece, square)
+ * pairs present in it, which allows the states to maintain their keys
+ * incrementally: placing or removing a piece toggles a single key.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 18, 2019)
+ * @since 1.61 (Sep 18, 2019)
+ */
+public final class ZobristTable {
+
+    /**
+     * The keys indexed by {@code piece * numberOfSquares + square}.
+     */
+    private final long[] keys;
+
+    /**
+     * The number of squares.
+     */
+    private final int numberOfSquares;
+
+    /**
+     * Constructs a Zobrist table.
+     *
+     * @param numberOfPieces  the number of distinct pieces.
+     * @param numberOfSquares the number of squares.
+     * @param seed            the seed of the key generator. The same seed
+     *                        always produces the same keys.
+     */
+    public ZobristTable(int numberOfPieces, int numberOfSquares, long seed) {
+        checkPositive(numberOfPieces, "pieces");
+        checkPositive(numberOfSquares, "squares");
+        this.numberOfSquares = numberOfSquares;
+        this.keys = new long[numberOfPieces * numberOfSquares];
+        Random random = new Random(seed);
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Returns the key of the piece {@code piece} standing on the square
+     * {@code square}.
+     *
+     * @param piece  the piece index.
+     * @param square the square index.
+     * @return the Zobrist key.
+     */
+    public long getKey(int piece, int square) {
+        return keys[piece * numberOfSquares + square];
+    }
+
+    private static void checkPositive(int number, String what) {
+        if (number < 1) {
+            throw new IllegalArgumentException(
+                    "The number of " + what + " (" + number + ") is too " +
+                    "small. Must be at least 1.");
+        }
+    }
+}
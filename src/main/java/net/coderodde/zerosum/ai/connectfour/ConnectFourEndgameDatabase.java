@@ -0,0 +1,259 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class implements a read-only database of solved Connect Four
+ * positions backed by a memory-mapped file written by
+ * {@link ConnectFourEndgameDatabaseGenerator}. For each position with at most
+ * a given number of empty cells, the database holds its exact game-theoretic
+ * value from the point of view of the player to move: a win, a draw or a
+ * loss with perfect play.
+ * <p>
+ * The file consists of a header of three {@code long} words, the magic
+ * number, the number of positions and the maximum number of empty cells,
+ * followed by the index of the sorted position keys and then the values
+ * packed at two bits per position, four positions per byte starting from the
+ * least significant bits. All the words are big-endian. A lookup does an
+ * interpolation search over the index, whose keys are spread uniformly by
+ * {@link ConnectFourState#getHashKey()}. The won and the full positions are
+ * not stored, since their values are known without a lookup.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 30, 2019)
+ * @since 1.61 (Sep 30, 2019)
+ */
+public final class ConnectFourEndgameDatabase {
+
+    /**
+     * The value of a position missing from the database.
+     */
+    public static final int UNKNOWN = 0;
+
+    /**
+     * The value of a position lost by the player to move.
+     */
+    public static final int LOSS = 1;
+
+    /**
+     * The value of a drawn position.
+     */
+    public static final int DRAW = 2;
+
+    /**
+     * The value of a position won by the player to move.
+     */
+    public static final int WIN = 3;
+
+    /**
+     * The first word of each database file: the ASCII codes of "ZSC4EGDB".
+     */
+    static final long MAGIC = 0x5a53433445474442L;
+
+    /**
+     * The number of bytes in the file header.
+     */
+    static final int HEADER_BYTES = 3 * Long.BYTES;
+
+    /**
+     * The number of values packed into a byte.
+     */
+    static final int VALUES_PER_BYTE = 4;
+
+    /**
+     * The largest file that fits into a single mapping.
+     */
+    private static final long MAXIMUM_FILE_BYTES = Integer.MAX_VALUE;
+
+    /**
+     * The number of the interpolation steps after which the lookup switches
+     * to the binary search.
+     */
+    private static final int MAXIMUM_INTERPOLATION_STEPS = 8;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of positions in the database.
+     */
+    private final int size;
+
+    /**
+     * The maximum number of empty cells of a position in the database.
+     */
+    private final int maximumEmptyCells;
+
+    /**
+     * The offset of the packed values in the file.
+     */
+    private final int valuesOffset;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Opens the database in the file {@code path}. The file is mapped into
+     * memory and stays mapped until this database is garbage collected.
+     *
+     * @param path the path of the database file.
+     * @throws IOException if the file cannot be read or is not an endgame
+     *                     database.
+     */
+    public ConnectFourEndgameDatabase(Path path) throws IOException {
+        Objects.requireNonNull(path, "The input path is null.");
+
+        try (FileChannel channel = FileChannel.open(path,
+                                                    StandardOpenOption.READ)) {
+            long fileBytes = channel.size();
+
+            if (fileBytes < HEADER_BYTES || fileBytes > MAXIMUM_FILE_BYTES) {
+                throw new IOException(
+                        "The file \"" + path + "\" is not an endgame " +
+                        "database: bad size " + fileBytes + ".");
+            }
+
+            // The mapping remains valid after the channel is closed:
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileBytes);
+        }
+
+        long size = buffer.getLong(Long.BYTES);
+        long maximumEmptyCells = buffer.getLong(2 * Long.BYTES);
+
+        if (buffer.getLong(0) != MAGIC
+                || size < 0
+                || maximumEmptyCells < 0
+                || maximumEmptyCells > ConnectFourState.NUMBER_OF_CELLS
+                || getFileBytes(size) != buffer.capacity()) {
+            throw new IOException(
+                    "The file \"" + path + "\" is not an endgame database.");
+        }
+
+        this.size = (int) size;
+        this.maximumEmptyCells = (int) maximumEmptyCells;
+        this.valuesOffset = HEADER_BYTES + this.size * Long.BYTES;
+    }
+
+    /**
+     * Returns the number of positions in this database.
+     *
+     * @return the size of this database.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getMaximumEmptyCells() {
+        return maximumEmptyCells;
+    }
+
+    /**
+     * Looks up the value of {@code state}. The positions with more empty
+     * cells than the database covers are not looked up at all.
+     *
+     * @param state the state to look up.
+     * @return one of {@link #WIN}, {@link #DRAW} and {@link #LOSS} from the
+     *         point of view of the player to move, or {@link #UNKNOWN} if
+     *         the position is not in this database.
+     */
+    public int getValue(ConnectFourState state) {
+        if (ConnectFourState.NUMBER_OF_CELLS - state.getNumberOfMoves()
+                > maximumEmptyCells) {
+            return UNKNOWN;
+        }
+
+        probes.increment();
+        long key = state.getHashKey();
+        int low = 0;
+        int high = size - 1;
+        int steps = 0;
+
+        while (low <= high) {
+            long lowKey = getKey(low);
+            long highKey = getKey(high);
+
+            if (key < lowKey || key > highKey) {
+                return UNKNOWN;
+            }
+
+            int index;
+
+            if (lowKey == highKey
+                    || ++steps > MAXIMUM_INTERPOLATION_STEPS) {
+                index = (low + high) >>> 1;
+            } else {
+                // The keys are uniform, so estimate the index linearly:
+                double fraction = ((double) key - lowKey) /
+                                  ((double) highKey - lowKey);
+                index = low + (int)(fraction * (high - low));
+                index = Math.max(low, Math.min(high, index));
+            }
+
+            long indexKey = getKey(index);
+
+            if (indexKey < key) {
+                low = index + 1;
+            } else if (indexKey > key) {
+                high = index - 1;
+            } else {
+                hits.increment();
+                int packed = buffer.get(valuesOffset +
+                                        index / VALUES_PER_BYTE);
+                return (packed >>> (2 * (index % VALUES_PER_BYTE))) & 3;
+            }
+        }
+
+        return UNKNOWN;
+    }
+
+    public long getNumberOfProbes() {
+        return probes.sum();
+    }
+
+    public long getNumberOfHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Resets the probe and hit counters of this database.
+     */
+    public void resetStatistics() {
+        probes.reset();
+        hits.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "[size = " + size() +
+               ", maximum empty cells = " + getMaximumEmptyCells() +
+               ", probes = " + getNumberOfProbes() +
+               ", hits = " + getNumberOfHits() + "]";
+    }
+
+    /**
+     * Returns the size of the file holding {@code size} positions.
+     *
+     * @param size the number of positions.
+     * @return the number of bytes in the file.
+     */
+    static long getFileBytes(long size) {
+        return HEADER_BYTES +
+               size * Long.BYTES +
+               (size + VALUES_PER_BYTE - 1) / VALUES_PER_BYTE;
+    }
+
+    private long getKey(int index) {
+        return buffer.getLong(HEADER_BYTES + index * Long.BYTES);
+    }
+}
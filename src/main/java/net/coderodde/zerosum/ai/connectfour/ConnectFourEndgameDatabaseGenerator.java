@@ -0,0 +1,264 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * This class implements the generation of the Connect Four endgame database
+ * files read by {@link ConnectFourEndgameDatabase}. The generator enumerates
+ * all the positions reachable from a root ply by ply and solves the ones with
+ * at most a given number of empty cells by retrograde analysis: the levels
+ * are solved from the fullest one upwards, so that the value of each position
+ * follows from the already known values of its children without any search.
+ * The positions of a level are solved in parallel.
+ * <p>
+ * Every position with a few empty cells is reachable from the empty board,
+ * and there are far too many of them to enumerate, so the database is built
+ * for the endgame of a concrete game instead. The number of the enumerated
+ * positions grows exponentially with the number of the empty cells of the
+ * root above the maximum.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 30, 2019)
+ * @since 1.61 (Sep 30, 2019)
+ */
+public final class ConnectFourEndgameDatabaseGenerator {
+
+    /**
+     * Holds the distinct non-terminal positions at the same distance from
+     * the root sorted by their keys.
+     */
+    private static final class Level {
+
+        final ConnectFourState[] states;
+        final long[] keys;
+        final byte[] values;
+
+        Level(List<ConnectFourState> stateList) {
+            states = stateList.toArray(new ConnectFourState[0]);
+            Arrays.sort(states,
+                        Comparator.comparingLong(
+                                ConnectFourState::getHashKey));
+            keys = new long[states.length];
+            values = new byte[states.length];
+
+            for (int i = 0; i < states.length; i++) {
+                keys[i] = states[i].getHashKey();
+            }
+        }
+
+        int getValue(long key) {
+            return values[Arrays.binarySearch(keys, key)];
+        }
+    }
+
+    /**
+     * The pool solving the positions.
+     */
+    private final ForkJoinPool forkJoinPool;
+
+    /**
+     * Constructs a generator solving the positions in the common fork-join
+     * pool.
+     */
+    public ConnectFourEndgameDatabaseGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a generator.
+     *
+     * @param forkJoinPool the pool for solving the positions.
+     */
+    public ConnectFourEndgameDatabaseGenerator(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool =
+                Objects.requireNonNull(forkJoinPool,
+                                       "The input fork-join pool is null.");
+    }
+
+    /**
+     * Solves all the non-terminal positions reachable from {@code root} with
+     * at most {@code maximumEmptyCells} empty cells and writes them to the
+     * file {@code path}.
+     *
+     * @param root              the root position.
+     * @param maximumEmptyCells the maximum number of empty cells of a solved
+     *                          position.
+     * @param path              the path of the file to write.
+     * @return the number of the positions in the database.
+     * @throws IOException if the file cannot be written.
+     */
+    public int generate(ConnectFourState root,
+                        int maximumEmptyCells,
+                        Path path) throws IOException {
+        checkMaximumEmptyCells(maximumEmptyCells);
+        Objects.requireNonNull(root, "The input root is null.");
+        Objects.requireNonNull(path, "The input path is null.");
+        List<Level> levels = new ArrayList<>();
+        List<ConnectFourState> level = new ArrayList<>();
+
+        if (!root.isTerminal()) {
+            level.add(root);
+        }
+
+        // Enumerate the non-terminal positions ply by ply:
+        while (!level.isEmpty()) {
+            if (ConnectFourState.NUMBER_OF_CELLS -
+                    level.get(0).getNumberOfMoves() <= maximumEmptyCells) {
+                levels.add(new Level(level));
+            }
+
+            Set<ConnectFourState> nextLevel = new HashSet<>();
+
+            for (ConnectFourState state : level) {
+                for (ConnectFourState child : state.children()) {
+                    if (!child.isTerminal()) {
+                        nextLevel.add(child);
+                    }
+                }
+            }
+
+            level = new ArrayList<>(nextLevel);
+        }
+
+        // Solve the levels from the fullest one upwards:
+        Level childLevel = null;
+
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            Level currentLevel = levels.get(i);
+            Level nextLevel = childLevel;
+            forkJoinPool.invoke(ForkJoinTask.adapt(() ->
+                    IntStream.range(0, currentLevel.states.length)
+                             .parallel()
+                             .forEach(j -> currentLevel.values[j] =
+                                     (byte) solve(currentLevel.states[j],
+                                                  nextLevel))));
+
+            childLevel = currentLevel;
+        }
+
+        return write(path, levels, maximumEmptyCells);
+    }
+
+    /**
+     * Computes the value of {@code state} from the values of its children.
+     *
+     * @param state      the state to solve.
+     * @param childLevel the solved level of the children, or {@code null} if
+     *                   all the children are terminal.
+     * @return the value of {@code state}.
+     */
+    private static int solve(ConnectFourState state, Level childLevel) {
+        int value = ConnectFourEndgameDatabase.LOSS;
+
+        for (ConnectFourState child : state.children()) {
+            if (child.checkVictory() != null) {
+                // The player to move connects four:
+                return ConnectFourEndgameDatabase.WIN;
+            }
+
+            int childValue = child.isTerminal() ?
+                    ConnectFourEndgameDatabase.DRAW :
+                    negate(childLevel.getValue(child.getHashKey()));
+
+            value = Math.max(value, childValue);
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the value of a position for the opponent of the player to
+     * move.
+     */
+    private static int negate(int value) {
+        return ConnectFourEndgameDatabase.LOSS +
+               ConnectFourEndgameDatabase.WIN -
+               value;
+    }
+
+    /**
+     * Merges the sorted levels and writes them to {@code path}.
+     *
+     * @return the number of positions written.
+     */
+    private static int write(Path path,
+                             List<Level> levels,
+                             int maximumEmptyCells) throws IOException {
+        int size = 0;
+
+        for (Level level : levels) {
+            size += level.keys.length;
+        }
+
+        int valuesPerByte = ConnectFourEndgameDatabase.VALUES_PER_BYTE;
+        byte[] packedValues = new byte[(size + valuesPerByte - 1) / 
+                                       valuesPerByte];
+        int[] heads = new int[levels.size()];
+
+        try (DataOutputStream out =
+                new DataOutputStream(
+                        new BufferedOutputStream(
+                                Files.newOutputStream(path)))) {
+            out.writeLong(ConnectFourEndgameDatabase.MAGIC);
+            out.writeLong(size);
+            out.writeLong(maximumEmptyCells);
+
+            for (int index = 0; index < size; index++) {
+                // Take the smallest key among the level heads:
+                int minimumLevel = -1;
+                long minimumKey = 0L;
+
+                for (int i = 0; i < heads.length; i++) {
+                    long[] keys = levels.get(i).keys;
+
+                    if (heads[i] < keys.length
+                            && (minimumLevel == -1 
+                                || keys[heads[i]] < minimumKey)) {
+                        minimumLevel = i;
+                        minimumKey = keys[heads[i]];
+                    }
+                }
+
+                Level level = levels.get(minimumLevel);
+                int value = level.values[heads[minimumLevel]++];
+                out.writeLong(minimumKey);
+                packedValues[index / valuesPerByte] |= 
+                        value << (2 * (index % valuesPerByte));
+            }
+
+            out.write(packedValues);
+        }
+
+        return size;
+    }
+
+    private static void checkMaximumEmptyCells(int maximumEmptyCells) {
+        if (maximumEmptyCells < 0) {
+            throw new IllegalArgumentException(
+                    "The requested maximum number of empty cells (" +
+                    maximumEmptyCells + ") is too small. Must be at least " +
+                    "0.");
+        }
+
+        if (maximumEmptyCells > ConnectFourState.NUMBER_OF_CELLS) {
+            throw new IllegalArgumentException(
+                    "The requested maximum number of empty cells (" +
+                    maximumEmptyCells + ") is too large. Must be at most " +
+                    ConnectFourState.NUMBER_OF_CELLS + ".");
+        }
+    }
+}
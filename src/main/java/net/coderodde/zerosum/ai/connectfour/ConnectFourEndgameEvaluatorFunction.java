@@ -0,0 +1,97 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+import java.util.Objects;
+import net.coderodde.zerosum.ai.IntEvaluatorFunction;
+
+/**
+ * This class implements a Connect Four evaluator function that probes a
+ * {@link ConnectFourEndgameDatabase} and falls back to another evaluator
+ * function for the positions missing from it. Since the engines evaluate the
+ * search leaves via their evaluator function, the leaves within the database
+ * get their exact values, and a search of depth one from a position in the
+ * database plays perfectly.
+ * <p>
+ * The database holds no distances, so a won position found in it scores
+ * {@link ConnectFourEvaluatorFunction#VICTORY_SCORE} like a victory on the
+ * last empty cell: any faster victory actually seen by the search is
+ * preferred. A drawn position scores zero.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 30, 2019)
+ * @since 1.61 (Sep 30, 2019)
+ */
+public final class ConnectFourEndgameEvaluatorFunction
+        implements IntEvaluatorFunction<ConnectFourState> {
+
+    /**
+     * The database of the solved positions.
+     */
+    private final ConnectFourEndgameDatabase endgameDatabase;
+
+    /**
+     * The evaluator function for the positions missing from the database.
+     */
+    private final IntEvaluatorFunction<ConnectFourState> evaluatorFunction;
+
+    /**
+     * Constructs this evaluator function falling back to
+     * {@link ConnectFourEvaluatorFunction}.
+     *
+     * @param endgameDatabase the database of the solved positions.
+     */
+    public ConnectFourEndgameEvaluatorFunction(
+            ConnectFourEndgameDatabase endgameDatabase) {
+        this(endgameDatabase, new ConnectFourEvaluatorFunction());
+    }
+
+    /**
+     * Constructs this evaluator function.
+     *
+     * @param endgameDatabase   the database of the solved positions.
+     * @param evaluatorFunction the evaluator function for the positions
+     *                          missing from the database.
+     */
+    public ConnectFourEndgameEvaluatorFunction(
+            ConnectFourEndgameDatabase endgameDatabase,
+            IntEvaluatorFunction<ConnectFourState> evaluatorFunction) {
+        this.endgameDatabase =
+                Objects.requireNonNull(
+                        endgameDatabase,
+                        "The input endgame database is null.");
+        this.evaluatorFunction =
+                Objects.requireNonNull(
+                        evaluatorFunction,
+                        "The input evaluator function is null.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int evaluateInt(ConnectFourState state) {
+        if (state.isTerminal()) {
+            return evaluatorFunction.evaluateInt(state);
+        }
+
+        int sign = state.getPlayerToMove() ==
+                   ConnectFourPlayerColor.RED_PLAYER ? 1 : -1;
+
+        switch (endgameDatabase.getValue(state)) {
+            case ConnectFourEndgameDatabase.WIN:
+                return sign * ConnectFourEvaluatorFunction.VICTORY_SCORE;
+
+            case ConnectFourEndgameDatabase.LOSS:
+                return -sign * ConnectFourEvaluatorFunction.VICTORY_SCORE;
+
+            case ConnectFourEndgameDatabase.DRAW:
+                return 0;
+
+            default:
+                return evaluatorFunction.evaluateInt(state);
+        }
+    }
+
+    public ConnectFourEndgameDatabase getEndgameDatabase() {
+        return endgameDatabase;
+    }
+}
@@ -0,0 +1,167 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+import net.coderodde.zerosum.ai.IntEvaluatorFunction;
+
+/**
+ * This class implements a Connect Four evaluator function. The score is
+ * positive when the position favours the red player. A won position scores
+ * {@link #VICTORY_SCORE} plus the number of empty cells, so that the faster
+ * victories are preferred. Otherwise, each of the 69 possible alignments of
+ * four cells still open for only one of the players adds to the score of that
+ * player by the number of stones the player has in it. All the scores are
+ * integers.
+ * <p>
+ * The alignment score is not computed here: each {@link ConnectFourState}
+ * carries it and updates it on each move by rescoring only the alignments
+ * through the cell of the dropped stone, so the evaluation of a leaf takes
+ * constant time.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 20, 2019)
+ * @since 1.61 (Sep 20, 2019)
+ */
+public final class ConnectFourEvaluatorFunction
+        implements IntEvaluatorFunction<ConnectFourState> {
+
+    /**
+     * The score of a victory before adding the number of empty cells.
+     */
+    public static final int VICTORY_SCORE = WIN_SCORE;
+
+    /**
+     * The number of distinct alignments of four cells on the board: 24
+     * horizontal, 21 vertical and 24 diagonal ones.
+     */
+    private static final int NUMBER_OF_ALIGNMENTS = 69;
+
+    /**
+     * The scores of an open alignment indexed by the number of stones in it.
+     * A full alignment is a victory, which is scored separately; its entry 
+     * only keeps the incremental updates reversible.
+     */
+    private static final int[] ALIGNMENT_SCORES = { 0, 1, 10, 100, 1000 };
+
+    /**
+     * The bitboards of all the possible alignments of four cells.
+     */
+    static final long[] ALIGNMENTS = alignments();
+
+    /**
+     * The alignments through each cell indexed by the bit index of the cell.
+     */
+    private static final long[][] CELL_ALIGNMENTS = cellAlignments();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int evaluateInt(ConnectFourState state) {
+        ConnectFourPlayerColor winner = state.checkVictory();
+
+        if (winner != null) {
+            int score = VICTORY_SCORE +
+                        ConnectFourState.NUMBER_OF_CELLS -
+                        state.getNumberOfMoves();
+
+            return winner == ConnectFourPlayerColor.RED_PLAYER ?
+                   score :
+                   -score;
+        }
+
+        return state.getAlignmentScore();
+    }
+
+    /**
+     * Returns the change of the score caused by dropping a stone of the player
+     * to move at the cell {@code cellIndex}, from the point of view of that 
+     * player. Only the alignments through the cell change: the ones still 
+     * open for the player gain a stone, and the ones open for the opponent 
+     * only are closed.
+     * 
+     * @param cellIndex the bit index of the empty cell.
+     * @param stones    the stones of the player to move.
+     * @param opponent  the stones of the opponent.
+     * @return the change of the alignment score.
+     */
+    static int getScoreChange(int cellIndex, long stones, long opponent) {
+        int change = 0;
+
+        for (long alignment : CELL_ALIGNMENTS[cellIndex]) {
+            if ((opponent & alignment) == 0L) {
+                int count = Long.bitCount(stones & alignment);
+                change += ALIGNMENT_SCORES[count + 1] - 
+                          ALIGNMENT_SCORES[count];
+            } else if ((stones & alignment) == 0L) {
+                change += ALIGNMENT_SCORES[
+                        Long.bitCount(opponent & alignment)];
+            }
+        }
+
+        return change;
+    }
+
+    private static long[] alignments() {
+        // The column and row steps of the four directions:
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+        int length = ConnectFourState.ALIGNMENT_LENGTH;
+        long[] alignments = new long[NUMBER_OF_ALIGNMENTS];
+        int index = 0;
+
+        for (int[] direction : directions) {
+            for (int column = 0; column < ConnectFourState.WIDTH; column++) {
+                for (int row = 0; row < ConnectFourState.HEIGHT; row++) {
+                    int lastColumn = column + (length - 1) * direction[0];
+                    int lastRow = row + (length - 1) * direction[1];
+
+                    if (lastColumn >= ConnectFourState.WIDTH
+                            || lastRow < 0
+                            || lastRow >= ConnectFourState.HEIGHT) {
+                        continue;
+                    }
+
+                    long alignment = 0L;
+
+                    for (int i = 0; i < length; i++) {
+                        alignment |= 1L << ((column + i * direction[0]) *
+                                            ConnectFourState.COLUMN_BITS +
+                                            row + i * direction[1]);
+                    }
+
+                    alignments[index++] = alignment;
+                }
+            }
+        }
+
+        return alignments;
+    }
+
+    private static long[][] cellAlignments() {
+        long[][] cellAlignments = 
+                new long[ConnectFourState.WIDTH * 
+                         ConnectFourState.COLUMN_BITS][];
+
+        for (int cellIndex = 0; 
+                cellIndex < cellAlignments.length; 
+                cellIndex++) {
+            long cell = 1L << cellIndex;
+            int count = 0;
+
+            for (long alignment : ALIGNMENTS) {
+                if ((alignment & cell) != 0L) {
+                    count++;
+                }
+            }
+
+            cellAlignments[cellIndex] = new long[count];
+            count = 0;
+
+            for (long alignment : ALIGNMENTS) {
+                if ((alignment & cell) != 0L) {
+                    cellAlignments[cellIndex][count++] = alignment;
+                }
+            }
+        }
+
+        return cellAlignments;
+    }
+}
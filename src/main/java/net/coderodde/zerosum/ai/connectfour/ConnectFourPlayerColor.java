@@ -0,0 +1,14 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+/**
+ * This enumeration lists the two Connect Four player colors. The red player
+ * makes the first move.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 20, 2019)
+ * @since 1.61 (Sep 20, 2019)
+ */
+public enum ConnectFourPlayerColor {
+    RED_PLAYER,
+    YELLOW_PLAYER,
+}
@@ -0,0 +1,686 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.ChildIterator;
+import net.coderodde.zerosum.ai.HistoryTable;
+import net.coderodde.zerosum.ai.MutableState;
+
+/**
+ * This class implements a Connect Four position on a 7 x 6 board as two
+ * 64-bit bitboards. Each column takes 7 bits: the 6 cells from the bottom
+ * up followed by an always empty sentinel bit, which keeps the shifted
+ * alignments from wrapping over to the next column:
+ * <pre>
+ *  6 13 20 27 34 41 48
+ *  5 12 19 26 33 40 47
+ *  4 11 18 25 32 39 46
+ *  3 10 17 24 31 38 45
+ *  2  9 16 23 30 37 44
+ *  1  8 15 22 29 36 43
+ *  0  7 14 21 28 35 42
+ * </pre>
+ * The {@code mask} bitboard holds all the stones and the {@code position}
+ * bitboard holds the stones of the player to move.
+ * <p>
+ * Each state also carries the alignment score of
+ * {@link ConnectFourEvaluatorFunction}, which every move updates by 
+ * rescoring only the alignments through the dropped stone. Unmaking a move
+ * reverts the update.
+ * <p>
+ * The states are immutable except via the in-place {@link MutableState} API,
+ * where the move codes are the column indices. The engines only make moves on
+ * their private copies, so the states given to them stay intact.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 20, 2019)
+ * @since 1.61 (Sep 20, 2019)
+ */
+public final class ConnectFourState
+        extends AbstractState<ConnectFourState, ConnectFourPlayerColor>
+        implements MutableState<ConnectFourState> {
+
+    /**
+     * The number of columns.
+     */
+    public static final int WIDTH = 7;
+
+    /**
+     * The number of rows.
+     */
+    public static final int HEIGHT = 6;
+
+    /**
+     * The number of bits per column including the sentinel bit.
+     */
+    static final int COLUMN_BITS = HEIGHT + 1;
+
+    /**
+     * The number of cells on the board.
+     */
+    static final int NUMBER_OF_CELLS = WIDTH * HEIGHT;
+
+    /**
+     * The number of stones in a row needed for a victory.
+     */
+    static final int ALIGNMENT_LENGTH = 4;
+
+    /**
+     * The bitboard of the cells of the lowest column.
+     */
+    private static final long COLUMN_MASK = (1L << HEIGHT) - 1;
+
+    /**
+     * The bitboard with the bottom cell of each column set.
+     */
+    private static final long BOTTOM_MASK = bottomMask();
+
+    /**
+     * The bitboard with all the cells set, excluding the sentinel row.
+     */
+    private static final long BOARD_MASK = BOTTOM_MASK * COLUMN_MASK;
+
+    /**
+     * The columns in the order of generating the children. The central
+     * columns take part in more alignments, so searching them first produces
+     * earlier cut-offs.
+     */
+    private static final int[] COLUMN_ORDER = { 3, 2, 4, 1, 5, 0, 6 };
+
+    /**
+     * The stones of the player to move.
+     */
+    private long position;
+
+    /**
+     * The stones of both players.
+     */
+    private long mask;
+
+    /**
+     * The number of stones on the board.
+     */
+    private int moves;
+
+    /**
+     * The alignment score from the point of view of the red player.
+     */
+    private int score;
+
+    /**
+     * Constructs the initial, empty board.
+     */
+    public ConnectFourState() {
+        this(0L, 0L, 0, 0);
+    }
+
+    private ConnectFourState(long position, long mask, int moves, int score) {
+        this.position = position;
+        this.mask = mask;
+        this.moves = moves;
+        this.score = score;
+    }
+
+    /**
+     * Constructs the state reached by playing the given columns from the empty
+     * board. The columns are given as the digits 1 to 7.
+     *
+     * @param moves the sequence of the played columns, such as "4453".
+     * @return the resulting state.
+     */
+    public static ConnectFourState fromMoves(String moves) {
+        ConnectFourState state = new ConnectFourState();
+
+        for (int i = 0; i < moves.length(); i++) {
+            state = state.play(moves.charAt(i) - '1');
+        }
+
+        return state;
+    }
+
+    /**
+     * Returns {@code true} if the column {@code column} has room for another
+     * stone.
+     *
+     * @param column the column index, between 0 and 6.
+     * @return {@code true} if the column is not full.
+     */
+    public boolean canPlay(int column) {
+        return (mask & topMask(column)) == 0L;
+    }
+
+    /**
+     * Returns the state reached by dropping a stone of the player to move in
+     * the column {@code column}.
+     *
+     * @param column the column index, between 0 and 6.
+     * @return the next state.
+     */
+    public ConnectFourState play(int column) {
+        if (column < 0 || column >= WIDTH) {
+            throw new IllegalArgumentException(
+                    "The column index (" + column + ") is out of range. " +
+                    "Must be between 0 and " + (WIDTH - 1) + ".");
+        }
+
+        if (!canPlay(column)) {
+            throw new IllegalArgumentException(
+                    "The column " + column + " is full.");
+        }
+
+        // The opponent of the player to move moves next:
+        return new ConnectFourState(position ^ mask,
+                                    mask | (mask + bottomMask(column)),
+                                    moves + 1,
+                                    score + getScoreChange(column));
+    }
+
+    /**
+     * {@inheritDoc} The children are created anew on each call in the column
+     * order from the center outwards; the only allocations are the list and
+     * a four-field object per legal move.
+     */
+    @Override
+    public List<ConnectFourState> children() {
+        List<ConnectFourState> children = new ArrayList<>(WIDTH);
+        long opponentPosition = position ^ mask;
+
+        for (int column : COLUMN_ORDER) {
+            if ((mask & topMask(column)) == 0L) {
+                children.add(
+                        new ConnectFourState(
+                                opponentPosition,
+                                mask | (mask + bottomMask(column)),
+                                moves + 1,
+                                score + getScoreChange(column)));
+            }
+        }
+
+        return children;
+    }
+
+    /**
+     * {@inheritDoc} The id of a move is the column of the stone dropped.
+     */
+    @Override
+    public int getMoveId(int childIndex) {
+        int index = 0;
+
+        for (int column : COLUMN_ORDER) {
+            if ((mask & topMask(column)) == 0L && index++ == childIndex) {
+                return column;
+            }
+        }
+
+        throw new IndexOutOfBoundsException(
+                "The child index (" + childIndex + ") is out of range.");
+    }
+
+    /**
+     * {@inheritDoc} The children are constructed one at a time in stages: 
+     * first the child at {@code firstIndex}, then the moves completing four
+     * for the player to move, then the moves blocking the opponent from doing
+     * so, and finally the remaining moves in the {@link #children()} order.
+     */
+    @Override
+    public ChildIterator<ConnectFourState> childIterator(int firstIndex) {
+        return new StagedChildIterator(firstIndex, null, 0);
+    }
+
+    /**
+     * {@inheritDoc} The children are constructed one at a time in the stages
+     * of {@link #childIterator(int)}, except that the remaining moves come in
+     * the order of their killer move and history scores. The moves are scored
+     * by their columns, so no child is constructed before it is returned.
+     */
+    @Override
+    public ChildIterator<ConnectFourState> 
+        childIterator(int firstIndex, HistoryTable historyTable, int ply) {
+        return new StagedChildIterator(firstIndex, historyTable, ply);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaximumNumberOfMoves() {
+        return WIDTH;
+    }
+
+    /**
+     * {@inheritDoc} The move codes are the column indices in the same order
+     * as the children.
+     */
+    @Override
+    public int generateMoves(int[] moves) {
+        int numberOfMoves = 0;
+
+        for (int column : COLUMN_ORDER) {
+            if ((mask & topMask(column)) == 0L) {
+                moves[numberOfMoves++] = column;
+            }
+        }
+
+        return numberOfMoves;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void makeMove(int move) {
+        score += getScoreChange(move);
+        position ^= mask;
+        mask |= mask + bottomMask(move);
+        moves++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unmakeMove(int move) {
+        // The last stone dropped is the topmost one in the column:
+        long column = mask & (COLUMN_MASK << (move * COLUMN_BITS));
+        mask ^= Long.highestOneBit(column);
+        position ^= mask;
+        moves--;
+        score -= getScoreChange(move);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConnectFourState copy() {
+        return new ConnectFourState(position, mask, moves, score);
+    }
+
+    /**
+     * {@inheritDoc} A state is terminal when the board is full or a player
+     * has connected four.
+     */
+    @Override
+    public boolean isTerminal() {
+        return moves == NUMBER_OF_CELLS || checkVictory() != null;
+    }
+
+    /**
+     * {@inheritDoc} Since the game ends with the first alignment, only the
+     * player that made the last move may have won.
+     */
+    @Override
+    public ConnectFourPlayerColor checkVictory() {
+        if (moves > 0 && isAlignment(position ^ mask)) {
+            return getPlayerToMove() == ConnectFourPlayerColor.RED_PLAYER ?
+                   ConnectFourPlayerColor.YELLOW_PLAYER :
+                   ConnectFourPlayerColor.RED_PLAYER;
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc} Since the sum of the position and the mask identifies the
+     * position uniquely, the key is collision-free up to the final bit mixing
+     * that is a bijection.
+     */
+    @Override
+    public long getHashKey() {
+        return (position + mask) * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Returns the player to move.
+     *
+     * @return the player to move.
+     */
+    public ConnectFourPlayerColor getPlayerToMove() {
+        return (moves & 1) == 0 ?
+               ConnectFourPlayerColor.RED_PLAYER :
+               ConnectFourPlayerColor.YELLOW_PLAYER;
+    }
+
+    /**
+     * Returns the number of stones on the board.
+     *
+     * @return the number of moves made.
+     */
+    public int getNumberOfMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the bitboard of the stones of the given player.
+     *
+     * @param playerColor the player.
+     * @return the stones of {@code playerColor}.
+     */
+    public long getStones(ConnectFourPlayerColor playerColor) {
+        return playerColor == getPlayerToMove() ? position : position ^ mask;
+    }
+
+    /**
+     * Returns the alignment score of this state from the point of view of the
+     * red player. See {@link ConnectFourEvaluatorFunction}.
+     *
+     * @return the alignment score.
+     */
+    public int getAlignmentScore() {
+        return score;
+    }
+
+    /**
+     * Returns the bitboard of all the stones.
+     *
+     * @return the stones of both players.
+     */
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * Returns {@code true} if the stones in {@code bitboard} contain four in a
+     * row in any direction.
+     *
+     * @param bitboard the stones of a player.
+     * @return {@code true} if there is an alignment.
+     */
+    static boolean isAlignment(long bitboard) {
+        // Horizontal:
+        long m = bitboard & (bitboard >>> COLUMN_BITS);
+
+        if ((m & (m >>> (2 * COLUMN_BITS))) != 0L) {
+            return true;
+        }
+
+        // Diagonal going down to the right:
+        m = bitboard & (bitboard >>> (COLUMN_BITS - 1));
+
+        if ((m & (m >>> (2 * (COLUMN_BITS - 1)))) != 0L) {
+            return true;
+        }
+
+        // Diagonal going up to the right:
+        m = bitboard & (bitboard >>> (COLUMN_BITS + 1));
+
+        if ((m & (m >>> (2 * (COLUMN_BITS + 1)))) != 0L) {
+            return true;
+        }
+
+        // Vertical:
+        m = bitboard & (bitboard >>> 1);
+        return (m & (m >>> 2)) != 0L;
+    }
+
+    /**
+     * Returns the empty cells that would complete an alignment of four for 
+     * the player owning the stones in {@code bitboard}.
+     * 
+     * @param bitboard the stones of a player.
+     * @param mask     the stones of both players.
+     * @return the winning cells of the player.
+     */
+    private static long winningCells(long bitboard, long mask) {
+        // Vertical:
+        long cells = (bitboard << 1) & (bitboard << 2) & (bitboard << 3);
+
+        // Horizontal and the two diagonals:
+        for (int shift = COLUMN_BITS - 1; shift <= COLUMN_BITS + 1; shift++) {
+            long pair = (bitboard << shift) & (bitboard << (2 * shift));
+            cells |= pair & (bitboard << (3 * shift));
+            cells |= pair & (bitboard >>> shift);
+            pair = (bitboard >>> shift) & (bitboard >>> (2 * shift));
+            cells |= pair & (bitboard << shift);
+            cells |= pair & (bitboard >>> (3 * shift));
+        }
+
+        return cells & (BOARD_MASK ^ mask);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getHashKey());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ConnectFourState other = (ConnectFourState) o;
+        return position == other.position && mask == other.mask;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder((WIDTH + 1) * HEIGHT);
+        long red = getStones(ConnectFourPlayerColor.RED_PLAYER);
+
+        for (int row = HEIGHT - 1; row >= 0; row--) {
+            for (int column = 0; column < WIDTH; column++) {
+                long cell = 1L << (column * COLUMN_BITS + row);
+
+                if ((mask & cell) == 0L) {
+                    sb.append('.');
+                } else {
+                    sb.append((red & cell) != 0L ? 'R' : 'Y');
+                }
+            }
+
+            sb.append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the change of the alignment score from the point of view of the
+     * red player caused by the player to move dropping a stone in the column
+     * {@code column}.
+     *
+     * @param column the column index of a legal move.
+     * @return the change of the alignment score.
+     */
+    private int getScoreChange(int column) {
+        long cell = (mask + bottomMask(column)) & columnMask(column);
+        int change = 
+                ConnectFourEvaluatorFunction.getScoreChange(
+                        Long.numberOfTrailingZeros(cell),
+                        position,
+                        position ^ mask);
+
+        return (moves & 1) == 0 ? change : -change;
+    }
+
+    private static long bottomMask(int column) {
+        return 1L << (column * COLUMN_BITS);
+    }
+
+    private static long topMask(int column) {
+        return 1L << (column * COLUMN_BITS + HEIGHT - 1);
+    }
+
+    private static long columnMask(int column) {
+        return COLUMN_MASK << (column * COLUMN_BITS);
+    }
+
+    private static long bottomMask() {
+        long bottomMask = 0L;
+
+        for (int column = 0; column < WIDTH; column++) {
+            bottomMask |= bottomMask(column);
+        }
+
+        return bottomMask;
+    }
+
+    /**
+     * This class implements the staged child generation. The sets of columns
+     * are kept as bit sets indexed by the column.
+     */
+    private final class StagedChildIterator 
+            implements ChildIterator<ConnectFourState> {
+
+        private static final int FIRST_CHILD_STAGE = 0;
+        private static final int WINNING_MOVES_STAGE = 1;
+        private static final int BLOCKING_MOVES_STAGE = 2;
+
+        /**
+         * The legal columns not returned yet.
+         */
+        private int remainingColumns;
+
+        /**
+         * The columns of the current stage not returned yet.
+         */
+        private int stageColumns;
+
+        /**
+         * The current stage.
+         */
+        private int stage = FIRST_CHILD_STAGE;
+
+        /**
+         * The history table ordering the remaining moves, or {@code null} for
+         * the {@link #children()} order.
+         */
+        private final HistoryTable historyTable;
+
+        /**
+         * The distance of the state from the root.
+         */
+        private final int ply;
+
+        /**
+         * The index of the child last returned.
+         */
+        private int index = -1;
+
+        StagedChildIterator(int firstIndex,
+                            HistoryTable historyTable,
+                            int ply) {
+            this.historyTable = historyTable;
+            this.ply = ply;
+            int childIndex = 0;
+
+            for (int column : COLUMN_ORDER) {
+                if ((mask & topMask(column)) == 0L) {
+                    remainingColumns |= 1 << column;
+
+                    if (childIndex++ == firstIndex) {
+                        stageColumns = 1 << column;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remainingColumns != 0;
+        }
+
+        @Override
+        public ConnectFourState next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            while ((stageColumns &= remainingColumns) == 0) {
+                stageColumns = getColumnsOfStage(++stage);
+            }
+
+            int childIndex = 0;
+
+            for (int column : COLUMN_ORDER) {
+                int columnBit = 1 << column;
+
+                if ((stageColumns & columnBit) != 0) {
+                    stageColumns ^= columnBit;
+                    remainingColumns ^= columnBit;
+                    index = childIndex;
+                    return new ConnectFourState(
+                            position ^ mask,
+                            mask | (mask + bottomMask(column)),
+                            moves + 1,
+                            score + getScoreChange(column));
+                }
+
+                if ((mask & topMask(column)) == 0L) {
+                    childIndex++;
+                }
+            }
+
+            throw new IllegalStateException("No column in the stage.");
+        }
+
+        @Override
+        public int index() {
+            return index;
+        }
+
+        private int getColumnsOfStage(int stage) {
+            long cells;
+
+            switch (stage) {
+                case WINNING_MOVES_STAGE:
+                    cells = winningCells(position, mask);
+                    break;
+
+                case BLOCKING_MOVES_STAGE:
+                    cells = winningCells(position ^ mask, mask);
+                    break;
+
+                default:
+                    // The remaining moves:
+                    return historyTable == null ? 
+                           remainingColumns : 
+                           getBestRemainingColumn();
+            }
+
+            // Only the lowest empty cell of each column is playable:
+            cells &= mask + BOTTOM_MASK;
+            int columns = 0;
+
+            for (int column = 0; column < WIDTH; column++) {
+                if ((cells & columnMask(column)) != 0L) {
+                    columns |= 1 << column;
+                }
+            }
+
+            return columns;
+        }
+
+        /**
+         * Returns the bit of the remaining column with the greatest ordering
+         * score, the first one in the column order on ties.
+         */
+        private int getBestRemainingColumn() {
+            int bestColumn = -1;
+            long bestScore = Long.MIN_VALUE;
+
+            for (int column : COLUMN_ORDER) {
+                if ((remainingColumns & (1 << column)) != 0) {
+                    long score = historyTable.getOrderingScore(ply, column);
+
+                    if (bestColumn < 0 || bestScore < score) {
+                        bestColumn = column;
+                        bestScore = score;
+                    }
+                }
+            }
+
+            return 1 << bestColumn;
+        }
+    }
+}
@@ -41,7 +41,6 @@ public final class Demo {
             DemoState root,
             boolean printMessages) {
         gameEngine.setDepth(MAXIMUM_DEPTH);
-        root.setDepth(MAXIMUM_DEPTH);
         long startTime = System.nanoTime();
         
         DemoState ret = gameEngine.makePly(root, 
@@ -125,8 +124,7 @@ public final class Demo {
                                        maximizingPlayerVictoryCutoff,
                                        minimumChildren,
                                        maximumChildren);
-        root.setDepth(depth);
-        createGameTree(root, MAXIMUM_DEPTH);
+        createGameTree(root, depth);
         return root;
     }
     
@@ -3,7 +3,9 @@ package net.coderodde.zerosum.ai.demo;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.ZobristTable;
 
 /**
  * This class implements a demonstrative game state.
@@ -13,6 +15,20 @@ import net.coderodde.zerosum.ai.AbstractState;
  */
 public final class DemoState extends AbstractState<DemoState, DemoPlayerColor> {
 
+    /**
+     * The number of distinct child indices and plies in the Zobrist table. The
+     * larger values wrap around.
+     */
+    private static final int ZOBRIST_TABLE_DIMENSION = 64;
+    
+    /**
+     * The Zobrist keys indexed by the child index and the ply of a state.
+     */
+    private static final ZobristTable ZOBRIST_TABLE = 
+            new ZobristTable(ZOBRIST_TABLE_DIMENSION, 
+                             ZOBRIST_TABLE_DIMENSION,
+                             0x5DEECE66DL);
+
     /**
      * Holds the child nodes of this node.
      */
@@ -58,11 +74,23 @@ public final class DemoState extends AbstractState<DemoState, DemoPlayerColor> {
      */
     private final int stateId;
     
+    /**
+     * The number of plies from the root to this state.
+     */
+    private final int ply;
+    
+    /**
+     * The hash key of this state. Since a demo state is identified by its 
+     * path from the root, the key of a child is the key of its parent XORed
+     * with the Zobrist key of the (child index, ply) pair.
+     */
+    private final long hashKey;
+    
     /**
      * Counts the total number of nodes created and is used for generating the
      * node IDs.
      */
-    private static int stateIdCounter = 0;
+    private static final AtomicInteger stateIdCounter = new AtomicInteger();
     
     /**
      * Constructs a new demo node.
@@ -81,6 +109,37 @@ public final class DemoState extends AbstractState<DemoState, DemoPlayerColor> {
                      double maximizingPlayerVictoryCutOff,
                      int minimumChildren,
                      int maximumChildren) {
+        this(random,
+             playerColor,
+             minimizingPlayerVictoryCutOff,
+             maximizingPlayerVictoryCutOff,
+             minimumChildren,
+             maximumChildren,
+             null,
+             0);
+    }
+    
+    /**
+     * Constructs a new demo node.
+     * @param random the random number generator.
+     * @param playerColor the player color.
+     * @param minimizingPlayerVictoryCutOff the highest value producing the 
+     *                                      victory for the minimizing player.
+     * @param maximizingPlayerVictoryCutOff the lowest value producing the 
+     *                                      victory for the maximizing player.
+     * @param minimumChildren the minimum number of children of this node.
+     * @param maximumChildren the maximum number of children of this node.
+     * @param parent the parent node or {@code null} for the root node.
+     * @param childIndex the index of this node among its siblings.
+     */
+    private DemoState(Random random, 
+                      DemoPlayerColor playerColor,
+                      double minimizingPlayerVictoryCutOff,
+                      double maximizingPlayerVictoryCutOff,
+                      int minimumChildren,
+                      int maximumChildren,
+                      DemoState parent,
+                      int childIndex) {
         this.random = random;
         this.playerColor = playerColor;
         this.minimizingPlayerVictoryCutOff = minimizingPlayerVictoryCutOff;
@@ -88,14 +147,26 @@ public final class DemoState extends AbstractState<DemoState, DemoPlayerColor> {
         this.minimumChildren = minimumChildren;
         this.maximumChildren = maximumChildren;
         this.value = random.nextGaussian();
-        this.stateId = DemoState.stateIdCounter++;
+        this.stateId = DemoState.stateIdCounter.getAndIncrement();
+        
+        if (parent == null) {
+            this.ply = 0;
+            // Keep the roots of different trees apart:
+            this.hashKey = stateId * 0x9E3779B97F4A7C15L;
+        } else {
+            this.ply = parent.ply + 1;
+            this.hashKey = parent.hashKey ^ 
+                    ZOBRIST_TABLE.getKey(childIndex % ZOBRIST_TABLE_DIMENSION,
+                                         ply % ZOBRIST_TABLE_DIMENSION);
+        }
     }
     
     /**
-     * {@inheritDoc}
+     * {@inheritDoc} The children are generated on the first call and cached, 
+     * so that parallel searches over the same tree see the same children.
      */
     @Override
-    public List<DemoState> children() {
+    public synchronized List<DemoState> children() {
         if (children != null) {
             return children;
         }
@@ -115,9 +186,10 @@ public final class DemoState extends AbstractState<DemoState, DemoPlayerColor> {
                                             minimizingPlayerVictoryCutOff,
                                             maximizingPlayerVictoryCutOff,
                                             minimumChildren, 
-                                            maximumChildren);
+                                            maximumChildren,
+                                            this,
+                                            i);
             
-            child.setDepth(this.getDepth() - 1);
             children.add(child);
         }
         
@@ -151,6 +223,14 @@ public final class DemoState extends AbstractState<DemoState, DemoPlayerColor> {
         }
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getHashKey() {
+        return hashKey;
+    }
+    
     @Override
     public int hashCode() {
         return stateId;
@@ -183,7 +263,7 @@ public final class DemoState extends AbstractState<DemoState, DemoPlayerColor> {
      * Resets the ID counter.
      */
     public static void resetCounter() {
-        DemoState.stateIdCounter = 0;
+        DemoState.stateIdCounter.set(0);
     }
 
     @Override
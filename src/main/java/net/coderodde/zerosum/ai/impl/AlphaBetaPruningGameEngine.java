@@ -1,8 +1,13 @@
 package net.coderodde.zerosum.ai.impl;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import net.coderodde.zerosum.ai.EvaluatorFunction;
 import net.coderodde.zerosum.ai.AbstractGameEngine;
 import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.ChildIterator;
+import net.coderodde.zerosum.ai.MutableState;
+import net.coderodde.zerosum.ai.TranspositionTable;
 
 /**
  * This class implements the 
@@ -30,6 +35,33 @@ extends AbstractGameEngine<S, P> {
         super(evaluatorFunction, depth, Integer.MAX_VALUE);
     }
 
+    /**
+     * Constructs this game engine running the parallel tasks in the common
+     * fork-join pool.
+     * @param evaluatorFunction the evaluator function.
+     * @param depth the search depth.
+     * @param parallelDepth the minimum remaining depth for parallel splitting.
+     */
+    public AlphaBetaPruningGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                                      int depth,
+                                      int parallelDepth) {
+        super(evaluatorFunction, depth, parallelDepth);
+    }
+
+    /**
+     * Constructs this game engine.
+     * @param evaluatorFunction the evaluator function.
+     * @param depth the search depth.
+     * @param parallelDepth the minimum remaining depth for parallel splitting.
+     * @param forkJoinPool the pool for running the parallel tasks.
+     */
+    public AlphaBetaPruningGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                                      int depth,
+                                      int parallelDepth,
+                                      ForkJoinPool forkJoinPool) {
+        super(evaluatorFunction, depth, parallelDepth, forkJoinPool);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -37,16 +69,35 @@ extends AbstractGameEngine<S, P> {
                      P minimizingPlayer,
                      P maximizingPlayer,
                      P initialPlayer) {
-        state.setDepth(depth);
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+
+        if (bookState != null) {
+            return bookState;
+        }
+
+        if (state.checkVictory() != null || state.isTerminal()) {
+            // The game is over, there is no move to make:
+            return null;
+        }
+
+        searchStarted();
+
+        if (state instanceof MutableState && !isParallelDepth(depth)) {
+            // Make and unmake the moves on a single copy of the state:
+            return searchCompleted(makePlyInPlace(state,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  initialPlayer));
+        }
 
         // Do the game tree search with Alpha-beta pruning:
-        return makePlyImplTopmost(state,
-                                  depth,
-                                  Double.NEGATIVE_INFINITY,
-                                  Double.POSITIVE_INFINITY,
-                                  minimizingPlayer,
-                                  maximizingPlayer,
-                                  initialPlayer);
+        return searchCompleted(makePlyImplTopmost(state,
+                                                  depth,
+                                                  Double.NEGATIVE_INFINITY,
+                                                  Double.POSITIVE_INFINITY,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  initialPlayer));
     }
 
     /**
@@ -69,12 +120,41 @@ extends AbstractGameEngine<S, P> {
                                  P maximizingPlayer,
                                  P currentPlayer) {
         S bestState = null;
+        int bestIndex = TranspositionTable.NO_MOVE;
+        List<S> children = state.children();
+        double[] values = null;
+
+        if (isParallelDepth(depth)) {
+            // Search all the root moves with the full window:
+            double a = alpha;
+            double b = beta;
+            P nextPlayer = currentPlayer == maximizingPlayer ?
+                           minimizingPlayer :
+                           maximizingPlayer;
+
+            values = searchInParallel(children,
+                                      (child) -> makePlyImpl(child,
+                                                             depth - 1,
+                                                             a,
+                                                             b,
+                                                             minimizingPlayer,
+                                                             maximizingPlayer,
+                                                             nextPlayer));
+        }
+
+        int hashMove = values == null ?
+                       getHashMove(state, currentPlayer, maximizingPlayer) :
+                       TranspositionTable.NO_MOVE;
 
         if (currentPlayer == maximizingPlayer) {
             double tentativeValue = Double.NEGATIVE_INFINITY;
 
-            for (S childState : state.children()) {
-                double value = makePlyImpl(childState,
+            for (int i = 0; i < children.size(); i++) {
+                int childIndex = getSearchIndex(i, hashMove, children.size());
+                S childState = children.get(childIndex);
+                double value = values != null ?
+                               values[childIndex] :
+                               makePlyImpl(childState,
                                            depth - 1,
                                            alpha,
                                            beta,
@@ -85,6 +165,7 @@ extends AbstractGameEngine<S, P> {
                 if (tentativeValue < value) {
                     tentativeValue = value;
                     bestState = childState;
+                    bestIndex = childIndex;
                 }
 
                 alpha = Math.max(alpha, tentativeValue);
@@ -93,22 +174,29 @@ extends AbstractGameEngine<S, P> {
                     return bestState;
                 }
             }
+
+            storeRoot(state, depth, tentativeValue, bestIndex, 1);
         } else {
             // Here, 'initialPlayer == minimizingPlayer'.
             double tentativeValue = Double.POSITIVE_INFINITY;
 
-            for (S childState : state.children()) {
-                double value = makePlyImpl(childState,
+            for (int i = 0; i < children.size(); i++) {
+                int childIndex = getSearchIndex(i, hashMove, children.size());
+                S childState = children.get(childIndex);
+                double value = values != null ?
+                               values[childIndex] :
+                               makePlyImpl(childState,
                                            depth - 1,
                                            alpha,
                                            beta,
                                            minimizingPlayer,
                                            maximizingPlayer,
-                                           minimizingPlayer);
+                                           maximizingPlayer);
 
                 if (tentativeValue > value) {
                     tentativeValue = value;
                     bestState = childState;
+                    bestIndex = childIndex;
                 }
 
                 beta = Math.min(beta, tentativeValue);
@@ -117,11 +205,60 @@ extends AbstractGameEngine<S, P> {
                     return bestState;
                 }
             }
+
+            storeRoot(state, depth, tentativeValue, bestIndex, -1);
         }
 
         return bestState;
     }
 
+    /**
+     * Returns the best move of {@code state} stored in the transposition 
+     * table.
+     * 
+     * @param state            the state.
+     * @param currentPlayer    the player to move in {@code state}.
+     * @param maximizingPlayer the maximizing player.
+     * @return the index of the best child or 
+     *         {@link TranspositionTable#NO_MOVE}.
+     */
+    private int getHashMove(S state, P currentPlayer, P maximizingPlayer) {
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+        if (transpositionTable != null 
+                && transpositionTable.probe(
+                        getHashKey(state, 
+                                   currentPlayer == maximizingPlayer ? 1 : -1),
+                        entry)) {
+            return entry.getBestMove();
+        }
+
+        return TranspositionTable.NO_MOVE;
+    }
+
+    /**
+     * Stores the exact result of the root search in the transposition table.
+     * 
+     * @param state     the root state.
+     * @param depth     the search depth.
+     * @param value     the value of the root state.
+     * @param bestIndex the index of the best child.
+     * @param color     the color of the player to move at the root.
+     */
+    private void storeRoot(S state, 
+                           int depth, 
+                           double value, 
+                           int bestIndex, 
+                           int color) {
+        if (transpositionTable != null) {
+            transpositionTable.store(getHashKey(state, color),
+                                     depth,
+                                     TranspositionTable.EXACT,
+                                     value,
+                                     bestIndex);
+        }
+    }
+
     /**
      * Performs a single step down the game tree.
      * 
@@ -142,19 +279,75 @@ extends AbstractGameEngine<S, P> {
                                P minimizingPlayer,
                                P maximizingPlayer,
                                P currentPlayer) {
-        if (state.getDepth() == 0 
+        visitNode(depth);
+
+        if (depth == 0 
                 || state.checkVictory() != null
                 || state.isTerminal()) {
-            return evaluatorFunction.evaluate(state);
+            return evaluateLeaf(state);
+        }
+
+        if (isParallelDepth(depth)) {
+            // The split nodes are few and search all their children at once,
+            // so they bypass the transposition table:
+            return makePlyImplParallel(state.children(),
+                                       depth,
+                                       alpha,
+                                       beta,
+                                       minimizingPlayer,
+                                       maximizingPlayer,
+                                       currentPlayer);
         }
 
+        long key = 0L;
+        int hashMove = TranspositionTable.NO_MOVE;
+
+        if (transpositionTable != null) {
+            TranspositionTable.Entry entry = new TranspositionTable.Entry();
+            key = getHashKey(state, 
+                             currentPlayer == maximizingPlayer ? 1 : -1);
+
+            if (transpositionTable.probe(key, entry)) {
+                hashMove = entry.getBestMove();
+
+                if (entry.getDepth() >= depth) {
+                    double value = entry.getScore();
+
+                    switch (entry.getBound()) {
+                        case TranspositionTable.EXACT:
+                            return value;
+
+                        case TranspositionTable.LOWER_BOUND:
+                            alpha = Math.max(alpha, value);
+                            break;
+
+                        case TranspositionTable.UPPER_BOUND:
+                            beta = Math.min(beta, value);
+                            break;
+                    }
+
+                    if (alpha >= beta) {
+                        return value;
+                    }
+                }
+            }
+        }
+
+        double originalAlpha = alpha;
+        double originalBeta = beta;
+        double tentativeValue;
+        int bestIndex = TranspositionTable.NO_MOVE;
+        int ply = this.depth - depth;
+        // The hash move first, then the killer moves or the lazy stages:
+        ChildIterator<S> children = orderedChildIterator(state, hashMove, ply);
+
         if (currentPlayer == maximizingPlayer) {
-            double tentativeValue = Double.NEGATIVE_INFINITY;
+            tentativeValue = Double.NEGATIVE_INFINITY;
 
-            for (S child : state.children()) {
-                double value = makePlyImpl(child,
+            for (int position = 0; children.hasNext(); position++) {
+                double value = makePlyImpl(children.next(),
                                            depth - 1,
-                                           alpha, 
+                                           alpha,
                                            beta,
                                            minimizingPlayer,
                                            maximizingPlayer,
@@ -162,41 +355,411 @@ extends AbstractGameEngine<S, P> {
 
                 if (tentativeValue < value) {
                     tentativeValue = value;
+                    bestIndex = children.index();
                 }
 
                 alpha = Math.max(alpha, tentativeValue);
 
                 if (alpha >= beta) {
+                    countCutoff(position);
+
+                    if (historyTable != null) {
+                        historyTable.recordCutoff(
+                                ply, 
+                                state.getMoveId(children.index()), 
+                                depth);
+                    }
+
                     break;
                 }
             }
-
-            return tentativeValue;
         } else {
             // Here, 'initialPlayer == minimizingPlayer'.
-            double tentativeValue = Double.POSITIVE_INFINITY;
+            tentativeValue = Double.POSITIVE_INFINITY;
 
-            for (S child : state.children()) {
-                double value = makePlyImpl(child,
+            for (int position = 0; children.hasNext(); position++) {
+                double value = makePlyImpl(children.next(),
                                            depth - 1,
                                            alpha,
                                            beta,
                                            minimizingPlayer,
                                            maximizingPlayer,
-                                           minimizingPlayer);
+                                           maximizingPlayer);
 
                 if (tentativeValue > value) {
                     tentativeValue = value;
+                    bestIndex = children.index();
                 }
 
                 beta = Math.min(beta, tentativeValue);
 
                 if (alpha >= beta) {
+                    countCutoff(position);
+
+                    if (historyTable != null) {
+                        historyTable.recordCutoff(
+                                ply, 
+                                state.getMoveId(children.index()), 
+                                depth);
+                    }
+
                     break;
                 }
             }
+        }
+
+        if (transpositionTable != null) {
+            transpositionTable.store(
+                    key,
+                    depth,
+                    TranspositionTable.getBound(tentativeValue,
+                                                originalAlpha,
+                                                originalBeta),
+                    tentativeValue,
+                    bestIndex);
+        }
+
+        return tentativeValue;
+    }
+
+    /**
+     * Performs the search on a private copy of {@code state} by making and 
+     * unmaking the moves instead of materializing the children. The move 
+     * codes of each level are generated into a preallocated array, so the 
+     * search itself does not allocate.
+     * 
+     * @param state            the state to start the search from. Must 
+     *                         implement {@link MutableState}.
+     * @param minimizingPlayer the minimizing player color.
+     * @param maximizingPlayer the maximizing player color.
+     * @param currentPlayer    the current player color.
+     * @return the state after the best move, or {@code null} if there is no
+     *         move.
+     */
+    @SuppressWarnings("unchecked")
+    private S makePlyInPlace(S state,
+                             P minimizingPlayer,
+                             P maximizingPlayer,
+                             P currentPlayer) {
+        S searchState = ((MutableState<S>) state).copy();
+        MutableState<S> mutableState = (MutableState<S>) searchState;
+        int[][] moves = 
+                new int[depth + 1][mutableState.getMaximumNumberOfMoves()];
+        
+        int[][] orders = historyTable == null ?
+                null :
+                new int[depth + 1][mutableState.getMaximumNumberOfMoves()];
+        
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+        int[] rootMoves = moves[depth];
+        int numberOfMoves = mutableState.generateMoves(rootMoves);
 
-            return tentativeValue;
+        if (numberOfMoves == 0) {
+            // Like the children list, there is no move to return:
+            return null;
         }
+
+        int hashMove = getHashMove(state, currentPlayer, maximizingPlayer);
+        double alpha = Double.NEGATIVE_INFINITY;
+        double beta = Double.POSITIVE_INFINITY;
+        double tentativeValue;
+        int bestIndex = 0;
+
+        if (currentPlayer == maximizingPlayer) {
+            tentativeValue = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < numberOfMoves; i++) {
+                int moveIndex = getSearchIndex(i, hashMove, numberOfMoves);
+                mutableState.makeMove(rootMoves[moveIndex]);
+                double value = makePlyImplInPlace(searchState,
+                                                  mutableState,
+                                                  moves,
+                                                  orders,
+                                                  depth - 1,
+                                                  alpha,
+                                                  beta,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  minimizingPlayer,
+                                                  entry);
+                mutableState.unmakeMove(rootMoves[moveIndex]);
+
+                if (tentativeValue < value) {
+                    tentativeValue = value;
+                    bestIndex = moveIndex;
+                }
+
+                alpha = Math.max(alpha, tentativeValue);
+            }
+
+            storeRoot(state, depth, tentativeValue, bestIndex, 1);
+        } else {
+            tentativeValue = Double.POSITIVE_INFINITY;
+
+            for (int i = 0; i < numberOfMoves; i++) {
+                int moveIndex = getSearchIndex(i, hashMove, numberOfMoves);
+                mutableState.makeMove(rootMoves[moveIndex]);
+                double value = makePlyImplInPlace(searchState,
+                                                  mutableState,
+                                                  moves,
+                                                  orders,
+                                                  depth - 1,
+                                                  alpha,
+                                                  beta,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  maximizingPlayer,
+                                                  entry);
+                mutableState.unmakeMove(rootMoves[moveIndex]);
+
+                if (tentativeValue > value) {
+                    tentativeValue = value;
+                    bestIndex = moveIndex;
+                }
+
+                beta = Math.min(beta, tentativeValue);
+            }
+
+            storeRoot(state, depth, tentativeValue, bestIndex, -1);
+        }
+
+        S bestState = ((MutableState<S>) state).copy();
+        ((MutableState<S>) bestState).makeMove(rootMoves[bestIndex]);
+        return bestState;
+    }
+
+    /**
+     * Performs a single step down the game tree in place.
+     * 
+     * @param state            the state to search.
+     * @param mutableState     the same state as {@code state}.
+     * @param moves            the move code arrays indexed by the remaining
+     *                         depth.
+     * @param orders           the search order arrays indexed by the 
+     *                         remaining depth, or {@code null} without a 
+     *                         history table.
+     * @param depth            the remaining depth.
+     * @param alpha            the alpha cut-off.
+     * @param beta             the beta cut-off.
+     * @param minimizingPlayer the minimizing player.
+     * @param maximizingPlayer the maximizing player.
+     * @param currentPlayer    the current player.
+     * @param entry            the transposition table entry buffer.
+     * 
+     * @return the value of the best ply.
+     */
+    private double makePlyImplInPlace(S state,
+                                      MutableState<S> mutableState,
+                                      int[][] moves,
+                                      int[][] orders,
+                                      int depth,
+                                      double alpha,
+                                      double beta,
+                                      P minimizingPlayer,
+                                      P maximizingPlayer,
+                                      P currentPlayer,
+                                      TranspositionTable.Entry entry) {
+        visitNode(depth);
+
+        if (depth == 0 
+                || state.checkVictory() != null
+                || state.isTerminal()) {
+            return evaluateLeaf(state);
+        }
+
+        long key = 0L;
+        int hashMove = TranspositionTable.NO_MOVE;
+
+        if (transpositionTable != null) {
+            key = getHashKey(state, 
+                             currentPlayer == maximizingPlayer ? 1 : -1);
+
+            if (transpositionTable.probe(key, entry)) {
+                hashMove = entry.getBestMove();
+
+                if (entry.getDepth() >= depth) {
+                    double value = entry.getScore();
+
+                    switch (entry.getBound()) {
+                        case TranspositionTable.EXACT:
+                            return value;
+
+                        case TranspositionTable.LOWER_BOUND:
+                            alpha = Math.max(alpha, value);
+                            break;
+
+                        case TranspositionTable.UPPER_BOUND:
+                            beta = Math.min(beta, value);
+                            break;
+                    }
+
+                    if (alpha >= beta) {
+                        return value;
+                    }
+                }
+            }
+        }
+
+        double originalAlpha = alpha;
+        double originalBeta = beta;
+        double tentativeValue;
+        int bestIndex = TranspositionTable.NO_MOVE;
+        int[] stateMoves = moves[depth];
+        int numberOfMoves = mutableState.generateMoves(stateMoves);
+        int ply = this.depth - depth;
+        int[] order = null;
+
+        if (orders != null) {
+            order = orders[depth];
+            historyTable.orderMoves(stateMoves, 
+                                    numberOfMoves, 
+                                    hashMove, 
+                                    ply, 
+                                    order);
+        }
+
+        if (currentPlayer == maximizingPlayer) {
+            tentativeValue = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0; i < numberOfMoves; i++) {
+                int moveIndex = order != null ?
+                                order[i] :
+                                getSearchIndex(i, hashMove, numberOfMoves);
+                mutableState.makeMove(stateMoves[moveIndex]);
+                double value = makePlyImplInPlace(state,
+                                                  mutableState,
+                                                  moves,
+                                                  orders,
+                                                  depth - 1,
+                                                  alpha,
+                                                  beta,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  minimizingPlayer,
+                                                  entry);
+                mutableState.unmakeMove(stateMoves[moveIndex]);
+
+                if (tentativeValue < value) {
+                    tentativeValue = value;
+                    bestIndex = moveIndex;
+                }
+
+                alpha = Math.max(alpha, tentativeValue);
+
+                if (alpha >= beta) {
+                    countCutoff(i);
+
+                    if (order != null) {
+                        historyTable.recordCutoff(ply, 
+                                                  stateMoves[moveIndex], 
+                                                  depth);
+                    }
+
+                    break;
+                }
+            }
+        } else {
+            tentativeValue = Double.POSITIVE_INFINITY;
+
+            for (int i = 0; i < numberOfMoves; i++) {
+                int moveIndex = order != null ?
+                                order[i] :
+                                getSearchIndex(i, hashMove, numberOfMoves);
+                mutableState.makeMove(stateMoves[moveIndex]);
+                double value = makePlyImplInPlace(state,
+                                                  mutableState,
+                                                  moves,
+                                                  orders,
+                                                  depth - 1,
+                                                  alpha,
+                                                  beta,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  maximizingPlayer,
+                                                  entry);
+                mutableState.unmakeMove(stateMoves[moveIndex]);
+
+                if (tentativeValue > value) {
+                    tentativeValue = value;
+                    bestIndex = moveIndex;
+                }
+
+                beta = Math.min(beta, tentativeValue);
+
+                if (alpha >= beta) {
+                    countCutoff(i);
+
+                    if (order != null) {
+                        historyTable.recordCutoff(ply, 
+                                                  stateMoves[moveIndex], 
+                                                  depth);
+                    }
+
+                    break;
+                }
+            }
+        }
+
+        if (transpositionTable != null) {
+            transpositionTable.store(
+                    key,
+                    depth,
+                    TranspositionTable.getBound(tentativeValue,
+                                                originalAlpha,
+                                                originalBeta),
+                    tentativeValue,
+                    bestIndex);
+        }
+
+        return tentativeValue;
+    }
+
+    /**
+     * Searches all the children in parallel with the window of their parent.
+     * Since the siblings cannot tighten the window for each other, this trades
+     * some of the cut-offs for parallelism.
+     *
+     * @param children         the children to search.
+     * @param depth            the remaining depth of the parent node.
+     * @param alpha            the alpha cut-off.
+     * @param beta             the beta cut-off.
+     * @param minimizingPlayer the minimizing player.
+     * @param maximizingPlayer the maximizing player.
+     * @param currentPlayer    the player to move in the parent node.
+     *
+     * @return the value of the best ply.
+     */
+    private double makePlyImplParallel(List<S> children,
+                                       int depth,
+                                       double alpha,
+                                       double beta,
+                                       P minimizingPlayer,
+                                       P maximizingPlayer,
+                                       P currentPlayer) {
+        P nextPlayer = currentPlayer == maximizingPlayer ?
+                       minimizingPlayer :
+                       maximizingPlayer;
+
+        double[] values =
+                searchInParallel(children,
+                                 (child) -> makePlyImpl(child,
+                                                        depth - 1,
+                                                        alpha,
+                                                        beta,
+                                                        minimizingPlayer,
+                                                        maximizingPlayer,
+                                                        nextPlayer));
+
+        double tentativeValue = currentPlayer == maximizingPlayer ?
+                                Double.NEGATIVE_INFINITY :
+                                Double.POSITIVE_INFINITY;
+
+        for (double value : values) {
+            tentativeValue = currentPlayer == maximizingPlayer ?
+                             Math.max(tentativeValue, value) :
+                             Math.min(tentativeValue, value);
+        }
+
+        return tentativeValue;
     }
 }
@@ -0,0 +1,235 @@
+package net.coderodde.zerosum.ai.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.TranspositionTable;
+
+/**
+ * This class implements the
+ * <a href="https://www.chessprogramming.org/Lazy_SMP">Lazy SMP</a> parallel
+ * search on top of {@link PrincipalVariationSearchGameEngine}. While the
+ * calling thread runs the principal variation search of the root, a number of
+ * helper threads search the same root by iterative deepening, and the threads
+ * communicate only through a shared, lock-free transposition table. Each
+ * helper skips blocks of depths after a pattern of its own, so that the
+ * threads spread over different depths and fill the table with the entries
+ * the main search is about to need. The move is taken from the main
+ * search, which supports all the features of the principal variation search:
+ * the integer scores, the in-place moves, the history table and the
+ * aspiration windows. The history table is not thread-safe, so only the main
+ * search consults and updates it; the helpers order their moves by the
+ * transposition table alone.
+ *
+ * @param <S> the game state type.
+ * @param <P> the player color type.
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 17, 2019)
+ * @since 1.61 (Sep 17, 2019)
+ */
+public final class LazySMPGameEngine
+        <S extends AbstractState<S, P>,
+         P extends Enum<P>>
+           extends PrincipalVariationSearchGameEngine<S, P> {
+
+    /**
+     * The minimum number of search threads.
+     */
+    private static final int MINIMUM_NUMBER_OF_THREADS = 1;
+
+    /**
+     * The default number of transposition table entries.
+     */
+    private static final int DEFAULT_TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+
+    /**
+     * The lengths of the blocks of depths searched and skipped in turn by the
+     * helpers. The helper {@code h} uses the entry {@code (h - 1) % 20}.
+     */
+    private static final int[] SKIP_SIZES = {
+        1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4
+    };
+
+    /**
+     * The offsets of the blocks of depths of the helpers, so that the helpers
+     * with the same block length skip different depths.
+     */
+    private static final int[] SKIP_PHASES = {
+        0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7
+    };
+
+    /**
+     * The total number of search threads including the calling thread.
+     */
+    private int numberOfThreads;
+
+    /**
+     * Set when the main search completes and the helpers should stop. The
+     * main search never sees it set, since it is set only after the main
+     * search has returned.
+     */
+    private volatile boolean helpersStopped;
+
+    /**
+     * Constructs this game engine running the helpers in the common fork-join
+     * pool.
+     *
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     * @param numberOfThreads   the total number of search threads.
+     */
+    public LazySMPGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                             int depth,
+                             int numberOfThreads) {
+        this(evaluatorFunction,
+             depth,
+             numberOfThreads,
+             new TranspositionTable(DEFAULT_TRANSPOSITION_TABLE_CAPACITY),
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs this game engine.
+     *
+     * @param evaluatorFunction  the evaluator function.
+     * @param depth              the search depth.
+     * @param numberOfThreads    the total number of search threads.
+     * @param transpositionTable the shared transposition table.
+     * @param forkJoinPool       the pool for running the helper threads.
+     */
+    public LazySMPGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                             int depth,
+                             int numberOfThreads,
+                             TranspositionTable transpositionTable,
+                             ForkJoinPool forkJoinPool) {
+        super(evaluatorFunction, depth, forkJoinPool);
+        setNumberOfThreads(numberOfThreads);
+        setTranspositionTable(transpositionTable);
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public void setNumberOfThreads(int numberOfThreads) {
+        this.numberOfThreads = checkNumberOfThreads(numberOfThreads);
+    }
+
+    /**
+     * Sets the transposition table shared by the search threads. Unlike with
+     * the other engines, the table is mandatory.
+     *
+     * @param transpositionTable the transposition table.
+     */
+    @Override
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        super.setTranspositionTable(
+                Objects.requireNonNull(
+                        transpositionTable,
+                        "The input transposition table is null."));
+    }
+
+    /**
+     * Runs the helpers for as long as the main search of the root
+     * {@code state} takes.
+     *
+     * @param state         the root state.
+     * @param color         the color of the player to move in {@code state}.
+     * @param previousScore the score of the previous search of the root, or
+     *                      {@code NaN} for searching with the full window.
+     * @return the state after the best move.
+     */
+    @Override
+    S search(S state, int color, double previousScore) {
+        if (!state.childIterator(TranspositionTable.NO_MOVE).hasNext()) {
+            // No move to search, so no point in starting the helpers:
+            return null;
+        }
+
+        int maximumDepth = depth;
+        helpersStopped = false;
+        List<ForkJoinTask<?>> helpers = new ArrayList<>(numberOfThreads - 1);
+
+        for (int helperId = 1; helperId < numberOfThreads; helperId++) {
+            int id = helperId;
+            helpers.add(forkJoinPool.submit(() -> runHelper(state,
+                                                            color,
+                                                            maximumDepth,
+                                                            id)));
+        }
+
+        S bestState;
+
+        try {
+            bestState = super.search(state, color, previousScore);
+        } finally {
+            helpersStopped = true;
+
+            for (ForkJoinTask<?> helper : helpers) {
+                helper.quietlyJoin();
+            }
+        }
+
+        for (ForkJoinTask<?> helper : helpers) {
+            // Rethrows the failure of the helper, if any:
+            helper.join();
+        }
+
+        return bestState;
+    }
+
+    /**
+     * {@inheritDoc} The helpers also stop once the main search has completed.
+     */
+    @Override
+    void visitSearchNode(int depth) {
+        super.visitSearchNode(depth);
+
+        if (helpersStopped) {
+            throw SEARCH_STOPPED_EXCEPTION;
+        }
+    }
+
+    /**
+     * Runs the iterative deepening of a helper thread until it reaches the
+     * full depth or the main search completes. The helper skips every other
+     * block of {@code SKIP_SIZES[i]} depths, shifted by
+     * {@code SKIP_PHASES[i]}, but always searches the full depth.
+     *
+     * @param state        the root state.
+     * @param color        the color of the player to move at the root.
+     * @param maximumDepth the depth of the main search.
+     * @param helperId     the ID of the helper.
+     */
+    private void runHelper(S state, int color, int maximumDepth, int helperId) {
+        int i = (helperId - 1) % SKIP_SIZES.length;
+
+        try {
+            for (int d = 1; d <= maximumDepth; d++) {
+                if (d < maximumDepth
+                        && (d + SKIP_PHASES[i]) / SKIP_SIZES[i] % 2 != 0) {
+                    continue;
+                }
+
+                searchSubtree(state, d, color);
+            }
+        } catch (SearchStoppedException ex) {
+            // The main search is done or out of time.
+        }
+    }
+
+    private static int checkNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < MINIMUM_NUMBER_OF_THREADS) {
+            throw new IllegalArgumentException(
+                    "The requested number of threads (" + numberOfThreads +
+                    ") is too small. Must be at least " +
+                    MINIMUM_NUMBER_OF_THREADS + ".");
+        }
+
+        return numberOfThreads;
+    }
+}
@@ -1,9 +1,527 @@
 package net.coderodde.zerosum.ai.impl;
 
+import java.util.List;
+import java.util.Objects;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.IntEvaluatorFunction;
+import net.coderodde.zerosum.ai.TranspositionTable;
+
 /**
+ * This class implements the
+ * <a href="https://en.wikipedia.org/wiki/MTD-f">MTD(f)</a> algorithm for game
+ * tree search. The minimax value is converged upon via a series of 
+ * null-window alpha-beta searches, each of which only tells whether the value
+ * lies above or below its window. The first window is centered at the score
+ * of the root in the transposition table, which under iterative deepening is
+ * the value of the previous iteration. Since the consecutive searches revisit
+ * mostly the same nodes, the bounds they leave in the transposition table 
+ * make the repeated searches cheap.
  *
- * @author Rodion "rodde" Efremo
+ * @param <S> the game state type.
+ * @param <P> the player color type.
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 19, 2019)
+ * @since 1.61 (Sep 19, 2019)
  */
-public class MTDFGameEngine {
-    
+public final class MTDFGameEngine
+        <S extends AbstractState<S, P>,
+         P extends Enum<P>>
+           extends AbstractGameEngine<S, P> {
+
+    /**
+     * The default number of transposition table entries.
+     */
+    private static final int DEFAULT_TRANSPOSITION_TABLE_CAPACITY = 1 << 20;
+
+    /**
+     * The index of the best root move found by the latest null-window search.
+     */
+    private int rootBestIndex;
+
+    /**
+     * Constructs this game engine with a transposition table of default
+     * capacity.
+     *
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     */
+    public MTDFGameEngine(EvaluatorFunction<S> evaluatorFunction, int depth) {
+        this(evaluatorFunction,
+             depth,
+             new TranspositionTable(DEFAULT_TRANSPOSITION_TABLE_CAPACITY));
+    }
+
+    /**
+     * Constructs this game engine.
+     *
+     * @param evaluatorFunction  the evaluator function.
+     * @param depth              the search depth.
+     * @param transpositionTable the transposition table.
+     */
+    public MTDFGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                          int depth,
+                          TranspositionTable transpositionTable) {
+        super(evaluatorFunction, depth, Integer.MAX_VALUE);
+        setTranspositionTable(transpositionTable);
+    }
+
+    /**
+     * Sets the transposition table. Since MTD(f) relies on the table for
+     * not repeating the work of the previous null-window searches, the table
+     * is mandatory.
+     *
+     * @param transpositionTable the transposition table.
+     */
+    @Override
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        super.setTranspositionTable(
+                Objects.requireNonNull(
+                        transpositionTable,
+                        "The input transposition table is null."));
+    }
+
+    /**
+     * {@inheritDoc} The search converges on the value of {@code state} at 
+     * the depth of this engine, starting from the score stored for 
+     * {@code state} in the transposition table, if any, and from its static 
+     * evaluation otherwise. Run through the iterative deepening of 
+     * {@link #makePly(AbstractState, Enum, Enum, Enum, long, long)}, each 
+     * iteration starts from the score of the previous one.
+     */
+    @Override
+    public S makePly(S state,
+                     P minimizingPlayer,
+                     P maximizingPlayer,
+                     P initialPlayer) {
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+
+        if (bookState != null) {
+            return bookState;
+        }
+
+        if (state.checkVictory() != null || state.isTerminal()) {
+            // The game is over, there is no move to make:
+            return null;
+        }
+
+        List<S> children = state.children();
+
+        if (children.isEmpty()) {
+            return null;
+        }
+
+        searchStarted();
+        int color = initialPlayer == minimizingPlayer ? -1 : 1;
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+        if (evaluatorFunction instanceof IntEvaluatorFunction) {
+            return searchCompleted(
+                    children.get(getBestIndexInt(state, color, entry)));
+        }
+
+        double guess = 
+                transpositionTable.probe(getHashKey(state, color), entry) ?
+                entry.getScore() :
+                color * evaluatorFunction.evaluate(state);
+
+        double lowerBound = Double.NEGATIVE_INFINITY;
+        double upperBound = Double.POSITIVE_INFINITY;
+        int bestIndex = 0;
+
+        while (lowerBound < upperBound) {
+            // Test whether the value is at least 'beta':
+            double beta = guess == lowerBound ? Math.nextUp(guess) : guess;
+
+            guess = makePlyImplTopmost(state,
+                                       depth,
+                                       Math.nextDown(beta),
+                                       beta,
+                                       color,
+                                       entry);
+
+            if (guess < beta) {
+                upperBound = guess;
+            } else {
+                // The move failing high is at least as good as 'guess':
+                lowerBound = guess;
+                bestIndex = rootBestIndex;
+            }
+        }
+
+        return searchCompleted(children.get(bestIndex));
+    }
+
+    /**
+     * Converges on the minimax value of {@code state} with the integer
+     * scores of an {@link IntEvaluatorFunction}. The null windows have width
+     * one, so each null-window search tests a single integer value.
+     *
+     * @param state the root state.
+     * @param color the color. -1 for minimizing player, +1 for maximizing
+     *              player.
+     * @param entry the transposition table entry buffer.
+     * @return the index of the best child of {@code state}.
+     */
+    @SuppressWarnings("unchecked")
+    private int getBestIndexInt(S state,
+                                int color,
+                                TranspositionTable.Entry entry) {
+        IntEvaluatorFunction<S> intEvaluatorFunction =
+                (IntEvaluatorFunction<S>) evaluatorFunction;
+        int guess = 
+                transpositionTable.probe(getHashKey(state, color), entry) ?
+                (int) entry.getScore() :
+                color * intEvaluatorFunction.evaluateInt(state);
+
+        int lowerBound = -IntEvaluatorFunction.INFINITE_SCORE;
+        int upperBound = IntEvaluatorFunction.INFINITE_SCORE;
+        int bestIndex = 0;
+
+        while (lowerBound < upperBound) {
+            // Test whether the value is at least 'beta':
+            int beta = guess == lowerBound ? guess + 1 : guess;
+
+            guess = makePlyImplTopmostInt(state,
+                                          depth,
+                                          beta - 1,
+                                          beta,
+                                          color,
+                                          entry);
+
+            if (guess < beta) {
+                upperBound = guess;
+            } else {
+                lowerBound = guess;
+                bestIndex = rootBestIndex;
+            }
+        }
+
+        return bestIndex;
+    }
+
+    /**
+     * Performs a single null-window search directly under the root node
+     * denoted by {@code state}. Unlike the inner nodes, the root is always
+     * expanded and its best move is saved in {@code rootBestIndex}.
+     *
+     * @param state the root state of the game tree to search.
+     * @param depth the depth of this iteration.
+     * @param alpha the alpha cut-off.
+     * @param beta  the beta cut-off.
+     * @param color the color. -1 for minimizing player, +1 for maximizing
+     *              player.
+     * @param entry the transposition table entry buffer.
+     * @return the score of {@code state} from the point of view of the player
+     *         to move.
+     */
+    private double makePlyImplTopmost(S state,
+                                      int depth,
+                                      double alpha,
+                                      double beta,
+                                      int color,
+                                      TranspositionTable.Entry entry) {
+        long key = getHashKey(state, color);
+        int hashMove = transpositionTable.probe(key, entry) ?
+                       entry.getBestMove() :
+                       TranspositionTable.NO_MOVE;
+
+        double originalAlpha = alpha;
+        List<S> children = state.children();
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int bestIndex = 0;
+
+        for (int i = 0; i < children.size(); i++) {
+            int childIndex = getSearchIndex(i, hashMove, children.size());
+            double score = -makePlyImpl(children.get(childIndex),
+                                        depth - 1,
+                                        -beta,
+                                        -alpha,
+                                        -color,
+                                        entry);
+
+            if (bestScore < score) {
+                bestScore = score;
+                bestIndex = childIndex;
+            }
+
+            alpha = Math.max(alpha, score);
+
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        transpositionTable.store(
+                key,
+                depth,
+                TranspositionTable.getBound(bestScore, originalAlpha, beta),
+                bestScore,
+                bestIndex);
+        rootBestIndex = bestIndex;
+        return bestScore;
+    }
+
+    /**
+     * Searches the subtree rooted at {@code state} with fail-soft alpha-beta
+     * pruning, storing the result bounds in the transposition table.
+     *
+     * @param state the root of the subtree.
+     * @param depth the remaining depth.
+     * @param alpha the alpha cut-off.
+     * @param beta  the beta cut-off.
+     * @param color the color of the player to move.
+     * @param entry the transposition table entry buffer.
+     * @return the score of {@code state} from the point of view of the player
+     *         to move.
+     */
+    private double makePlyImpl(S state,
+                               int depth,
+                               double alpha,
+                               double beta,
+                               int color,
+                               TranspositionTable.Entry entry) {
+        visitNode(depth);
+
+        if (depth == 0
+                || state.checkVictory() != null
+                || state.isTerminal()) {
+            return color * evaluateLeaf(state);
+        }
+
+        long key = getHashKey(state, color);
+        int hashMove = TranspositionTable.NO_MOVE;
+
+        if (transpositionTable.probe(key, entry)) {
+            hashMove = entry.getBestMove();
+
+            if (entry.getDepth() >= depth) {
+                double score = entry.getScore();
+
+                switch (entry.getBound()) {
+                    case TranspositionTable.EXACT:
+                        return score;
+
+                    case TranspositionTable.LOWER_BOUND:
+                        if (score >= beta) {
+                            return score;
+                        }
+
+                        alpha = Math.max(alpha, score);
+                        break;
+
+                    case TranspositionTable.UPPER_BOUND:
+                        if (score <= alpha) {
+                            return score;
+                        }
+
+                        beta = Math.min(beta, score);
+                        break;
+                }
+            }
+        }
+
+        double originalAlpha = alpha;
+        List<S> children = state.children();
+        double bestScore = Double.NEGATIVE_INFINITY;
+        int bestIndex = TranspositionTable.NO_MOVE;
+
+        for (int i = 0; i < children.size(); i++) {
+            // Try the hash move first:
+            int childIndex = getSearchIndex(i, hashMove, children.size());
+            double score = -makePlyImpl(children.get(childIndex),
+                                        depth - 1,
+                                        -beta,
+                                        -alpha,
+                                        -color,
+                                        entry);
+
+            if (bestScore < score) {
+                bestScore = score;
+                bestIndex = childIndex;
+            }
+
+            alpha = Math.max(alpha, score);
+
+            if (alpha >= beta) {
+                countCutoff(i);
+                break;
+            }
+        }
+
+        transpositionTable.store(
+                key,
+                depth,
+                TranspositionTable.getBound(bestScore, originalAlpha, beta),
+                bestScore,
+                bestIndex);
+        return bestScore;
+    }
+
+    /**
+     * Performs a single null-window search directly under the root node
+     * denoted by {@code state} with the integer scores. The root is the
+     * same as in {@link #makePlyImplTopmost}.
+     *
+     * @param state the root state of the game tree to search.
+     * @param depth the depth of this iteration.
+     * @param alpha the alpha cut-off.
+     * @param beta  the beta cut-off.
+     * @param color the color. -1 for minimizing player, +1 for maximizing
+     *              player.
+     * @param entry the transposition table entry buffer.
+     * @return the score of {@code state} from the point of view of the player
+     *         to move.
+     */
+    private int makePlyImplTopmostInt(S state,
+                                      int depth,
+                                      int alpha,
+                                      int beta,
+                                      int color,
+                                      TranspositionTable.Entry entry) {
+        long key = getHashKey(state, color);
+        int hashMove = transpositionTable.probe(key, entry) ?
+                       entry.getBestMove() :
+                       TranspositionTable.NO_MOVE;
+
+        int originalAlpha = alpha;
+        List<S> children = state.children();
+        int bestScore = -IntEvaluatorFunction.INFINITE_SCORE;
+        int bestIndex = 0;
+
+        for (int i = 0; i < children.size(); i++) {
+            int childIndex = getSearchIndex(i, hashMove, children.size());
+            int score = -makePlyImplInt(children.get(childIndex),
+                                        depth - 1,
+                                        1,
+                                        -beta,
+                                        -alpha,
+                                        -color,
+                                        entry);
+
+            if (bestScore < score) {
+                bestScore = score;
+                bestIndex = childIndex;
+            }
+
+            alpha = Math.max(alpha, score);
+
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        transpositionTable.store(
+                key,
+                depth,
+                TranspositionTable.getBound(bestScore, originalAlpha, beta),
+                bestScore,
+                bestIndex);
+        rootBestIndex = bestIndex;
+        return bestScore;
+    }
+
+    /**
+     * Searches the subtree rooted at {@code state} with fail-soft alpha-beta
+     * pruning and the integer scores, storing the result bounds in the
+     * transposition table. The win scores are stored relative to
+     * {@code state}.
+     *
+     * @param state the root of the subtree.
+     * @param depth the remaining depth.
+     * @param ply   the distance of {@code state} from the root.
+     * @param alpha the alpha cut-off.
+     * @param beta  the beta cut-off.
+     * @param color the color of the player to move.
+     * @param entry the transposition table entry buffer.
+     * @return the score of {@code state} from the point of view of the player
+     *         to move.
+     */
+    private int makePlyImplInt(S state,
+                               int depth,
+                               int ply,
+                               int alpha,
+                               int beta,
+                               int color,
+                               TranspositionTable.Entry entry) {
+        visitNode(depth);
+
+        if (depth == 0
+                || state.checkVictory() != null
+                || state.isTerminal()) {
+            return color * evaluateLeafInt(state, ply);
+        }
+
+        long key = getHashKey(state, color);
+        int hashMove = TranspositionTable.NO_MOVE;
+
+        if (transpositionTable.probe(key, entry)) {
+            hashMove = entry.getBestMove();
+
+            if (entry.getDepth() >= depth) {
+                int score = IntEvaluatorFunction.addWinDistance(
+                        (int) entry.getScore(),
+                        ply);
+
+                switch (entry.getBound()) {
+                    case TranspositionTable.EXACT:
+                        return score;
+
+                    case TranspositionTable.LOWER_BOUND:
+                        if (score >= beta) {
+                            return score;
+                        }
+
+                        alpha = Math.max(alpha, score);
+                        break;
+
+                    case TranspositionTable.UPPER_BOUND:
+                        if (score <= alpha) {
+                            return score;
+                        }
+
+                        beta = Math.min(beta, score);
+                        break;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        List<S> children = state.children();
+        int bestScore = -IntEvaluatorFunction.INFINITE_SCORE;
+        int bestIndex = TranspositionTable.NO_MOVE;
+
+        for (int i = 0; i < children.size(); i++) {
+            // Try the hash move first:
+            int childIndex = getSearchIndex(i, hashMove, children.size());
+            int score = -makePlyImplInt(children.get(childIndex),
+                                        depth - 1,
+                                        ply + 1,
+                                        -beta,
+                                        -alpha,
+                                        -color,
+                                        entry);
+
+            if (bestScore < score) {
+                bestScore = score;
+                bestIndex = childIndex;
+            }
+
+            alpha = Math.max(alpha, score);
+
+            if (alpha >= beta) {
+                countCutoff(i);
+                break;
+            }
+        }
+
+        transpositionTable.store(
+                key,
+                depth,
+                TranspositionTable.getBound(bestScore, originalAlpha, beta),
+                IntEvaluatorFunction.removeWinDistance(bestScore, ply),
+                bestIndex);
+        return bestScore;
+    }
 }
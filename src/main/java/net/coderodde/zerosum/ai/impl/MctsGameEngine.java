@@ -0,0 +1,942 @@
+package net.coderodde.zerosum.ai.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.MutableState;
+
+/**
+ * This class implements the
+ * <a href="https://www.chessprogramming.org/Monte-Carlo_Tree_Search">Monte
+ * Carlo tree search</a> with the UCT selection. Each iteration descends the
+ * tree from the root by the UCB1 formula, expands the reached leaf, scores a
+ * child of it by a playout and adds the result to the nodes on the path. The
+ * move leading to the most visited child of the root is made. Instead of a
+ * search depth, the effort is bounded by the number of iterations and,
+ * optionally, by a time limit.
+ * <p>
+ * The calling thread and a number of helper threads run the iterations on a
+ * single shared tree. A thread counts its visit to a node already on the way
+ * down and adds the result only after the playout, so that until then the
+ * visit acts as a virtual loss steering the other threads to other
+ * branches. The nodes are not objects: a node is an index into the
+ * pre-sized arrays of the states, the first child indices, the numbers of
+ * children, the visit counts and the value sums. The children of a node
+ * occupy consecutive indices. Once the arrays are full, the leaves are no
+ * longer expanded.
+ * <p>
+ * The subtree of the position reached after the move of this engine and the
+ * reply of the opponent is kept for the next search, so that its statistics
+ * are not lost. The kept subtree is compacted into a second set of arrays,
+ * which doubles the memory used by the tree.
+ * <p>
+ * The values are win probabilities from the point of view of the player who
+ * made the move leading to the node. A playout under
+ * {@link PlayoutPolicy#RANDOM} plays uniformly random moves until the game
+ * is over; a playout under {@link PlayoutPolicy#EVALUATOR} evaluates the
+ * state with the evaluator function and maps the score to a win probability
+ * by the logistic function.
+ *
+ * @param <S> the game state type.
+ * @param <P> the player color type.
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Oct 3, 2019)
+ * @since 1.61 (Oct 3, 2019)
+ */
+public final class MctsGameEngine
+        <S extends AbstractState<S, P>,
+         P extends Enum<P>>
+           extends AbstractGameEngine<S, P> {
+
+    /**
+     * Lists the ways of scoring a new node.
+     */
+    public enum PlayoutPolicy {
+
+        /**
+         * Plays uniformly random moves until the game is over or the maximum
+         * playout length is reached. The states implementing
+         * {@link MutableState} are played out in place on a single copy.
+         */
+        RANDOM,
+
+        /**
+         * Evaluates the node with the evaluator function without playing
+         * any moves.
+         */
+        EVALUATOR;
+    }
+
+    /**
+     * Denotes the absence of a time limit.
+     */
+    public static final long NO_TIME_LIMIT = 0L;
+
+    /**
+     * The exploration constant of the UCB1 formula used by default.
+     */
+    public static final double DEFAULT_EXPLORATION_CONSTANT = Math.sqrt(2.0);
+
+    /**
+     * The minimum number of search threads.
+     */
+    private static final int MINIMUM_NUMBER_OF_THREADS = 1;
+
+    /**
+     * The minimum number of nodes in the tree: the root and a child.
+     */
+    private static final int MINIMUM_CAPACITY = 2;
+
+    /**
+     * The minimum number of iterations per search.
+     */
+    private static final int MINIMUM_ITERATIONS = 1;
+
+    /**
+     * The minimum length of a random playout.
+     */
+    private static final int MINIMUM_PLAYOUT_LENGTH = 0;
+
+    /**
+     * The default number of nodes in the tree.
+     */
+    private static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * The default maximum length of a random playout.
+     */
+    private static final int DEFAULT_MAXIMUM_PLAYOUT_LENGTH = 1000;
+
+    /**
+     * The first child index of a node that has not been expanded.
+     */
+    private static final int UNEXPANDED = -1;
+
+    /**
+     * The first child index of a node being expanded by another thread, or
+     * which could not be expanded because the tree is full or its state has
+     * no children.
+     */
+    private static final int EXPANDING = -2;
+
+    /**
+     * The fixed-point scale of the value sums. The values lie between zero
+     * and one.
+     */
+    private static final double VALUE_SCALE = 1 << 20;
+
+    /**
+     * The number of search threads including the calling thread.
+     */
+    private int numberOfThreads;
+
+    /**
+     * The number of iterations per search.
+     */
+    private int iterations;
+
+    /**
+     * The time limit of a search in milliseconds, or {@link #NO_TIME_LIMIT}.
+     */
+    private long timeLimit = NO_TIME_LIMIT;
+
+    /**
+     * The exploration constant of the UCB1 formula.
+     */
+    private double explorationConstant = DEFAULT_EXPLORATION_CONSTANT;
+
+    /**
+     * The way of scoring the new nodes.
+     */
+    private PlayoutPolicy playoutPolicy = PlayoutPolicy.RANDOM;
+
+    /**
+     * The evaluator score mapped to the win probability of about 73 percent
+     * under {@link PlayoutPolicy#EVALUATOR}.
+     */
+    private double evaluationScale = 1.0;
+
+    /**
+     * The maximum number of random moves in a playout, after which the state
+     * is evaluated like under {@link PlayoutPolicy#EVALUATOR}.
+     */
+    private int maximumPlayoutLength = DEFAULT_MAXIMUM_PLAYOUT_LENGTH;
+
+    /**
+     * Whether the subtree of the next root is kept between the searches.
+     */
+    private boolean treeReuse = true;
+
+    /**
+     * The state of each node.
+     */
+    private Object[] states;
+
+    /**
+     * The index of the first child of each node, {@link #UNEXPANDED} or
+     * {@link #EXPANDING}.
+     */
+    private AtomicIntegerArray firstChildren;
+
+    /**
+     * The number of children of each expanded node. Written before the first
+     * child index of the node is published.
+     */
+    private int[] numbersOfChildren;
+
+    /**
+     * The number of visits of each node including the ones still running.
+     */
+    private AtomicIntegerArray visits;
+
+    /**
+     * The sum of the values of each node scaled by {@link #VALUE_SCALE}.
+     */
+    private AtomicLongArray valueSums;
+
+    /**
+     * The arrays receiving the subtree kept for the next search, or
+     * {@code null} before the first compaction.
+     */
+    private Object[] spareStates;
+    private AtomicIntegerArray spareFirstChildren;
+    private int[] spareNumbersOfChildren;
+    private AtomicIntegerArray spareVisits;
+    private AtomicLongArray spareValueSums;
+
+    /**
+     * The number of nodes in use.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Set when the workers should stop iterating.
+     */
+    private volatile boolean workersStopped;
+
+    /**
+     * Constructs this game engine running a single thread and keeping at most
+     * {@code 2^20} nodes.
+     *
+     * @param evaluatorFunction the evaluator function.
+     * @param iterations        the number of iterations per search.
+     */
+    public MctsGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                          int iterations) {
+        this(evaluatorFunction,
+             iterations,
+             MINIMUM_NUMBER_OF_THREADS,
+             DEFAULT_CAPACITY,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs this game engine.
+     *
+     * @param evaluatorFunction the evaluator function.
+     * @param iterations        the number of iterations per search.
+     * @param numberOfThreads   the total number of search threads.
+     * @param capacity          the maximum number of nodes in the tree.
+     * @param forkJoinPool      the pool for running the helper threads.
+     */
+    public MctsGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                          int iterations,
+                          int numberOfThreads,
+                          int capacity,
+                          ForkJoinPool forkJoinPool) {
+        // The depth is unused; a single iteration of iterative deepening
+        // runs the whole search:
+        super(evaluatorFunction, 1, Integer.MAX_VALUE, forkJoinPool);
+        setIterations(iterations);
+        setNumberOfThreads(numberOfThreads);
+        checkCapacity(capacity);
+
+        states = new Object[capacity];
+        firstChildren = new AtomicIntegerArray(capacity);
+        numbersOfChildren = new int[capacity];
+        visits = new AtomicIntegerArray(capacity);
+        valueSums = new AtomicLongArray(capacity);
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public int getCapacity() {
+        return states.length;
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    public double getExplorationConstant() {
+        return explorationConstant;
+    }
+
+    public PlayoutPolicy getPlayoutPolicy() {
+        return playoutPolicy;
+    }
+
+    public double getEvaluationScale() {
+        return evaluationScale;
+    }
+
+    public int getMaximumPlayoutLength() {
+        return maximumPlayoutLength;
+    }
+
+    public boolean isTreeReuse() {
+        return treeReuse;
+    }
+
+    /**
+     * Returns the number of nodes in the tree of the latest search.
+     *
+     * @return the number of nodes in use.
+     */
+    public int getTreeSize() {
+        return size.get();
+    }
+
+    public void setIterations(int iterations) {
+        if (iterations < MINIMUM_ITERATIONS) {
+            throw new IllegalArgumentException(
+                    "The requested number of iterations (" + iterations +
+                    ") is too small. Must be at least " +
+                    MINIMUM_ITERATIONS + ".");
+        }
+
+        this.iterations = iterations;
+    }
+
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < MINIMUM_NUMBER_OF_THREADS) {
+            throw new IllegalArgumentException(
+                    "The requested number of threads (" + numberOfThreads +
+                    ") is too small. Must be at least " +
+                    MINIMUM_NUMBER_OF_THREADS + ".");
+        }
+
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    /**
+     * Sets the time limit of a search. The search stops after the time limit
+     * even if it has not run all of its iterations.
+     *
+     * @param timeLimit the time limit in milliseconds, or
+     *                  {@link #NO_TIME_LIMIT}.
+     */
+    public void setTimeLimit(long timeLimit) {
+        if (timeLimit < NO_TIME_LIMIT) {
+            throw new IllegalArgumentException(
+                    "The requested time limit (" + timeLimit + ") is too " +
+                    "small. Must be at least " + NO_TIME_LIMIT + ".");
+        }
+
+        this.timeLimit = timeLimit;
+    }
+
+    public void setExplorationConstant(double explorationConstant) {
+        if (!(explorationConstant >= 0.0)) {
+            throw new IllegalArgumentException(
+                    "The requested exploration constant (" +
+                    explorationConstant + ") is too small. Must be at " +
+                    "least 0.");
+        }
+
+        this.explorationConstant = explorationConstant;
+    }
+
+    public void setPlayoutPolicy(PlayoutPolicy playoutPolicy) {
+        this.playoutPolicy =
+                Objects.requireNonNull(playoutPolicy,
+                                       "The input playout policy is null.");
+    }
+
+    /**
+     * Sets the scale of the evaluator scores. A score of {@code s} maps to
+     * the win probability {@code 1 / (1 + exp(-s / evaluationScale))}.
+     *
+     * @param evaluationScale the positive evaluation scale.
+     */
+    public void setEvaluationScale(double evaluationScale) {
+        if (!(evaluationScale > 0.0)) {
+            throw new IllegalArgumentException(
+                    "The requested evaluation scale (" + evaluationScale +
+                    ") is too small. Must be positive.");
+        }
+
+        this.evaluationScale = evaluationScale;
+    }
+
+    public void setMaximumPlayoutLength(int maximumPlayoutLength) {
+        if (maximumPlayoutLength < MINIMUM_PLAYOUT_LENGTH) {
+            throw new IllegalArgumentException(
+                    "The requested maximum playout length (" +
+                    maximumPlayoutLength + ") is too small. Must be at " +
+                    "least " + MINIMUM_PLAYOUT_LENGTH + ".");
+        }
+
+        this.maximumPlayoutLength = maximumPlayoutLength;
+    }
+
+    /**
+     * Sets whether the subtree of the next root is kept between the
+     * searches. If not, each search starts from a new tree.
+     *
+     * @param treeReuse whether to keep the subtree.
+     */
+    public void setTreeReuse(boolean treeReuse) {
+        this.treeReuse = treeReuse;
+    }
+
+    /**
+     * {@inheritDoc} This engine also discards its tree.
+     */
+    @Override
+    public void newGame() {
+        super.newGame();
+        clearTree();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public S makePly(S state,
+                     P minimizingPlayer,
+                     P maximizingPlayer,
+                     P initialPlayer) {
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+
+        if (bookState != null) {
+            return bookState;
+        }
+
+        if (state.checkVictory() != null || state.isTerminal()) {
+            // The game is over, there is no move to make:
+            return null;
+        }
+
+        searchStarted();
+        int rootColor = initialPlayer == minimizingPlayer ? -1 : 1;
+        setRoot(state);
+
+        long deadline = timeLimit == NO_TIME_LIMIT ?
+                        Long.MAX_VALUE :
+                        System.nanoTime() + timeLimit * 1_000_000L;
+
+        AtomicInteger remainingIterations = new AtomicInteger(iterations);
+        workersStopped = false;
+        List<ForkJoinTask<?>> helpers = new ArrayList<>(numberOfThreads - 1);
+
+        for (int i = 1; i < numberOfThreads; i++) {
+            helpers.add(forkJoinPool.submit(() -> {
+                try {
+                    runWorker(maximizingPlayer,
+                              rootColor,
+                              remainingIterations,
+                              deadline);
+                } catch (SearchStoppedException ex) {
+                    // The search has been cancelled or is out of time.
+                }
+            }));
+        }
+
+        try {
+            runWorker(maximizingPlayer,
+                      rootColor,
+                      remainingIterations,
+                      deadline);
+        } finally {
+            workersStopped = true;
+
+            for (ForkJoinTask<?> helper : helpers) {
+                helper.quietlyJoin();
+            }
+        }
+
+        for (ForkJoinTask<?> helper : helpers) {
+            // Rethrows the failure of the helper, if any:
+            helper.join();
+        }
+
+        return searchCompleted(getBestChild(state));
+    }
+
+    /**
+     * Runs the search with the soft time limit as the time limit. The
+     * iterations are short, so that the search simply stops starting new
+     * ones after {@code softTimeLimit} milliseconds; the depth of this
+     * engine plays no role.
+     */
+    @Override
+    public S makePly(S state,
+                     P minimizingPlayer,
+                     P maximizingPlayer,
+                     P initialPlayer,
+                     long softTimeLimit,
+                     long hardTimeLimit) {
+        if (hardTimeLimit < softTimeLimit) {
+            throw new IllegalArgumentException(
+                    "The requested hard time limit (" + hardTimeLimit +
+                    ") is too small. Must be at least the soft time limit (" +
+                    softTimeLimit + ").");
+        }
+
+        long originalTimeLimit = timeLimit;
+        int originalIterations = iterations;
+        // A zero limit would mean no limit, so run at least a millisecond:
+        setTimeLimit(Math.max(1L, softTimeLimit));
+        iterations = Integer.MAX_VALUE;
+
+        try {
+            return makePly(state,
+                           minimizingPlayer,
+                           maximizingPlayer,
+                           initialPlayer);
+        } finally {
+            timeLimit = originalTimeLimit;
+            iterations = originalIterations;
+        }
+    }
+
+    /**
+     * Runs the iterations until the budget is exhausted or the search is
+     * stopped.
+     *
+     * @param maximizingPlayer    the maximizing player.
+     * @param rootColor           the color of the player to move at the
+     *                            root. -1 for the minimizing player, +1 for
+     *                            the maximizing player.
+     * @param remainingIterations the number of iterations left to all the
+     *                            threads.
+     * @param deadline            the {@link System#nanoTime()} after which
+     *                            no new iteration is started.
+     */
+    private void runWorker(P maximizingPlayer,
+                           int rootColor,
+                           AtomicInteger remainingIterations,
+                           long deadline) {
+        int[] path = new int[64];
+        int[] moves = null;
+
+        while (!workersStopped
+                && remainingIterations.getAndDecrement() > 0
+                && System.nanoTime() - deadline < 0) {
+            // Selection, counting each visit on the way down:
+            int node = 0;
+            int length = 0;
+            path[length++] = node;
+            visits.incrementAndGet(node);
+
+            while (firstChildren.get(node) >= 0) {
+                node = selectChild(node);
+                visits.incrementAndGet(node);
+
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, 2 * length);
+                }
+
+                path[length++] = node;
+            }
+
+            @SuppressWarnings("unchecked")
+            S state = (S) states[node];
+
+            // Expansion:
+            if (state.checkVictory() == null
+                    && !state.isTerminal()
+                    && expand(node, state)) {
+                node = selectChild(node);
+                visits.incrementAndGet(node);
+
+                if (length == path.length) {
+                    path = Arrays.copyOf(path, 2 * length);
+                }
+
+                path[length++] = node;
+
+                @SuppressWarnings("unchecked")
+                S child = (S) states[node];
+                state = child;
+            }
+
+            visitNode(depth - (length - 1));
+
+            // Playout:
+            if (playoutPolicy == PlayoutPolicy.RANDOM
+                    && state instanceof MutableState) {
+                MutableState<?> mutableState = (MutableState<?>) state;
+
+                if (moves == null) {
+                    moves = new int[mutableState.getMaximumNumberOfMoves()];
+                }
+
+                @SuppressWarnings("unchecked")
+                S copy = (S) mutableState.copy();
+                state = copy;
+            }
+
+            // The player to move at path[length - 1]:
+            int leafColor = (length & 1) == 1 ? rootColor : -rootColor;
+            double value = playout(state, maximizingPlayer, moves);
+
+            // Backpropagation from the point of view of the player moving
+            // into each node:
+            for (int i = length - 1, color = leafColor; i >= 0; i--) {
+                double nodeValue = color == 1 ? 1.0 - value : value;
+                valueSums.addAndGet(path[i],
+                                    (long)(nodeValue * VALUE_SCALE));
+                color = -color;
+            }
+        }
+    }
+
+    /**
+     * Scores {@code state} by the playout policy.
+     *
+     * @param state            the state to score. Played out in place if it
+     *                         implements {@link MutableState} and the policy
+     *                         is {@link PlayoutPolicy#RANDOM}.
+     * @param maximizingPlayer the maximizing player.
+     * @param moves            the move buffer for the in-place playouts.
+     * @return the win probability of the maximizing player.
+     */
+    private double playout(S state, P maximizingPlayer, int[] moves) {
+        if (playoutPolicy == PlayoutPolicy.RANDOM) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            for (int ply = 0; ply < maximumPlayoutLength; ply++) {
+                P winner = state.checkVictory();
+
+                if (winner != null) {
+                    return winner == maximizingPlayer ? 1.0 : 0.0;
+                }
+
+                if (state.isTerminal()) {
+                    return 0.5;
+                }
+
+                if (state instanceof MutableState) {
+                    MutableState<?> mutableState = (MutableState<?>) state;
+                    int numberOfMoves = mutableState.generateMoves(moves);
+
+                    if (numberOfMoves == 0) {
+                        break;
+                    }
+
+                    mutableState.makeMove(moves[random.nextInt(numberOfMoves)]);
+                } else {
+                    List<S> children = state.children();
+
+                    if (children.isEmpty()) {
+                        break;
+                    }
+
+                    state = children.get(random.nextInt(children.size()));
+                }
+            }
+        }
+
+        P winner = state.checkVictory();
+
+        if (winner != null) {
+            return winner == maximizingPlayer ? 1.0 : 0.0;
+        }
+
+        if (state.isTerminal()) {
+            return 0.5;
+        }
+
+        return 1.0 / (1.0 + Math.exp(-evaluateLeaf(state) / evaluationScale));
+    }
+
+    /**
+     * Selects the child of {@code node} maximizing the UCB1 formula. A child
+     * not visited yet is selected first.
+     *
+     * @param node the expanded node.
+     * @return the index of the selected child.
+     */
+    private int selectChild(int node) {
+        int firstChild = firstChildren.get(node);
+        int numberOfChildren = numbersOfChildren[node];
+        double logVisits = Math.log(Math.max(1, visits.get(node)));
+        int bestChild = firstChild;
+        double bestScore = Double.NEGATIVE_INFINITY;
+
+        for (int child = firstChild;
+                child < firstChild + numberOfChildren;
+                child++) {
+            int childVisits = visits.get(child);
+
+            if (childVisits == 0) {
+                return child;
+            }
+
+            double score = valueSums.get(child) / VALUE_SCALE / childVisits +
+                           explorationConstant *
+                           Math.sqrt(logVisits / childVisits);
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestChild = child;
+            }
+        }
+
+        return bestChild;
+    }
+
+    /**
+     * Expands {@code node} unless another thread is already doing so, the
+     * tree is full or the state of the node has no children.
+     *
+     * @param node  the leaf to expand.
+     * @param state the state of the leaf.
+     * @return {@code true} if {@code node} has been expanded by this call.
+     */
+    private boolean expand(int node, S state) {
+        if (!firstChildren.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+
+        List<S> children = state.children();
+
+        if (children.isEmpty()) {
+            // Nothing to publish; the node stays a leaf scored directly:
+            return false;
+        }
+
+        int firstChild;
+
+        do {
+            firstChild = size.get();
+
+            if (firstChild + children.size() > states.length) {
+                // The tree is full; the node stays a leaf:
+                return false;
+            }
+        } while (!size.compareAndSet(firstChild,
+                                     firstChild + children.size()));
+
+        for (int i = 0; i < children.size(); i++) {
+            initializeNode(firstChild + i, children.get(i));
+        }
+
+        numbersOfChildren[node] = children.size();
+        // Publishes the children to the other threads:
+        firstChildren.set(node, firstChild);
+        return true;
+    }
+
+    /**
+     * Returns the root child visited the most, preferring the higher value
+     * on ties.
+     *
+     * @param state the root state.
+     * @return the state after the best move, or {@code null} if the root has
+     *         no children.
+     */
+    @SuppressWarnings("unchecked")
+    private S getBestChild(S state) {
+        int firstChild = firstChildren.get(0);
+
+        if (firstChild < 0) {
+            // Not even the root has been expanded:
+            List<S> children = state.children();
+            return children.isEmpty() ? null : children.get(0);
+        }
+
+        int bestChild = firstChild;
+
+        for (int child = firstChild + 1;
+                child < firstChild + numbersOfChildren[0];
+                child++) {
+            int childVisits = visits.get(child);
+            int bestVisits = visits.get(bestChild);
+
+            if (childVisits > bestVisits
+                    || (childVisits == bestVisits
+                        && valueSums.get(child) > valueSums.get(bestChild))) {
+                bestChild = child;
+            }
+        }
+
+        return (S) states[bestChild];
+    }
+
+    /**
+     * Makes {@code state} the root of the tree. If the tree is reused and
+     * {@code state} is a child or a grandchild of the current root, its
+     * subtree is compacted to the beginning of the spare arrays, which then
+     * replace the current ones. Otherwise, the tree is cleared.
+     *
+     * @param state the new root state.
+     */
+    private void setRoot(S state) {
+        int newRoot = treeReuse && size.get() > 0 ? findNode(state) : -1;
+
+        if (newRoot < 0) {
+            clearTree();
+            initializeNode(0, state);
+            size.set(1);
+            return;
+        }
+
+        if (newRoot == 0) {
+            resetExpansions();
+            return;
+        }
+
+        if (spareStates == null) {
+            spareStates = new Object[states.length];
+            spareFirstChildren = new AtomicIntegerArray(states.length);
+            spareNumbersOfChildren = new int[states.length];
+            spareVisits = new AtomicIntegerArray(states.length);
+            spareValueSums = new AtomicLongArray(states.length);
+        }
+
+        // Copy the subtree breadth first so that the children of each node
+        // stay consecutive:
+        spareStates[0] = states[newRoot];
+        spareVisits.set(0, visits.get(newRoot));
+        spareValueSums.set(0, valueSums.get(newRoot));
+        int[] queue = new int[size.get()];
+        queue[0] = newRoot;
+        int newSize = 1;
+
+        for (int head = 0; head < newSize; head++) {
+            int oldNode = queue[head];
+            int firstChild = firstChildren.get(oldNode);
+
+            if (firstChild < 0) {
+                spareFirstChildren.set(head, UNEXPANDED);
+                continue;
+            }
+
+            spareFirstChildren.set(head, newSize);
+            spareNumbersOfChildren[head] = numbersOfChildren[oldNode];
+
+            for (int i = 0; i < numbersOfChildren[oldNode]; i++) {
+                int oldChild = firstChild + i;
+                spareStates[newSize] = states[oldChild];
+                spareVisits.set(newSize, visits.get(oldChild));
+                spareValueSums.set(newSize, valueSums.get(oldChild));
+                queue[newSize++] = oldChild;
+            }
+        }
+
+        Arrays.fill(states, 0, size.get(), null);
+
+        Object[] tmpStates = states;
+        states = spareStates;
+        spareStates = tmpStates;
+
+        AtomicIntegerArray tmpFirstChildren = firstChildren;
+        firstChildren = spareFirstChildren;
+        spareFirstChildren = tmpFirstChildren;
+
+        int[] tmpNumbersOfChildren = numbersOfChildren;
+        numbersOfChildren = spareNumbersOfChildren;
+        spareNumbersOfChildren = tmpNumbersOfChildren;
+
+        AtomicIntegerArray tmpVisits = visits;
+        visits = spareVisits;
+        spareVisits = tmpVisits;
+
+        AtomicLongArray tmpValueSums = valueSums;
+        valueSums = spareValueSums;
+        spareValueSums = tmpValueSums;
+
+        size.set(newSize);
+    }
+
+    /**
+     * Looks for {@code state} among the root, its children and its
+     * grandchildren.
+     *
+     * @param state the state to look for.
+     * @return the index of the node of {@code state}, or -1 if there is no
+     *         such.
+     */
+    private int findNode(S state) {
+        long key = state.getHashKey();
+
+        if (((AbstractState<?, ?>) states[0]).getHashKey() == key) {
+            return 0;
+        }
+
+        int firstChild = firstChildren.get(0);
+
+        for (int i = 0; firstChild >= 0 && i < numbersOfChildren[0]; i++) {
+            int child = firstChild + i;
+
+            if (((AbstractState<?, ?>) states[child]).getHashKey() == key) {
+                return child;
+            }
+
+            int firstGrandchild = firstChildren.get(child);
+
+            for (int j = 0;
+                    firstGrandchild >= 0 && j < numbersOfChildren[child];
+                    j++) {
+                int grandchild = firstGrandchild + j;
+
+                if (((AbstractState<?, ?>) states[grandchild]).getHashKey()
+                        == key) {
+                    return grandchild;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Lets the nodes that could not be expanded in a full tree be expanded
+     * again.
+     */
+    private void resetExpansions() {
+        for (int node = 0; node < size.get(); node++) {
+            firstChildren.compareAndSet(node, EXPANDING, UNEXPANDED);
+        }
+    }
+
+    private void clearTree() {
+        Arrays.fill(states, 0, size.get(), null);
+        size.set(0);
+    }
+
+    private void initializeNode(int node, S state) {
+        states[node] = state;
+        firstChildren.set(node, UNEXPANDED);
+        numbersOfChildren[node] = 0;
+        visits.set(node, 0);
+        valueSums.set(node, 0L);
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity < MINIMUM_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "The requested capacity (" + capacity + ") is too " +
+                    "small. Must be at least " + MINIMUM_CAPACITY + ".");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package net.coderodde.zerosum.ai.impl;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import net.coderodde.zerosum.ai.EvaluatorFunction;
 import net.coderodde.zerosum.ai.AbstractGameEngine;
 import net.coderodde.zerosum.ai.AbstractState;
@@ -28,6 +30,33 @@ public final class MinimaxGameEngine<S extends AbstractState<S, P>,
         super(evaluatorFunction, depth, Integer.MAX_VALUE);
     }
 
+    /**
+     * Constructs this minimax game engine running the parallel tasks in the 
+     * common fork-join pool.
+     * @param evaluatorFunction the evaluator function.
+     * @param depth the search depth.
+     * @param parallelDepth the minimum remaining depth for parallel splitting.
+     */
+    public MinimaxGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                             int depth,
+                             int parallelDepth) {
+        super(evaluatorFunction, depth, parallelDepth);
+    }
+
+    /**
+     * Constructs this minimax game engine.
+     * @param evaluatorFunction the evaluator function.
+     * @param depth the search depth.
+     * @param parallelDepth the minimum remaining depth for parallel splitting.
+     * @param forkJoinPool the pool for running the parallel tasks.
+     */
+    public MinimaxGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                             int depth,
+                             int parallelDepth,
+                             ForkJoinPool forkJoinPool) {
+        super(evaluatorFunction, depth, parallelDepth, forkJoinPool);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -36,13 +65,24 @@ public final class MinimaxGameEngine<S extends AbstractState<S, P>,
                      P minimizingPlayer,
                      P maximizingPlayer,
                      P initialPlayer) {
-        state.setDepth(depth);
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+
+        if (bookState != null) {
+            return bookState;
+        }
+
+        if (state.checkVictory() != null || state.isTerminal()) {
+            // The game is over, there is no move to make:
+            return null;
+        }
+
+        searchStarted();
 
         // Do the game tree search:
-        return makePlyImplTopmost(state,
-                                  minimizingPlayer,
-                                  maximizingPlayer,
-                                  initialPlayer);
+        return searchCompleted(makePlyImplTopmost(state,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  initialPlayer));
     }
 
     private S makePlyImplTopmost(S state, 
@@ -50,12 +90,29 @@ public final class MinimaxGameEngine<S extends AbstractState<S, P>,
                                  P maximizingPlayer,
                                  P currentPlayer) {
         S bestState = null;
+        List<S> children = state.children();
+        P nextPlayer = currentPlayer == maximizingPlayer ? 
+                       minimizingPlayer :
+                       maximizingPlayer;
+        
+        double[] values = 
+                isParallelDepth(depth) ? 
+                searchInParallel(children, 
+                                 (child) -> makePlyImpl(child,
+                                                        depth - 1,
+                                                        minimizingPlayer,
+                                                        maximizingPlayer,
+                                                        nextPlayer)) :
+                null;
 
         if (currentPlayer == maximizingPlayer) {
             double tentativeValue = Double.NEGATIVE_INFINITY;
 
-            for (S childState : state.children()) {
-                double value = makePlyImpl(childState,
+            for (int i = 0; i < children.size(); i++) {
+                S childState = children.get(i);
+                double value = values != null ? 
+                               values[i] :
+                               makePlyImpl(childState,
                                            depth - 1,
                                            minimizingPlayer,
                                            maximizingPlayer,
@@ -70,12 +127,15 @@ public final class MinimaxGameEngine<S extends AbstractState<S, P>,
             // Here, 'initialPlayer == minimizingPlayer'.
             double tentativeValue = Double.POSITIVE_INFINITY;
 
-            for (S childState : state.children()) {
-                double value = makePlyImpl(childState,
+            for (int i = 0; i < children.size(); i++) {
+                S childState = children.get(i);
+                double value = values != null ?
+                               values[i] :
+                               makePlyImpl(childState,
                                            depth - 1,
                                            minimizingPlayer,
                                            maximizingPlayer,
-                                           minimizingPlayer);
+                                           maximizingPlayer);
 
                 if (tentativeValue > value) {
                     tentativeValue = value;
@@ -103,16 +163,45 @@ public final class MinimaxGameEngine<S extends AbstractState<S, P>,
                                P minimizingPlayer,
                                P maximizingPlayer,
                                P currentPlayer) {
-        if (state.getDepth() == 0 
+        visitNode(depth);
+
+        if (depth == 0 
                 || state.checkVictory() != null
                 || state.isTerminal()) {
-            return evaluatorFunction.evaluate(state);
+            return evaluateLeaf(state);
+        }
+
+        List<S> children = state.children();
+
+        if (depth == 1) {
+            // All the children are leaves, evaluate them in one batch:
+            double[] values = evaluateLeaves(children);
+            boolean maximizing = currentPlayer == maximizingPlayer;
+            double tentativeValue = maximizing ?
+                                    Double.NEGATIVE_INFINITY :
+                                    Double.POSITIVE_INFINITY;
+
+            for (int i = 0; i < values.length; i++) {
+                tentativeValue = maximizing ? 
+                                 Math.max(tentativeValue, values[i]) :
+                                 Math.min(tentativeValue, values[i]);
+            }
+
+            return tentativeValue;
+        }
+
+        if (isParallelDepth(depth)) {
+            return makePlyImplParallel(children,
+                                       depth,
+                                       minimizingPlayer,
+                                       maximizingPlayer,
+                                       currentPlayer);
         }
 
         if (currentPlayer == maximizingPlayer) {
             double tentativeValue = Double.NEGATIVE_INFINITY;
 
-            for (S child : state.children()) {
+            for (S child : children) {
                 double value = makePlyImpl(child,
                                            depth - 1,
                                            minimizingPlayer,
@@ -129,12 +218,12 @@ public final class MinimaxGameEngine<S extends AbstractState<S, P>,
             // Here, 'initialPlayer == minimizingPlayer'.
             double tentativeValue = Double.POSITIVE_INFINITY;
 
-            for (S child : state.children()) {
+            for (S child : children) {
                 double value = makePlyImpl(child,
                                            depth - 1,
                                            minimizingPlayer,
                                            maximizingPlayer,
-                                           minimizingPlayer);
+                                           maximizingPlayer);
 
                 if (tentativeValue > value) {
                     tentativeValue = value;
@@ -144,4 +233,46 @@ public final class MinimaxGameEngine<S extends AbstractState<S, P>,
             return tentativeValue;
         }
     }
+
+    /**
+     * Searches all the children in parallel and returns the value of the best
+     * one for the current player.
+     * 
+     * @param children         the children to search.
+     * @param depth            the remaining depth of the parent node.
+     * @param minimizingPlayer the minimizing player.
+     * @param maximizingPlayer the maximizing player.
+     * @param currentPlayer    the player to move in the parent node.
+     * 
+     * @return the value of the best ply.
+     */
+    private double makePlyImplParallel(List<S> children,
+                                       int depth,
+                                       P minimizingPlayer,
+                                       P maximizingPlayer,
+                                       P currentPlayer) {
+        P nextPlayer = currentPlayer == maximizingPlayer ? 
+                       minimizingPlayer : 
+                       maximizingPlayer;
+        
+        double[] values = 
+                searchInParallel(children, 
+                                 (child) -> makePlyImpl(child, 
+                                                        depth - 1,
+                                                        minimizingPlayer,
+                                                        maximizingPlayer,
+                                                        nextPlayer));
+        
+        double tentativeValue = currentPlayer == maximizingPlayer ? 
+                                Double.NEGATIVE_INFINITY :
+                                Double.POSITIVE_INFINITY;
+
+        for (double value : values) {
+            tentativeValue = currentPlayer == maximizingPlayer ? 
+                             Math.max(tentativeValue, value) :
+                             Math.min(tentativeValue, value);
+        }
+
+        return tentativeValue;
+    }
 }
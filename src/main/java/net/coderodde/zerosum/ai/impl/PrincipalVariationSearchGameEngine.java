@@ -1,46 +1,366 @@
 package net.coderodde.zerosum.ai.impl;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import net.coderodde.zerosum.ai.AbstractGameEngine;
 import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.ChildIterator;
 import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.HistoryTable;
+import net.coderodde.zerosum.ai.IntEvaluatorFunction;
+import net.coderodde.zerosum.ai.MutableState;
+import net.coderodde.zerosum.ai.TranspositionTable;
 
 /**
  * This class implements the 
  * <a href="https://en.wikipedia.org/wiki/Principal_variation_search">
- * principal variation search</a> algorithm for game tree search.
+ * principal variation search</a> algorithm for game tree search. The class
+ * is extended only by {@link LazySMPGameEngine}, which runs its search in 
+ * several threads.
  * 
  * @author Rodion "rodde" Efremov
  * @version 1.6 (Sep 13, 2019)
  * @since 1.6 (Sep 13, 2019)
  */
-public final class PrincipalVariationSearchGameEngine 
+public class PrincipalVariationSearchGameEngine 
         <S extends AbstractState<S, P>,
          P extends Enum<P>> 
            extends AbstractGameEngine<S, P> {
 
+    /**
+     * Denotes the absence of aspiration windows: each search starts with the
+     * full window.
+     */
+    public static final double NO_ASPIRATION_WINDOW = 0.0;
+
+    /**
+     * The default factor by which the failed side of an aspiration window is
+     * widened before the re-search.
+     */
+    public static final double DEFAULT_ASPIRATION_WIDENING_FACTOR = 4.0;
+
+    /**
+     * The minimum widening factor of the aspiration windows.
+     */
+    private static final double MINIMUM_ASPIRATION_WIDENING_FACTOR = 2.0;
+
+    /**
+     * The distance of each bound of the initial aspiration window from the 
+     * previous score of the root. The aspiration windows come into play 
+     * during iterative deepening or when the same root is searched again.
+     */
+    private double aspirationWindow = NO_ASPIRATION_WINDOW;
+
+    /**
+     * The factor by which the distance of the failed side of an aspiration 
+     * window from the returned bound grows on each re-search.
+     */
+    private double aspirationWideningFactor = 
+            DEFAULT_ASPIRATION_WIDENING_FACTOR;
+
+    /**
+     * The score of the latest root search, which is a bound only if it fell
+     * outside the window.
+     */
+    private double rootScore;
+    
+    /**
+     * The hash key of the root of the latest search.
+     */
+    private long previousRootKey;
+    
+    /**
+     * The exact scores of the latest searches of the root indexed by the 
+     * parity of their depth. The scores of many evaluator functions swing 
+     * between the odd and the even depths, so that the aspiration window is
+     * centered on the previous score of the same parity.
+     */
+    private final double[] previousRootScores = { Double.NaN, Double.NaN };
+    
+    /**
+     * Set if the evaluator function of the current search is an 
+     * {@link IntEvaluatorFunction}. The integer scores are exact in the 
+     * {@code double} arithmetic of the search, which then uses the null 
+     * windows of width one and stores the win scores relative to the storing
+     * node.
+     */
+    private boolean intScores;
+
     public PrincipalVariationSearchGameEngine(
             EvaluatorFunction<S> evaluatorFunction,
             int depth) {
         super(evaluatorFunction, depth, Integer.MAX_VALUE);
     }
     
+    /**
+     * Constructs this game engine running the parallel tasks in the given 
+     * fork-join pool.
+     * 
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     * @param forkJoinPool      the pool for running the parallel tasks.
+     */
+    PrincipalVariationSearchGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                                       int depth,
+                                       ForkJoinPool forkJoinPool) {
+        super(evaluatorFunction, depth, Integer.MAX_VALUE, forkJoinPool);
+    }
+    
+    public double getAspirationWindow() {
+        return aspirationWindow;
+    }
+    
+    public double getAspirationWideningFactor() {
+        return aspirationWideningFactor;
+    }
+    
+    /**
+     * Sets the distance of each bound of the initial aspiration window from
+     * the previous score of the root. With the integer evaluator functions,
+     * the distance is rounded up to an integer.
+     * 
+     * @param aspirationWindow the initial distance, or 
+     *                         {@link #NO_ASPIRATION_WINDOW} for always 
+     *                         searching with the full window.
+     */
+    public void setAspirationWindow(double aspirationWindow) {
+        if (Double.isNaN(aspirationWindow) || aspirationWindow < 0.0) {
+            throw new IllegalArgumentException(
+                    "The requested aspiration window (" + aspirationWindow + 
+                    ") is too small. Must be at least " + 
+                    NO_ASPIRATION_WINDOW + ".");
+        }
+        
+        this.aspirationWindow = aspirationWindow;
+    }
+    
+    /**
+     * Sets the factor by which the distance of the failed side of an 
+     * aspiration window grows on each re-search. The other side is kept, so
+     * that a fail-low followed by a fail-high does not lose the first 
+     * widening.
+     * 
+     * @param aspirationWideningFactor the widening factor.
+     */
+    public void setAspirationWideningFactor(double aspirationWideningFactor) {
+        if (!(aspirationWideningFactor >= 
+                MINIMUM_ASPIRATION_WIDENING_FACTOR)) {
+            throw new IllegalArgumentException(
+                    "The requested aspiration widening factor (" + 
+                    aspirationWideningFactor + ") is too small. Must be at " +
+                    "least " + MINIMUM_ASPIRATION_WIDENING_FACTOR + ".");
+        }
+        
+        this.aspirationWideningFactor = aspirationWideningFactor;
+    }
+    
+    /**
+     * {@inheritDoc} This engine also forgets the previous scores of the root
+     * used for centering the aspiration windows.
+     */
     @Override
-    public S makePly(S state, 
+    public void newGame() {
+        super.newGame();
+        previousRootKey = 0L;
+        previousRootScores[0] = Double.NaN;
+        previousRootScores[1] = Double.NaN;
+    }
+    
+    @Override
+    public final S makePly(S state, 
                      P minimizingPlayer, 
                      P maximizingPlayer, 
                      P initialPlayer) {
-        state.setDepth(depth);
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+        
+        if (bookState != null) {
+            return bookState;
+        }
+        
+        if (state.checkVictory() != null || state.isTerminal()) {
+            // The game is over, there is no move to make:
+            return null;
+        }
+        
+        searchStarted();
+        int color = initialPlayer == minimizingPlayer ? -1 : 1;
+        
+        // Search with the integer scores and the exact null windows if 
+        // possible:
+        intScores = evaluatorFunction instanceof IntEvaluatorFunction;
+        long rootKey = getHashKey(state, color);
+        S bestState = search(state, color, getPreviousRootScore(rootKey));
+        
+        if (previousRootKey != rootKey) {
+            previousRootKey = rootKey;
+            previousRootScores[0] = Double.NaN;
+            previousRootScores[1] = Double.NaN;
+        }
+        
+        previousRootScores[depth & 1] = rootScore;
+        return searchCompleted(bestState);
+    }
+    
+    /**
+     * Returns the previous exact score of the root. This is the score of the 
+     * latest search of the same depth parity if there is one, and the score
+     * stored in the transposition table otherwise.
+     * 
+     * @param rootKey the hash key of the root state.
+     * @return the previous score of the root, or {@code NaN} if the 
+     *         aspiration windows are off or there is no such score.
+     */
+    private double getPreviousRootScore(long rootKey) {
+        if (aspirationWindow == NO_ASPIRATION_WINDOW) {
+            return Double.NaN;
+        }
         
-        return makePlyImplTopmost(state,
-                                  depth,
-                                  Double.NEGATIVE_INFINITY,
-                                  Double.POSITIVE_INFINITY,
-                                  initialPlayer == minimizingPlayer ? -1 : 1);
+        if (rootKey == previousRootKey 
+                && !Double.isNaN(previousRootScores[depth & 1])) {
+            return previousRootScores[depth & 1];
+        }
+        
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+        
+        if (transpositionTable != null
+                && transpositionTable.probe(rootKey, entry)
+                && entry.getBound() == TranspositionTable.EXACT) {
+            return entry.getScore();
+        }
+        
+        return Double.NaN;
+    }
+    
+    /**
+     * Searches the root {@code state} to the depth of this engine and sets 
+     * {@link #rootScore}.
+     * 
+     * @param state         the root state.
+     * @param color         the color of the player to move in {@code state}.
+     * @param previousScore the score of the previous search of the root, or
+     *                      {@code NaN} for searching with the full window.
+     * @return the state after the best move.
+     */
+    S search(S state, int color, double previousScore) {
+        return Double.isNaN(previousScore) ?
+               searchRoot(state, getMinimumScore(), getMaximumScore(), color) :
+               searchAspirationWindows(state, previousScore, color);
+    }
+    
+    /**
+     * Searches {@code state} to the depth {@code depth} with the full window
+     * like a node below the root. The result is left in the transposition
+     * table, if any, for the other searches of the same root. The history
+     * table is neither consulted nor updated, so that it can be left to a 
+     * concurrent search of the root.
+     * 
+     * @param state the root state.
+     * @param depth the depth of the search.
+     * @param color the color of the player to move in {@code state}.
+     */
+    @SuppressWarnings("unchecked")
+    final void searchSubtree(S state, int depth, int color) {
+        if (!(state instanceof MutableState)) {
+            makePlyImpl(state, 
+                        depth, 
+                        getMinimumScore(), 
+                        getMaximumScore(), 
+                        color, 
+                        0,
+                        null);
+            return;
+        }
+        
+        S searchState = ((MutableState<S>) state).copy();
+        MutableState<S> mutableState = (MutableState<S>) searchState;
+        int[][] moves = 
+                new int[depth + 1][mutableState.getMaximumNumberOfMoves()];
+        
+        makePlyImplInPlace(searchState,
+                           mutableState,
+                           moves,
+                           null,
+                           depth,
+                           getMinimumScore(),
+                           getMaximumScore(),
+                           color,
+                           0,
+                           new TranspositionTable.Entry());
+    }
+    
+    /**
+     * Counts a visited node and aborts the search if it has been stopped. 
+     * Called on entering each node below the root.
+     * 
+     * @param depth the remaining depth of the node.
+     */
+    void visitSearchNode(int depth) {
+        visitNode(depth);
+    }
+    
+    /**
+     * Searches the root with aspiration windows around the previous score of
+     * the root. Whenever the score falls outside the window, the failed side 
+     * is moved beyond the returned bound by a distance growing by the 
+     * widening factor, and the root is searched again. With the integer 
+     * scores, the distances are rounded up and the window bounds are clamped
+     * to the infinite scores.
+     * 
+     * @param state         the root state.
+     * @param previousScore the score of the previous search of the root.
+     * @param color         the color of the player to move in {@code state}.
+     * @return the state after the best move.
+     */
+    private S searchAspirationWindows(S state, 
+                                      double previousScore, 
+                                      int color) {
+        double lowerDelta = roundDistance(aspirationWindow);
+        double upperDelta = roundDistance(aspirationWindow);
+        double alpha = clampScore(previousScore - lowerDelta);
+        double beta = clampScore(previousScore + upperDelta);
+        
+        while (true) {
+            S bestState = searchRoot(state, alpha, beta, color);
+            
+            if (rootScore <= alpha && alpha > getMinimumScore()) {
+                lowerDelta = 
+                        roundDistance(lowerDelta * aspirationWideningFactor);
+                alpha = clampScore(rootScore - lowerDelta);
+            } else if (rootScore >= beta && beta < getMaximumScore()) {
+                upperDelta = 
+                        roundDistance(upperDelta * aspirationWideningFactor);
+                beta = clampScore(rootScore + upperDelta);
+            } else {
+                return bestState;
+            }
+            
+            countAspirationReSearch();
+        }
+    }
+    
+    /**
+     * Searches the root with the window {@code (alpha, beta)}, making and 
+     * unmaking the moves if the state supports it.
+     * 
+     * @param state the root state.
+     * @param alpha the alpha cutoff value.
+     * @param beta  the beta cutoff value.
+     * @param color the color of the player to move in {@code state}.
+     * @return the state after the best move.
+     */
+    private S searchRoot(S state, double alpha, double beta, int color) {
+        if (state instanceof MutableState) {
+            // Make and unmake the moves on a single copy of the state:
+            return makePlyInPlace(state, alpha, beta, color);
+        }
+        
+        return makePlyImplTopmost(state, depth, alpha, beta, color);
     }
     
     /**
      * Performs the search directly under the root node denoted by 
-     * {@code state].
+     * {@code state]. Since the scores are negated on each level, the best 
+     * move maximizes the score for both players.
      * 
      * @param state the root state of the game tree to search.
      * @param depth the total depth of the search.
@@ -55,64 +375,53 @@ public final class PrincipalVariationSearchGameEngine
                                  double alpha,
                                  double beta,
                                  int color) {
-        boolean firstChild = true;
+        double originalAlpha = alpha;
         S bestState = null;
-        double tentativeScore = color == -1 ?
-                                Double.POSITIVE_INFINITY :
-                                Double.NEGATIVE_INFINITY;
+        int bestIndex = TranspositionTable.NO_MOVE;
+        double tentativeScore = Double.NEGATIVE_INFINITY;
+        List<S> children = state.children();
+        int hashMove = getHashMove(state, color);
         
-        for (S child : state.children()) {
+        for (int i = 0; i < children.size(); i++) {
+            int childIndex = getSearchIndex(i, hashMove, children.size());
+            S child = children.get(childIndex);
             double score;
             
-            if (firstChild) {
-                firstChild = false;
+            if (i == 0) {
                 score = -makePlyImpl(child, 
                                      depth - 1, 
                                      -beta, 
                                      -alpha,
-                                     -color);
-                bestState = child;
-                tentativeScore = score;
+                                     -color,
+                                     1,
+                                     historyTable);
             } else {
                 score = -makePlyImpl(child, 
                                      depth - 1, 
-                                     -alpha - 1.0, 
+                                     -getNullWindowBeta(alpha), 
                                      -alpha,
-                                     -color);
-                
-                if (color == -1) {
-                    if (tentativeScore > score) {
-                        tentativeScore = score;
-                        bestState = child;
-                    }
-                } else {
-                    if (tentativeScore < score) {
-                        tentativeScore = score;
-                        bestState = child;
-                    }
-                }
+                                     -color,
+                                     1,
+                                     historyTable);
                 
                 if (alpha < score && score < beta) {
+                    countReSearch();
                     score = -makePlyImpl(child, 
                                          depth - 1,
                                          -beta,
                                          -score,
-                                         -color);
-                    
-                    if (color == -1) {
-                        if (tentativeScore > score) {
-                            tentativeScore = score;
-                            bestState = child;
-                        }
-                    } else {
-                        if (tentativeScore < score) {
-                            tentativeScore = score;
-                            bestState = child;
-                        }
-                    }
+                                         -color,
+                                         1,
+                                         historyTable);
                 }
             }
             
+            if (i == 0 || tentativeScore < score) {
+                tentativeScore = score;
+                bestState = child;
+                bestIndex = childIndex;
+            }
+            
             if (alpha < score) {
                 alpha = score;
             }
@@ -122,55 +431,539 @@ public final class PrincipalVariationSearchGameEngine
             }
         }
         
+        rootScore = tentativeScore;
+        storeRoot(state, depth, originalAlpha, beta, color, bestIndex);
         return bestState;
     }
     
+    /**
+     * Searches the subtree rooted at {@code state}.
+     * 
+     * @param state        the root of the subtree.
+     * @param depth        the remaining depth.
+     * @param alpha        the alpha cut-off.
+     * @param beta         the beta cut-off.
+     * @param color        the color of the player to move.
+     * @param ply          the distance of {@code state} from the root.
+     * @param historyTable the history table, or {@code null} for searching
+     *                     without one.
+     * @return the score of {@code state} from the point of view of the player
+     *         to move.
+     */
     private double makePlyImpl(S state,
                                int depth,
                                double alpha,
                                double beta,
-                               int color) {
-        if (state.getDepth() == 0 
+                               int color,
+                               int ply,
+                               HistoryTable historyTable) {
+        visitSearchNode(depth);
+
+        if (depth == 0 
                 || state.checkVictory() != null
                 || state.isTerminal()) {
-            return color * evaluatorFunction.evaluate(state);
+            return color * evaluate(state, ply);
+        }
+        
+        long key = 0L;
+        int hashMove = TranspositionTable.NO_MOVE;
+        
+        if (transpositionTable != null) {
+            TranspositionTable.Entry entry = new TranspositionTable.Entry();
+            key = getHashKey(state, color);
+            
+            if (transpositionTable.probe(key, entry)) {
+                hashMove = entry.getBestMove();
+                
+                if (entry.getDepth() >= depth) {
+                    double score = fromTableScore(entry.getScore(), ply);
+                    
+                    switch (entry.getBound()) {
+                        case TranspositionTable.EXACT:
+                            return score;
+                            
+                        case TranspositionTable.LOWER_BOUND:
+                            alpha = Math.max(alpha, score);
+                            break;
+                            
+                        case TranspositionTable.UPPER_BOUND:
+                            beta = Math.min(beta, score);
+                            break;
+                    }
+                    
+                    if (alpha >= beta) {
+                        return score;
+                    }
+                }
+            }
         }
         
-        boolean firstChild = true;
+        double originalAlpha = alpha;
+        int bestIndex = TranspositionTable.NO_MOVE;
+        // The hash move first, then the killer moves or the lazy stages:
+        ChildIterator<S> children = 
+                orderedChildIterator(state, hashMove, ply, historyTable);
         
-        for (S child : state.children()) {
+        for (int position = 0; children.hasNext(); position++) {
+            S child = children.next();
             double score;
             
-            if (firstChild) {
-                firstChild = false;
+            if (position == 0) {
+                bestIndex = children.index();
                 score = -makePlyImpl(child, 
                                      depth - 1, 
                                      -beta, 
                                      -alpha,
-                                     -color);
+                                     -color,
+                                     ply + 1,
+                                     historyTable);
             } else {
                 score = -makePlyImpl(child, 
                                      depth - 1, 
-                                     -alpha - 1.0, 
+                                     -getNullWindowBeta(alpha), 
                                      -alpha,
-                                     -color);
+                                     -color,
+                                     ply + 1,
+                                     historyTable);
                 
                 if (alpha < score && score < beta) {
+                    countReSearch();
                     score = -makePlyImpl(child, 
                                          depth - 1,
                                          -beta,
                                          -score,
-                                         -color);
+                                         -color,
+                                         ply + 1,
+                                         historyTable);
                 }
             }
             
-            alpha = Math.max(alpha, score);
+            if (alpha < score) {
+                alpha = score;
+                bestIndex = children.index();
+            }
             
             if (alpha >= beta) {
+                countCutoff(position);
+                
+                if (historyTable != null) {
+                    historyTable.recordCutoff(
+                            ply, 
+                            state.getMoveId(children.index()), 
+                            depth);
+                }
+                
                 break;
             }
         }
         
+        store(key, depth, alpha, originalAlpha, beta, bestIndex, ply);
         return alpha;
     }
+    
+    /**
+     * Performs the search on a private copy of {@code state} by making and 
+     * unmaking the moves instead of materializing the children. The move 
+     * codes of each level are generated into a preallocated array, so the 
+     * search itself does not allocate.
+     * 
+     * @param state the root state. Must implement {@link MutableState}.
+     * @param alpha the alpha cutoff value.
+     * @param beta  the beta cutoff value.
+     * @param color the color. -1 for minimizing player, +1 for maximizing
+     *              player.
+     * @return the state after the best move, or {@code null} if there is no
+     *         move.
+     */
+    @SuppressWarnings("unchecked")
+    private S makePlyInPlace(S state, double alpha, double beta, int color) {
+        S searchState = ((MutableState<S>) state).copy();
+        MutableState<S> mutableState = (MutableState<S>) searchState;
+        int[][] moves = 
+                new int[depth + 1][mutableState.getMaximumNumberOfMoves()];
+        
+        int[][] orders = historyTable == null ?
+                null :
+                new int[depth + 1][mutableState.getMaximumNumberOfMoves()];
+        
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+        int[] rootMoves = moves[depth];
+        int numberOfMoves = mutableState.generateMoves(rootMoves);
+        
+        if (numberOfMoves == 0) {
+            // Like the children list, there is no move to return:
+            return null;
+        }
+        
+        int hashMove = getHashMove(state, color);
+        double originalAlpha = alpha;
+        double tentativeScore = Double.NEGATIVE_INFINITY;
+        int bestIndex = 0;
+        
+        for (int i = 0; i < numberOfMoves; i++) {
+            int moveIndex = getSearchIndex(i, hashMove, numberOfMoves);
+            int move = rootMoves[moveIndex];
+            double score;
+            
+            mutableState.makeMove(move);
+            
+            if (i == 0) {
+                score = -makePlyImplInPlace(searchState,
+                                            mutableState,
+                                            moves,
+                                            orders,
+                                            depth - 1,
+                                            -beta,
+                                            -alpha,
+                                            -color,
+                                            1,
+                                            entry);
+            } else {
+                score = -makePlyImplInPlace(searchState,
+                                            mutableState,
+                                            moves,
+                                            orders,
+                                            depth - 1,
+                                            -getNullWindowBeta(alpha),
+                                            -alpha,
+                                            -color,
+                                            1,
+                                            entry);
+                
+                if (alpha < score && score < beta) {
+                    countReSearch();
+                    score = -makePlyImplInPlace(searchState,
+                                                mutableState,
+                                                moves,
+                                                orders,
+                                                depth - 1,
+                                                -beta,
+                                                -score,
+                                                -color,
+                                                1,
+                                                entry);
+                }
+            }
+            
+            mutableState.unmakeMove(move);
+            
+            if (i == 0 || tentativeScore < score) {
+                tentativeScore = score;
+                bestIndex = moveIndex;
+            }
+            
+            if (alpha < score) {
+                alpha = score;
+            }
+            
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        
+        rootScore = tentativeScore;
+        storeRoot(state, depth, originalAlpha, beta, color, bestIndex);
+        S bestState = ((MutableState<S>) state).copy();
+        ((MutableState<S>) bestState).makeMove(rootMoves[bestIndex]);
+        return bestState;
+    }
+    
+    /**
+     * Searches the subtree rooted at {@code state} in place.
+     * 
+     * @param state        the root of the subtree.
+     * @param mutableState the same state as {@code state}.
+     * @param moves        the move code arrays indexed by the remaining depth.
+     * @param orders       the search order arrays indexed by the remaining 
+     *                     depth, or {@code null} without a history table.
+     * @param depth        the remaining depth.
+     * @param alpha        the alpha cut-off.
+     * @param beta         the beta cut-off.
+     * @param color        the color of the player to move.
+     * @param ply          the distance of {@code state} from the root.
+     * @param entry        the transposition table entry buffer.
+     * @return the score of {@code state} from the point of view of the player
+     *         to move.
+     */
+    private double makePlyImplInPlace(S state,
+                                      MutableState<S> mutableState,
+                                      int[][] moves,
+                                      int[][] orders,
+                                      int depth,
+                                      double alpha,
+                                      double beta,
+                                      int color,
+                                      int ply,
+                                      TranspositionTable.Entry entry) {
+        visitSearchNode(depth);
+        
+        if (depth == 0 
+                || state.checkVictory() != null
+                || state.isTerminal()) {
+            return color * evaluate(state, ply);
+        }
+        
+        long key = 0L;
+        int hashMove = TranspositionTable.NO_MOVE;
+        
+        if (transpositionTable != null) {
+            key = getHashKey(state, color);
+            
+            if (transpositionTable.probe(key, entry)) {
+                hashMove = entry.getBestMove();
+                
+                if (entry.getDepth() >= depth) {
+                    double score = fromTableScore(entry.getScore(), ply);
+                    
+                    switch (entry.getBound()) {
+                        case TranspositionTable.EXACT:
+                            return score;
+                            
+                        case TranspositionTable.LOWER_BOUND:
+                            alpha = Math.max(alpha, score);
+                            break;
+                            
+                        case TranspositionTable.UPPER_BOUND:
+                            beta = Math.min(beta, score);
+                            break;
+                    }
+                    
+                    if (alpha >= beta) {
+                        return score;
+                    }
+                }
+            }
+        }
+        
+        double originalAlpha = alpha;
+        int bestIndex = TranspositionTable.NO_MOVE;
+        int[] stateMoves = moves[depth];
+        int numberOfMoves = mutableState.generateMoves(stateMoves);
+        int[] order = null;
+        
+        if (orders != null) {
+            order = orders[depth];
+            historyTable.orderMoves(stateMoves, 
+                                    numberOfMoves, 
+                                    hashMove, 
+                                    ply, 
+                                    order);
+        }
+        
+        for (int i = 0; i < numberOfMoves; i++) {
+            int moveIndex = order != null ?
+                            order[i] :
+                            getSearchIndex(i, hashMove, numberOfMoves);
+            int move = stateMoves[moveIndex];
+            double score;
+            
+            mutableState.makeMove(move);
+            
+            if (i == 0) {
+                bestIndex = moveIndex;
+                score = -makePlyImplInPlace(state,
+                                            mutableState,
+                                            moves,
+                                            orders,
+                                            depth - 1,
+                                            -beta,
+                                            -alpha,
+                                            -color,
+                                            ply + 1,
+                                            entry);
+            } else {
+                score = -makePlyImplInPlace(state,
+                                            mutableState,
+                                            moves,
+                                            orders,
+                                            depth - 1,
+                                            -getNullWindowBeta(alpha),
+                                            -alpha,
+                                            -color,
+                                            ply + 1,
+                                            entry);
+                
+                if (alpha < score && score < beta) {
+                    countReSearch();
+                    score = -makePlyImplInPlace(state,
+                                                mutableState,
+                                                moves,
+                                                orders,
+                                                depth - 1,
+                                                -beta,
+                                                -score,
+                                                -color,
+                                                ply + 1,
+                                                entry);
+                }
+            }
+            
+            mutableState.unmakeMove(move);
+            
+            if (alpha < score) {
+                alpha = score;
+                bestIndex = moveIndex;
+            }
+            
+            if (alpha >= beta) {
+                countCutoff(i);
+                
+                if (order != null) {
+                    historyTable.recordCutoff(ply, move, depth);
+                }
+                
+                break;
+            }
+        }
+        
+        store(key, depth, alpha, originalAlpha, beta, bestIndex, ply);
+        return alpha;
+    }
+    
+    /**
+     * Returns the best move of {@code state} stored in the transposition 
+     * table.
+     * 
+     * @param state the state.
+     * @param color the color of the player to move in {@code state}.
+     * @return the index of the best child or 
+     *         {@link TranspositionTable#NO_MOVE}.
+     */
+    private int getHashMove(S state, int color) {
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+        
+        if (transpositionTable != null 
+                && transpositionTable.probe(getHashKey(state, color), entry)) {
+            return entry.getBestMove();
+        }
+        
+        return TranspositionTable.NO_MOVE;
+    }
+    
+    /**
+     * Stores the result of a root search in the transposition table, if 
+     * any.
+     * 
+     * @param state     the root state.
+     * @param depth     the depth of the search.
+     * @param alpha     the alpha value the search started with.
+     * @param beta      the beta value the search started with.
+     * @param color     the color of the player to move in {@code state}.
+     * @param bestIndex the index of the best move.
+     */
+    private void storeRoot(S state, 
+                           int depth, 
+                           double alpha, 
+                           double beta, 
+                           int color, 
+                           int bestIndex) {
+        if (transpositionTable != null) {
+            transpositionTable.store(
+                    getHashKey(state, color),
+                    depth,
+                    TranspositionTable.getBound(rootScore, alpha, beta),
+                    rootScore,
+                    bestIndex);
+        }
+    }
+    
+    /**
+     * Stores the score {@code score} of a node in the transposition table, if
+     * any.
+     * 
+     * @param key       the hash key of the node.
+     * @param depth     the remaining depth of the node.
+     * @param score     the score of the node.
+     * @param alpha     the alpha value the node started with.
+     * @param beta      the beta value the node started with.
+     * @param bestIndex the index of the best move.
+     * @param ply       the distance of the node from the root.
+     */
+    private void store(long key, 
+                       int depth, 
+                       double score, 
+                       double alpha, 
+                       double beta, 
+                       int bestIndex, 
+                       int ply) {
+        if (transpositionTable != null) {
+            transpositionTable.store(
+                    key,
+                    depth,
+                    TranspositionTable.getBound(score, alpha, beta),
+                    toTableScore(score, ply),
+                    bestIndex);
+        }
+    }
+    
+    /**
+     * Evaluates a leaf. The integer scores have their win scores moved 
+     * towards zero by the distance of the leaf from the root.
+     * 
+     * @param state the leaf state.
+     * @param ply   the distance of the leaf from the root.
+     * @return the score of the leaf.
+     */
+    private double evaluate(S state, int ply) {
+        return intScores ? evaluateLeafInt(state, ply) : evaluateLeaf(state);
+    }
+    
+    /**
+     * Returns the upper bound of the null window above {@code alpha}, which 
+     * is the least score greater than {@code alpha}.
+     * 
+     * @param alpha the alpha cut-off.
+     * @return the beta cut-off of the null window.
+     */
+    private double getNullWindowBeta(double alpha) {
+        return intScores ? alpha + 1.0 : Math.nextUp(alpha);
+    }
+    
+    /**
+     * Converts a score stored in the transposition table by a node at the 
+     * distance {@code ply} from the root to the score of the node. The win 
+     * scores of the integer scores are stored relative to the storing node.
+     * 
+     * @param score the stored score.
+     * @param ply   the distance of the node from the root.
+     * @return the score of the node.
+     */
+    private double fromTableScore(double score, int ply) {
+        return intScores ? 
+               IntEvaluatorFunction.addWinDistance((int) score, ply) : 
+               score;
+    }
+    
+    /**
+     * Undoes {@link #fromTableScore(double, int)}.
+     * 
+     * @param score the score of the node.
+     * @param ply   the distance of the node from the root.
+     * @return the score to store.
+     */
+    private double toTableScore(double score, int ply) {
+        return intScores ? 
+               IntEvaluatorFunction.removeWinDistance((int) score, ply) : 
+               score;
+    }
+    
+    private double getMinimumScore() {
+        return intScores ? 
+               -IntEvaluatorFunction.INFINITE_SCORE : 
+               Double.NEGATIVE_INFINITY;
+    }
+    
+    private double getMaximumScore() {
+        return intScores ? 
+               IntEvaluatorFunction.INFINITE_SCORE : 
+               Double.POSITIVE_INFINITY;
+    }
+    
+    private double roundDistance(double distance) {
+        return intScores ? Math.ceil(distance) : distance;
+    }
+    
+    private double clampScore(double score) {
+        return Math.max(getMinimumScore(), Math.min(getMaximumScore(), score));
+    }
 }
@@ -1,9 +1,13 @@
 package net.coderodde.zerosum.ai.impl;
 
+import java.util.AbstractList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import net.coderodde.zerosum.ai.EvaluatorFunction;
 import net.coderodde.zerosum.ai.AbstractGameEngine;
 import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.ChildIterator;
+import net.coderodde.zerosum.ai.TranspositionTable;
 
 /**
  * This class implements the 
@@ -22,6 +26,26 @@ public final class SortingAlphaBetaPruningGameEngine
          P extends Enum<P>>
            extends AbstractGameEngine<S, P> {
 
+    /**
+     * The minimum sorting depth.
+     */
+    private static final int MINIMUM_SORTING_DEPTH = 1;
+
+    /**
+     * The default sorting depth. The children of the depth-1 nodes are 
+     * leaves, so sorting them means evaluating all of them, which forgoes the
+     * cut-offs among them.
+     */
+    private static final int DEFAULT_SORTING_DEPTH = 2;
+
+    /**
+     * The minimum remaining depth at which the children are sorted. Below it,
+     * the children are searched in their natural order. At the sorting depth
+     * of one, the depth-1 nodes evaluate all their leaf children in a single
+     * batch, which pays off with the evaluators supporting batches.
+     */
+    private int sortingDepth = DEFAULT_SORTING_DEPTH;
+
     /**
      * Constructs this minimax game engine.
      * @param evaluatorFunction the evaluator function.
@@ -33,6 +57,43 @@ public final class SortingAlphaBetaPruningGameEngine
         super(evaluatorFunction, depth, Integer.MAX_VALUE);
     }
 
+    /**
+     * Constructs this game engine running the parallel tasks in the common 
+     * fork-join pool.
+     * @param evaluatorFunction the evaluator function.
+     * @param depth the search depth.
+     * @param parallelDepth the minimum remaining depth for parallel splitting.
+     */
+    public SortingAlphaBetaPruningGameEngine(
+            EvaluatorFunction<S> evaluatorFunction,
+            int depth,
+            int parallelDepth) {
+        super(evaluatorFunction, depth, parallelDepth);
+    }
+
+    /**
+     * Constructs this game engine.
+     * @param evaluatorFunction the evaluator function.
+     * @param depth the search depth.
+     * @param parallelDepth the minimum remaining depth for parallel splitting.
+     * @param forkJoinPool the pool for running the parallel tasks.
+     */
+    public SortingAlphaBetaPruningGameEngine(
+            EvaluatorFunction<S> evaluatorFunction,
+            int depth,
+            int parallelDepth,
+            ForkJoinPool forkJoinPool) {
+        super(evaluatorFunction, depth, parallelDepth, forkJoinPool);
+    }
+
+    public int getSortingDepth() {
+        return sortingDepth;
+    }
+
+    public void setSortingDepth(int sortingDepth) {
+        this.sortingDepth = checkSortingDepth(sortingDepth);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -40,16 +101,27 @@ public final class SortingAlphaBetaPruningGameEngine
                      P minimizingPlayer,
                      P maximizingPlayer,
                      P initialPlayer) {
-        state.setDepth(depth);
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+
+        if (bookState != null) {
+            return bookState;
+        }
+
+        if (state.checkVictory() != null || state.isTerminal()) {
+            // The game is over, there is no move to make:
+            return null;
+        }
+
+        searchStarted();
 
         // Do the game tree search with Alpha-beta pruning:
-        return makePlyImplTopmost(state,
-                                  depth,
-                                  Double.NEGATIVE_INFINITY,
-                                  Double.POSITIVE_INFINITY,
-                                  minimizingPlayer,
-                                  maximizingPlayer,
-                                  initialPlayer);
+        return searchCompleted(makePlyImplTopmost(state,
+                                                  depth,
+                                                  Double.NEGATIVE_INFINITY,
+                                                  Double.POSITIVE_INFINITY,
+                                                  minimizingPlayer,
+                                                  maximizingPlayer,
+                                                  initialPlayer));
     }
 
     /**
@@ -72,19 +144,40 @@ public final class SortingAlphaBetaPruningGameEngine
                                  P maximizingPlayer,
                                  P currentPlayer) {
         S bestState = null;
+        int bestIndex = TranspositionTable.NO_MOVE;
         List<S> children = state.children();
+        int hashMove = isParallelDepth(depth) ?
+                       TranspositionTable.NO_MOVE :
+                       getHashMove(state, currentPlayer, maximizingPlayer);
+
+        // No point in sorting the children searched all at once, their
+        // natural order only breaks the ties:
+        MoveOrder order = isParallelDepth(depth) ?
+                          new MoveOrder(children.size(), null, hashMove) :
+                          getMoveOrder(children, 
+                                       depth,
+                                       currentPlayer == maximizingPlayer,
+                                       hashMove);
 
         if (currentPlayer == maximizingPlayer) {
-            children.sort((a, b) -> {
-                double valueOfA = super.evaluatorFunction.evaluate(a);
-                double valueOfB = super.evaluatorFunction.evaluate(b);
-                return Double.compare(valueOfB, valueOfA);
-            });
+            double[] values = isParallelDepth(depth) ?
+                              makePlyImplRootParallel(children,
+                                                      depth,
+                                                      alpha,
+                                                      beta,
+                                                      minimizingPlayer,
+                                                      maximizingPlayer,
+                                                      minimizingPlayer) :
+                              null;
 
             double tentativeValue = Double.NEGATIVE_INFINITY;
 
-            for (S childState : children) {
-                double value = makePlyImpl(childState,
+            while (order.hasNext()) {
+                int childIndex = order.next();
+                S childState = children.get(childIndex);
+                double value = values != null ?
+                               values[childIndex] :
+                               makePlyImpl(childState,
                                            depth - 1,
                                            alpha,
                                            beta,
@@ -95,6 +188,7 @@ public final class SortingAlphaBetaPruningGameEngine
                 if (tentativeValue < value) {
                     tentativeValue = value;
                     bestState = childState;
+                    bestIndex = childIndex;
                 }
 
                 alpha = Math.max(alpha, tentativeValue);
@@ -103,28 +197,39 @@ public final class SortingAlphaBetaPruningGameEngine
                     return bestState;
                 }
             }
+
+            storeRoot(state, depth, tentativeValue, bestIndex, 1);
         } else {
             // Here, 'initialPlayer == minimizingPlayer'.
-            children.sort((a, b) -> {
-                double valueOfA = super.evaluatorFunction.evaluate(a);
-                double valueOfB = super.evaluatorFunction.evaluate(b);
-                return Double.compare(valueOfA, valueOfB);
-            });
+            double[] values = isParallelDepth(depth) ?
+                              makePlyImplRootParallel(children,
+                                                      depth,
+                                                      alpha,
+                                                      beta,
+                                                      minimizingPlayer,
+                                                      maximizingPlayer,
+                                                      maximizingPlayer) :
+                              null;
 
             double tentativeValue = Double.POSITIVE_INFINITY;
 
-            for (S childState : children) {
-                double value = makePlyImpl(childState,
+            while (order.hasNext()) {
+                int childIndex = order.next();
+                S childState = children.get(childIndex);
+                double value = values != null ?
+                               values[childIndex] :
+                               makePlyImpl(childState,
                                            depth - 1,
                                            alpha,
                                            beta,
                                            minimizingPlayer,
                                            maximizingPlayer,
-                                           minimizingPlayer);
+                                           maximizingPlayer);
 
                 if (tentativeValue > value) {
                     tentativeValue = value;
                     bestState = childState;
+                    bestIndex = childIndex;
                 }
 
                 beta = Math.min(beta, tentativeValue);
@@ -133,11 +238,89 @@ public final class SortingAlphaBetaPruningGameEngine
                     return bestState;
                 }
             }
+
+            storeRoot(state, depth, tentativeValue, bestIndex, -1);
         }
 
         return bestState;
     }
 
+    /**
+     * Returns the best move of {@code state} stored in the transposition 
+     * table.
+     * 
+     * @param state            the state.
+     * @param currentPlayer    the player to move in {@code state}.
+     * @param maximizingPlayer the maximizing player.
+     * @return the index of the best child or 
+     *         {@link TranspositionTable#NO_MOVE}.
+     */
+    private int getHashMove(S state, P currentPlayer, P maximizingPlayer) {
+        TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+        if (transpositionTable != null 
+                && transpositionTable.probe(
+                        getHashKey(state, 
+                                   currentPlayer == maximizingPlayer ? 1 : -1),
+                        entry)) {
+            return entry.getBestMove();
+        }
+
+        return TranspositionTable.NO_MOVE;
+    }
+
+    /**
+     * Stores the exact result of the root search in the transposition table.
+     * 
+     * @param state     the root state.
+     * @param depth     the search depth.
+     * @param value     the value of the root state.
+     * @param bestIndex the index of the best child.
+     * @param color     the color of the player to move at the root.
+     */
+    private void storeRoot(S state, 
+                           int depth, 
+                           double value, 
+                           int bestIndex, 
+                           int color) {
+        if (transpositionTable != null) {
+            transpositionTable.store(getHashKey(state, color),
+                                     depth,
+                                     TranspositionTable.EXACT,
+                                     value,
+                                     bestIndex);
+        }
+    }
+
+    /**
+     * Searches all the root moves in parallel with the full window.
+     * 
+     * @param children         the children of the root state.
+     * @param depth            the depth of the tree to search.
+     * @param alpha            the alpha cut-off value.
+     * @param beta             the beta cut-off value.
+     * @param minimizingPlayer the minimizing player color.
+     * @param maximizingPlayer the maximizing player color.
+     * @param nextPlayer       the player to move in the children.
+     * @return the values of the root moves.
+     */
+    private double[] makePlyImplRootParallel(List<S> children,
+                                             int depth,
+                                             double alpha,
+                                             double beta,
+                                             P minimizingPlayer,
+                                             P maximizingPlayer,
+                                             P nextPlayer) {
+        return searchInParallel(children,
+                                (child) -> makePlyImpl(child,
+                                                       depth - 1,
+                                                       alpha,
+                                                       beta,
+                                                       minimizingPlayer,
+                                                       maximizingPlayer,
+                                                       nextPlayer));
+    }
+
     /**
      * Performs a single step down the game tree.
      * 
@@ -158,75 +341,405 @@ public final class SortingAlphaBetaPruningGameEngine
                                P minimizingPlayer,
                                P maximizingPlayer,
                                P currentPlayer) {
-        if (state.getDepth() == 0 
+        visitNode(depth);
+
+        if (depth == 0 
                 || state.checkVictory() != null
                 || state.isTerminal()) {
-            return evaluatorFunction.evaluate(state);
+            return evaluateLeaf(state);
         }
 
-        List<S> children = state.children();
+        if (isParallelDepth(depth)) {
+            // No point in sorting the children searched all at once. The split
+            // nodes are few, so they bypass the transposition table as well:
+            return makePlyImplParallel(state.children(),
+                                       depth,
+                                       alpha,
+                                       beta,
+                                       minimizingPlayer,
+                                       maximizingPlayer,
+                                       currentPlayer);
+        }
 
-        if (currentPlayer == maximizingPlayer) {
-            children.sort((a, b) -> {
-                double valueOfA = super.evaluatorFunction.evaluate(a);
-                double valueOfB = super.evaluatorFunction.evaluate(b);
-                return Double.compare(valueOfB, valueOfA);
-            });
+        long key = 0L;
+        int hashMove = TranspositionTable.NO_MOVE;
 
-            double tentativeValue = Double.NEGATIVE_INFINITY;
+        if (transpositionTable != null) {
+            TranspositionTable.Entry entry = new TranspositionTable.Entry();
+            key = getHashKey(state, 
+                             currentPlayer == maximizingPlayer ? 1 : -1);
+
+            if (transpositionTable.probe(key, entry)) {
+                hashMove = entry.getBestMove();
+
+                if (entry.getDepth() >= depth) {
+                    double value = entry.getScore();
+
+                    switch (entry.getBound()) {
+                        case TranspositionTable.EXACT:
+                            return value;
+
+                        case TranspositionTable.LOWER_BOUND:
+                            alpha = Math.max(alpha, value);
+                            break;
 
-            for (S child : children) {
-                double value = makePlyImpl(child,
+                        case TranspositionTable.UPPER_BOUND:
+                            beta = Math.min(beta, value);
+                            break;
+                    }
+
+                    if (alpha >= beta) {
+                        return value;
+                    }
+                }
+            }
+        }
+
+        double originalAlpha = alpha;
+        double originalBeta = beta;
+        boolean maximizing = currentPlayer == maximizingPlayer;
+        P nextPlayer = maximizing ? minimizingPlayer : maximizingPlayer;
+        double tentativeValue = maximizing ? 
+                                Double.NEGATIVE_INFINITY :
+                                Double.POSITIVE_INFINITY;
+        int bestIndex = TranspositionTable.NO_MOVE;
+
+        if (depth == 1 && sortingDepth == 1) {
+            // All the children are leaves, evaluate them in one batch:
+            double[] values = evaluateLeaves(state.children());
+
+            for (int i = 0; i < values.length; i++) {
+                if (maximizing ? 
+                        tentativeValue < values[i] : 
+                        tentativeValue > values[i]) {
+                    tentativeValue = values[i];
+                    bestIndex = i;
+                }
+            }
+        } else if (depth < sortingDepth) {
+            // Not worth sorting, just search the children as they come:
+            ChildIterator<S> iterator = state.childIterator(hashMove);
+
+            for (int position = 0; iterator.hasNext(); position++) {
+                double value = makePlyImpl(iterator.next(),
                                            depth - 1,
-                                           alpha, 
+                                           alpha,
                                            beta,
                                            minimizingPlayer,
                                            maximizingPlayer,
-                                           minimizingPlayer);
+                                           nextPlayer);
 
-                if (tentativeValue < value) {
+                if (maximizing ? 
+                        tentativeValue < value : 
+                        tentativeValue > value) {
                     tentativeValue = value;
+                    bestIndex = iterator.index();
                 }
 
-                alpha = Math.max(alpha, tentativeValue);
+                if (maximizing) {
+                    alpha = Math.max(alpha, tentativeValue);
+                } else {
+                    beta = Math.min(beta, tentativeValue);
+                }
 
                 if (alpha >= beta) {
+                    countCutoff(position);
                     break;
                 }
             }
-
-            return tentativeValue;
         } else {
-            // Here, 'initialPlayer == minimizingPlayer'.
-            children.sort((a, b) -> {
-                double valueOfA = super.evaluatorFunction.evaluate(a);
-                double valueOfB = super.evaluatorFunction.evaluate(b);
-                return Double.compare(valueOfA, valueOfB);
-            });
+            List<S> children = state.children();
+            int position = 0;
+
+            if (hashMove >= 0 && hashMove < children.size()) {
+                // Try the hash move before scoring and sorting the rest of the
+                // children:
+                tentativeValue = makePlyImpl(children.get(hashMove),
+                                             depth - 1,
+                                             alpha,
+                                             beta,
+                                             minimizingPlayer,
+                                             maximizingPlayer,
+                                             nextPlayer);
+                bestIndex = hashMove;
+                position++;
+
+                if (maximizing) {
+                    alpha = Math.max(alpha, tentativeValue);
+                } else {
+                    beta = Math.min(beta, tentativeValue);
+                }
 
-            double tentativeValue = Double.POSITIVE_INFINITY;
+                if (alpha >= beta) {
+                    countCutoff(0);
+                }
+            }
 
-            for (S child : children) {
-                double value = makePlyImpl(child,
-                                           depth - 1,
-                                           alpha,
-                                           beta,
-                                           minimizingPlayer,
-                                           maximizingPlayer,
-                                           minimizingPlayer);
+            if (alpha < beta) {
+                MoveOrder order = 
+                        getMoveOrder(children, depth, maximizing, bestIndex);
 
-                if (tentativeValue > value) {
-                    tentativeValue = value;
+                if (bestIndex != TranspositionTable.NO_MOVE) {
+                    // Skip the hash move searched above:
+                    order.next();
                 }
 
-                beta = Math.min(beta, tentativeValue);
+                for (; order.hasNext(); position++) {
+                    int childIndex = order.next();
+                    double value = makePlyImpl(children.get(childIndex),
+                                               depth - 1,
+                                               alpha,
+                                               beta,
+                                               minimizingPlayer,
+                                               maximizingPlayer,
+                                               nextPlayer);
+
+                    if (maximizing ? 
+                            tentativeValue < value : 
+                            tentativeValue > value) {
+                        tentativeValue = value;
+                        bestIndex = childIndex;
+                    }
+
+                    if (maximizing) {
+                        alpha = Math.max(alpha, tentativeValue);
+                    } else {
+                        beta = Math.min(beta, tentativeValue);
+                    }
+
+                    if (alpha >= beta) {
+                        countCutoff(position);
+                        break;
+                    }
+                }
+            }
+        }
 
-                if (alpha >= beta) {
-                    break;
+        if (transpositionTable != null) {
+            transpositionTable.store(
+                    key,
+                    depth,
+                    TranspositionTable.getBound(tentativeValue,
+                                                originalAlpha,
+                                                originalBeta),
+                    tentativeValue,
+                    bestIndex);
+        }
+
+        return tentativeValue;
+    }
+
+    /**
+     * Returns the order in which to search the children. At the depths of at
+     * least {@link #sortingDepth}, the children are evaluated once in a single
+     * batch, and they are picked from the best to the worst for the player to
+     * move. Otherwise, the children come in their natural order. In both 
+     * cases, the child at {@code firstIndex}, if any, comes first. As that
+     * child is never compared to the rest, it is left out of the batch.
+     * 
+     * @param children   the children to order.
+     * @param depth      the remaining depth of the parent node.
+     * @param maximizing {@code true} if the player to move maximizes.
+     * @param firstIndex the index of the child to search first, or a 
+     *                   negative value.
+     * @return the order of the child indices.
+     */
+    private MoveOrder getMoveOrder(List<S> children,
+                                   int depth,
+                                   boolean maximizing, 
+                                   int firstIndex) {
+        double[] scores = null;
+
+        if (depth >= sortingDepth) {
+            int n = children.size();
+            scores = new double[n];
+
+            if (firstIndex >= 0 && firstIndex < n) {
+                evaluatorFunction.evaluateBatch(
+                        skipChild(children, firstIndex), 
+                        scores);
+                // Shift the scores after the skipped child to their indices,
+                // the slot of the skipped child is never read:
+                System.arraycopy(scores, 
+                                 firstIndex, 
+                                 scores, 
+                                 firstIndex + 1, 
+                                 n - 1 - firstIndex);
+            } else {
+                evaluatorFunction.evaluateBatch(children, scores);
+            }
+
+            if (maximizing) {
+                // The best children have the lowest scores:
+                for (int i = 0; i < scores.length; i++) {
+                    scores[i] = -scores[i];
                 }
             }
+        }
+
+        return new MoveOrder(children.size(), scores, firstIndex);
+    }
+
+    /**
+     * Returns a view of {@code children} without the child at 
+     * {@code skippedIndex}.
+     * 
+     * @param children     the children.
+     * @param skippedIndex the index of the child to leave out.
+     * @return the view of the rest of the children.
+     */
+    private static <S> List<S> skipChild(List<S> children, int skippedIndex) {
+        return new AbstractList<S>() {
 
-            return tentativeValue;
+            @Override
+            public S get(int index) {
+                return children.get(index < skippedIndex ? index : index + 1);
+            }
+
+            @Override
+            public int size() {
+                return children.size() - 1;
+            }
+        };
+    }
+
+    /**
+     * Validates the sorting depth candidate.
+     * @param sortingDepth the sorting depth candidate to validate.
+     * @return the sorting depth candidate.
+     */
+    private static int checkSortingDepth(int sortingDepth) {
+        if (sortingDepth < MINIMUM_SORTING_DEPTH) {
+            throw new IllegalArgumentException(
+                    "The requested sorting depth (" + sortingDepth +
+                    ") is too small. Must be at least " +
+                    MINIMUM_SORTING_DEPTH + ".");
+        }
+
+        return sortingDepth;
+    }
+
+    /**
+     * This class hands out the child indices in search order. Instead of 
+     * sorting all the children up front, the best remaining child is selected
+     * only when asked for, so a cut-off leaves the tail unordered.
+     */
+    private static final class MoveOrder {
+
+        /**
+         * The child indices. The prefix before {@code position} is handed out
+         * already.
+         */
+        private final int[] order;
+
+        /**
+         * The scores of the children indexed by the child index, the lowest
+         * being the best, or {@code null} if the children are not sorted.
+         */
+        private final double[] scores;
+
+        /**
+         * Set if the first child is handed out first regardless of its score.
+         */
+        private final boolean firstPinned;
+
+        /**
+         * The position of the next child index in {@code order}.
+         */
+        private int position;
+
+        MoveOrder(int numberOfChildren, double[] scores, int firstIndex) {
+            this.order = new int[numberOfChildren];
+            this.scores = scores;
+
+            for (int i = 0; i < numberOfChildren; i++) {
+                order[i] = i;
+            }
+
+            firstPinned = firstIndex >= 0 && firstIndex < numberOfChildren;
+
+            if (firstPinned) {
+                // Shift the first child to the front keeping the rest in 
+                // their natural order:
+                System.arraycopy(order, 0, order, 1, firstIndex);
+                order[0] = firstIndex;
+            }
         }
+
+        boolean hasNext() {
+            return position < order.length;
+        }
+
+        int next() {
+            if (scores != null && !(firstPinned && position == 0)) {
+                // Select the best remaining child, the first one on ties:
+                int bestPosition = position;
+
+                for (int i = position + 1; i < order.length; i++) {
+                    if (scores[order[i]] < scores[order[bestPosition]]) {
+                        bestPosition = i;
+                    }
+                }
+
+                int childIndex = order[bestPosition];
+                // Keep the remaining children in their natural order so that
+                // the ties are broken consistently:
+                System.arraycopy(order, 
+                                 position, 
+                                 order, 
+                                 position + 1, 
+                                 bestPosition - position);
+                order[position] = childIndex;
+            }
+
+            return order[position++];
+        }
+    }
+
+    /**
+     * Searches all the children in parallel with the window of their parent.
+     * 
+     * @param children         the children to search.
+     * @param depth            the remaining depth of the parent node.
+     * @param alpha            the alpha cut-off.
+     * @param beta             the beta cut-off.
+     * @param minimizingPlayer the minimizing player.
+     * @param maximizingPlayer the maximizing player.
+     * @param currentPlayer    the player to move in the parent node.
+     * 
+     * @return the value of the best ply.
+     */
+    private double makePlyImplParallel(List<S> children,
+                                       int depth,
+                                       double alpha,
+                                       double beta,
+                                       P minimizingPlayer,
+                                       P maximizingPlayer,
+                                       P currentPlayer) {
+        P nextPlayer = currentPlayer == maximizingPlayer ? 
+                       minimizingPlayer : 
+                       maximizingPlayer;
+        
+        double[] values = 
+                searchInParallel(children,
+                                 (child) -> makePlyImpl(child,
+                                                        depth - 1,
+                                                        alpha,
+                                                        beta,
+                                                        minimizingPlayer,
+                                                        maximizingPlayer,
+                                                        nextPlayer));
+        
+        double tentativeValue = currentPlayer == maximizingPlayer ? 
+                                Double.NEGATIVE_INFINITY :
+                                Double.POSITIVE_INFINITY;
+
+        for (double value : values) {
+            tentativeValue = currentPlayer == maximizingPlayer ? 
+                             Math.max(tentativeValue, value) :
+                             Math.min(tentativeValue, value);
+        }
+
+        return tentativeValue;
     }
 }
@@ -0,0 +1,361 @@
+package net.coderodde.zerosum.ai.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.AbstractState;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+
+/**
+ * This class implements the parallel
+ * <a href="https://www.chessprogramming.org/Young_Brothers_Wait_Concept">
+ * Young Brothers Wait</a> alpha-beta search. At each node with at least
+ * {@code parallelDepth} plies left, the eldest child is searched serially in
+ * order to establish a good window, after which all its younger brothers are
+ * searched in parallel. Whenever a brother produces a beta cut-off, the
+ * remaining brothers and their subtrees are aborted.
+ *
+ * @param <S> the game state type.
+ * @param <P> the player color type.
+ * @author Rodion "rodde" Efremov
+ * @version 1.61 (Sep 16, 2019)
+ * @since 1.61 (Sep 16, 2019)
+ */
+public final class YoungBrothersWaitGameEngine
+        <S extends AbstractState<S, P>,
+         P extends Enum<P>>
+           extends AbstractGameEngine<S, P> {
+
+    /**
+     * Describes a node whose younger brothers are being searched in parallel.
+     */
+    private static final class SplitPoint {
+
+        /**
+         * The nearest split point above this one, or {@code null}.
+         */
+        private final SplitPoint parent;
+
+        /**
+         * The beta value of the node.
+         */
+        private final double beta;
+
+        /**
+         * The best score found so far, stored as raw double bits.
+         */
+        private final AtomicLong bestScoreBits;
+
+        /**
+         * Set when a brother fails high.
+         */
+        private volatile boolean aborted;
+
+        SplitPoint(SplitPoint parent, double bestScore, double beta) {
+            this.parent = parent;
+            this.beta = beta;
+            this.bestScoreBits =
+                    new AtomicLong(Double.doubleToRawLongBits(bestScore));
+        }
+
+        double getBestScore() {
+            return Double.longBitsToDouble(bestScoreBits.get());
+        }
+
+        /**
+         * Records the score of a completed brother and aborts the split point
+         * if the score causes a beta cut-off.
+         *
+         * @param score the score of a brother.
+         */
+        void update(double score) {
+            long currentBits = bestScoreBits.get();
+
+            while (Double.longBitsToDouble(currentBits) < score) {
+                if (bestScoreBits.compareAndSet(
+                        currentBits,
+                        Double.doubleToRawLongBits(score))) {
+                    break;
+                }
+
+                currentBits = bestScoreBits.get();
+            }
+
+            if (score >= beta) {
+                aborted = true;
+            }
+        }
+
+        /**
+         * Checks whether this split point or any split point above it has been
+         * aborted.
+         *
+         * @return {@code true} if the search below this split point is futile.
+         */
+        boolean isAborted() {
+            for (SplitPoint splitPoint = this;
+                    splitPoint != null;
+                    splitPoint = splitPoint.parent) {
+                if (splitPoint.aborted) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Constructs this game engine running the parallel tasks in the common
+     * fork-join pool.
+     *
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     * @param parallelDepth     the minimum remaining depth of a node for
+     *                          searching its younger brothers in parallel.
+     */
+    public YoungBrothersWaitGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                                       int depth,
+                                       int parallelDepth) {
+        super(evaluatorFunction, depth, parallelDepth);
+    }
+
+    /**
+     * Constructs this game engine.
+     *
+     * @param evaluatorFunction the evaluator function.
+     * @param depth             the search depth.
+     * @param parallelDepth     the minimum remaining depth of a node for
+     *                          searching its younger brothers in parallel.
+     * @param forkJoinPool      the pool for running the parallel tasks.
+     */
+    public YoungBrothersWaitGameEngine(EvaluatorFunction<S> evaluatorFunction,
+                                       int depth,
+                                       int parallelDepth,
+                                       ForkJoinPool forkJoinPool) {
+        super(evaluatorFunction, depth, parallelDepth, forkJoinPool);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public S makePly(S state,
+                     P minimizingPlayer,
+                     P maximizingPlayer,
+                     P initialPlayer) {
+        S bookState = getBookMove(state, minimizingPlayer, initialPlayer);
+
+        if (bookState != null) {
+            return bookState;
+        }
+
+        if (state.checkVictory() != null || state.isTerminal()) {
+            // The game is over, there is no move to make:
+            return null;
+        }
+
+        searchStarted();
+
+        return searchCompleted(
+                makePlyImplTopmost(state,
+                                   depth,
+                                   initialPlayer == minimizingPlayer ? -1 : 1));
+    }
+
+    /**
+     * Performs the search directly under the root node denoted by
+     * {@code state}. In order to choose the same move as the sequential
+     * alpha-beta pruning, the younger brothers at the root are all searched
+     * with the window established by the eldest brother, so that each one of
+     * them improving on the eldest has an exact score.
+     *
+     * @param state the root state of the game tree to search.
+     * @param depth the total depth of the search.
+     * @param color the color. -1 for minimizing player, +1 for maximizing
+     *              player.
+     * @return the game board after optimal move from {@code state}, or
+     *         {@code null} if there is no move.
+     */
+    private S makePlyImplTopmost(S state, int depth, int color) {
+        List<S> children = state.children();
+
+        if (children.isEmpty()) {
+            return null;
+        }
+
+        S bestState = children.get(0);
+        double bestScore = -makePlyImpl(bestState,
+                                        depth - 1,
+                                        Double.NEGATIVE_INFINITY,
+                                        Double.POSITIVE_INFINITY,
+                                        -color,
+                                        null);
+
+        if (children.size() == 1) {
+            return bestState;
+        }
+
+        List<S> youngerBrothers = children.subList(1, children.size());
+
+        if (!isParallelDepth(depth)) {
+            for (S child : youngerBrothers) {
+                double score = -makePlyImpl(child,
+                                            depth - 1,
+                                            Double.NEGATIVE_INFINITY,
+                                            -bestScore,
+                                            -color,
+                                            null);
+
+                if (bestScore < score) {
+                    bestScore = score;
+                    bestState = child;
+                }
+            }
+
+            return bestState;
+        }
+
+        double alpha = bestScore;
+        double[] scores = searchInParallel(youngerBrothers,
+                                           (child) -> -makePlyImpl(
+                                                   child,
+                                                   depth - 1,
+                                                   Double.NEGATIVE_INFINITY,
+                                                   -alpha,
+                                                   -color,
+                                                   null));
+
+        for (int i = 0; i < scores.length; i++) {
+            if (bestScore < scores[i]) {
+                bestScore = scores[i];
+                bestState = youngerBrothers.get(i);
+            }
+        }
+
+        return bestState;
+    }
+
+    /**
+     * Searches the subtree rooted at {@code state}.
+     *
+     * @param state            the root of the subtree.
+     * @param depth            the remaining depth.
+     * @param alpha            the alpha cut-off.
+     * @param beta             the beta cut-off.
+     * @param color            the color of the player to move.
+     * @param parentSplitPoint the nearest split point above {@code state}, or
+     *                         {@code null} if there is no such.
+     * @return the score of {@code state} from the point of view of the player
+     *         to move.
+     */
+    private double makePlyImpl(S state,
+                               int depth,
+                               double alpha,
+                               double beta,
+                               int color,
+                               SplitPoint parentSplitPoint) {
+        visitNode(depth);
+
+        if (parentSplitPoint != null && parentSplitPoint.isAborted()) {
+            throw SEARCH_STOPPED_EXCEPTION;
+        }
+
+        if (depth == 0
+                || state.checkVictory() != null
+                || state.isTerminal()) {
+            return color * evaluateLeaf(state);
+        }
+
+        List<S> children = state.children();
+
+        if (children.isEmpty()) {
+            return color * evaluateLeaf(state);
+        }
+
+        // Search the eldest brother serially:
+        double bestScore = -makePlyImpl(children.get(0),
+                                        depth - 1,
+                                        -beta,
+                                        -alpha,
+                                        -color,
+                                        parentSplitPoint);
+
+        alpha = Math.max(alpha, bestScore);
+
+        if (alpha >= beta) {
+            countCutoff(0);
+            return bestScore;
+        }
+
+        if (children.size() == 1) {
+            return bestScore;
+        }
+
+        if (!isParallelDepth(depth)) {
+            for (int i = 1; i < children.size(); i++) {
+                double score = -makePlyImpl(children.get(i),
+                                            depth - 1,
+                                            -beta,
+                                            -alpha,
+                                            -color,
+                                            parentSplitPoint);
+
+                bestScore = Math.max(bestScore, score);
+                alpha = Math.max(alpha, score);
+
+                if (alpha >= beta) {
+                    countCutoff(i);
+                    break;
+                }
+            }
+
+            return bestScore;
+        }
+
+        // Search the younger brothers in parallel:
+        double initialAlpha = alpha;
+        SplitPoint splitPoint =
+                new SplitPoint(parentSplitPoint, bestScore, beta);
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(children.size() - 1);
+
+        for (int i = 1; i < children.size(); i++) {
+            S child = children.get(i);
+
+            tasks.add(ForkJoinTask.adapt(() -> {
+                if (splitPoint.isAborted()) {
+                    return;
+                }
+
+                double a = Math.max(initialAlpha, splitPoint.getBestScore());
+
+                try {
+                    splitPoint.update(-makePlyImpl(child,
+                                                   depth - 1,
+                                                   -beta,
+                                                   -a,
+                                                   -color,
+                                                   splitPoint));
+                } catch (SearchStoppedException ex) {
+                    // Unless the brother or an ancestor has failed high, the
+                    // whole search has been stopped:
+                    if (!splitPoint.isAborted()) {
+                        throw ex;
+                    }
+                }
+            }));
+        }
+
+        invokeAll(tasks);
+
+        if (parentSplitPoint != null && parentSplitPoint.isAborted()) {
+            throw SEARCH_STOPPED_EXCEPTION;
+        }
+
+        return splitPoint.getBestScore();
+    }
+}
@@ -0,0 +1,86 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncSearchTest {
+
+    private static final int DEPTH = 6;
+
+    /**
+     * A depth the search cannot reach before it is cancelled.
+     */
+    private static final int UNREACHABLE_DEPTH = 40;
+
+    /**
+     * The depth to complete before cancelling the search.
+     */
+    private static final int CANCELLATION_DEPTH = 3;
+
+    private static final long POLLING_INTERVAL = 1L;
+    private static final long TERMINATION_TIMEOUT = 10L;
+
+    private static final ConnectFourEvaluatorFunction EVALUATOR_FUNCTION =
+            new ConnectFourEvaluatorFunction();
+
+    private final ConnectFourState root = ConnectFourState.fromMoves("4453");
+
+    @Test
+    public void completesWithTheDeepestIteration() {
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine = new PrincipalVariationSearchGameEngine<>(
+                        EVALUATOR_FUNCTION, DEPTH);
+
+        SearchFuture<ConnectFourState> future =
+                gameEngine.makePlyAsync(root,
+                                        ConnectFourPlayerColor.YELLOW_PLAYER,
+                                        ConnectFourPlayerColor.RED_PLAYER,
+                                        root.getPlayerToMove());
+
+        ConnectFourState state = future.join();
+
+        assertTrue(root.children().contains(state));
+        assertSame(state, future.getBestStateSoFar());
+        assertEquals(DEPTH, future.getCompletedDepth());
+    }
+
+    @Test
+    public void cancelStopsTheSearchAndKeepsTheBestStateSoFar()
+            throws InterruptedException {
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine = new PrincipalVariationSearchGameEngine<>(
+                        EVALUATOR_FUNCTION, UNREACHABLE_DEPTH);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        SearchFuture<ConnectFourState> future =
+                gameEngine.makePlyAsync(root,
+                                        ConnectFourPlayerColor.YELLOW_PLAYER,
+                                        ConnectFourPlayerColor.RED_PLAYER,
+                                        root.getPlayerToMove(),
+                                        executor);
+
+        while (future.getCompletedDepth() < CANCELLATION_DEPTH) {
+            Thread.sleep(POLLING_INTERVAL);
+        }
+
+        assertTrue(future.cancel(true));
+
+        // The search must unwind instead of running to the full depth:
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(TERMINATION_TIMEOUT,
+                                             TimeUnit.SECONDS));
+
+        assertTrue(future.isCancelled());
+        assertTrue(future.getCompletedDepth() < UNREACHABLE_DEPTH);
+        assertTrue(root.children().contains(future.getBestStateSoFar()));
+    }
+}
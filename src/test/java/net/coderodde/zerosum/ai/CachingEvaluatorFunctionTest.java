@@ -0,0 +1,129 @@
+package net.coderodde.zerosum.ai;
+
+import java.util.List;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CachingEvaluatorFunctionTest {
+
+    /**
+     * The smallest cache, a single set of two entries.
+     */
+    private static final int CAPACITY = 2;
+
+    private static final int LARGE_CAPACITY = 1 << 10;
+
+    private static final ConnectFourEvaluatorFunction EVALUATOR_FUNCTION =
+            new ConnectFourEvaluatorFunction();
+
+    private final ConnectFourState state1 = ConnectFourState.fromMoves("4453");
+    private final ConnectFourState state2 = ConnectFourState.fromMoves("4454");
+    private final ConnectFourState state3 = ConnectFourState.fromMoves("4455");
+
+    private int evaluations;
+
+    private final EvaluatorFunction<ConnectFourState> countingEvaluator =
+            (state) -> {
+                evaluations++;
+                return EVALUATOR_FUNCTION.evaluate(state);
+            };
+
+    @Test
+    public void returnsScoresOfEvaluatorFunctionAndCountsHits() {
+        CachingEvaluatorFunction<ConnectFourState, ConnectFourPlayerColor>
+                cache = new CachingEvaluatorFunction<>(countingEvaluator,
+                                                       LARGE_CAPACITY);
+
+        for (int round = 0; round < 3; round++) {
+            for (ConnectFourState state : state1.children()) {
+                assertEquals(EVALUATOR_FUNCTION.evaluate(state),
+                             cache.evaluate(state),
+                             0.0);
+            }
+        }
+
+        int numberOfChildren = state1.children().size();
+        assertEquals(numberOfChildren, evaluations);
+        assertEquals(numberOfChildren, cache.getNumberOfMisses());
+        assertEquals(2 * numberOfChildren, cache.getNumberOfHits());
+        assertEquals(2.0 / 3.0, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() {
+        CachingEvaluatorFunction<ConnectFourState, ConnectFourPlayerColor>
+                cache = new CachingEvaluatorFunction<>(countingEvaluator,
+                                                       CAPACITY);
+        cache.evaluate(state1);
+        cache.evaluate(state2);
+        cache.evaluate(state1); // Makes state2 the least recently used one.
+        cache.evaluate(state3); // Evicts state2.
+        assertEquals(3, evaluations);
+
+        cache.evaluate(state1);
+        cache.evaluate(state3);
+        assertEquals(3, evaluations);
+
+        cache.evaluate(state2);
+        assertEquals(4, evaluations);
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        CachingEvaluatorFunction<ConnectFourState, ConnectFourPlayerColor>
+                cache = new CachingEvaluatorFunction<>(countingEvaluator,
+                                                       LARGE_CAPACITY);
+        cache.evaluate(state1);
+        cache.clear();
+        cache.resetStatistics();
+        cache.evaluate(state1);
+
+        assertEquals(2, evaluations);
+        assertEquals(0, cache.getNumberOfHits());
+        assertEquals(1, cache.getNumberOfMisses());
+    }
+
+    @Test
+    public void evaluateBatchMatchesEvaluate() {
+        CachingEvaluatorFunction<ConnectFourState, ConnectFourPlayerColor>
+                cache = new CachingEvaluatorFunction<>(countingEvaluator,
+                                                       LARGE_CAPACITY);
+        List<ConnectFourState> children = state1.children();
+        double[] scores = new double[children.size()];
+
+        // Leave some of the children missing from the cache:
+        cache.evaluate(children.get(0));
+        cache.evaluate(children.get(2));
+        cache.evaluateBatch(children, scores);
+
+        for (int i = 0; i < children.size(); i++) {
+            assertEquals(EVALUATOR_FUNCTION.evaluate(children.get(i)),
+                         scores[i],
+                         0.0);
+        }
+
+        assertEquals(children.size(), evaluations);
+        cache.evaluateBatch(children, scores);
+        assertEquals(children.size(), evaluations);
+    }
+
+    @Test
+    public void wrapKeepsIntegerEvaluation() {
+        assertTrue(CachingEvaluatorFunction.wrap(EVALUATOR_FUNCTION,
+                                                 CAPACITY)
+                   instanceof IntEvaluatorFunction);
+        assertFalse(CachingEvaluatorFunction.wrap(countingEvaluator,
+                                                  CAPACITY)
+                    instanceof IntEvaluatorFunction);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsOnTooSmallCapacity() {
+        new CachingEvaluatorFunction<>(countingEvaluator, 1);
+    }
+}
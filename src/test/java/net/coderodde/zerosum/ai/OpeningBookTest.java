@@ -0,0 +1,104 @@
+package net.coderodde.zerosum.ai;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpeningBookTest {
+
+    private static final int DEPTH = 4;
+
+    /**
+     * The number of plies covered by the book.
+     */
+    private static final int OPENING_BOOK_PLIES = 2;
+
+    /**
+     * The number of the Connect Four positions at most two plies away from
+     * the empty board. There are no transpositions before the third ply.
+     */
+    private static final int OPENING_BOOK_SIZE = 1 + 7 + 7 * 7;
+
+    private static final ConnectFourEvaluatorFunction EVALUATOR_FUNCTION =
+            new ConnectFourEvaluatorFunction();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void bookMovesMatchTheSearch() throws IOException {
+        ConnectFourState root = new ConnectFourState();
+        Path path = temporaryFolder.newFile("connect-four.book").toPath();
+
+        int size = new OpeningBookGenerator<>(
+                () -> new PrincipalVariationSearchGameEngine<>(
+                        EVALUATOR_FUNCTION, DEPTH))
+                .generate(root,
+                          ConnectFourPlayerColor.YELLOW_PLAYER,
+                          ConnectFourPlayerColor.RED_PLAYER,
+                          root.getPlayerToMove(),
+                          OPENING_BOOK_PLIES,
+                          path);
+
+        OpeningBook openingBook = new OpeningBook(path);
+        assertEquals(OPENING_BOOK_SIZE, size);
+        assertEquals(size, openingBook.size());
+
+        List<ConnectFourState> level = new ArrayList<>();
+        level.add(root);
+        int numberOfLookups = 0;
+
+        for (int ply = 0; ply <= OPENING_BOOK_PLIES; ply++) {
+            List<ConnectFourState> nextLevel = new ArrayList<>();
+
+            for (ConnectFourState state : level) {
+                assertTrue(openingBook.getMove(getHashKey(state))
+                           != OpeningBook.NO_MOVE);
+                assertEquals(search(state, null), search(state, openingBook));
+                // Looked up here and by the engine using the book:
+                numberOfLookups += 2;
+                nextLevel.addAll(state.children());
+            }
+
+            level = nextLevel;
+        }
+
+        // The positions past the book are not in it:
+        for (ConnectFourState state : level) {
+            assertEquals(OpeningBook.NO_MOVE,
+                         openingBook.getMove(getHashKey(state)));
+        }
+
+        assertEquals(numberOfLookups, openingBook.getNumberOfHits());
+    }
+
+    private static ConnectFourState search(ConnectFourState state,
+                                           OpeningBook openingBook) {
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine = new PrincipalVariationSearchGameEngine<>(
+                        EVALUATOR_FUNCTION, DEPTH);
+
+        gameEngine.setOpeningBook(openingBook);
+        return gameEngine.makePly(state,
+                                  ConnectFourPlayerColor.YELLOW_PLAYER,
+                                  ConnectFourPlayerColor.RED_PLAYER,
+                                  state.getPlayerToMove());
+    }
+
+    private static long getHashKey(ConnectFourState state) {
+        return AbstractGameEngine.getHashKey(
+                state,
+                state.getPlayerToMove() ==
+                        ConnectFourPlayerColor.YELLOW_PLAYER ? -1 : 1);
+    }
+}
@@ -0,0 +1,146 @@
+package net.coderodde.zerosum.ai;
+
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PonderingTest {
+
+    private static final int DEPTH = 5;
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 16;
+
+    private static final ConnectFourEvaluatorFunction EVALUATOR_FUNCTION =
+            new ConnectFourEvaluatorFunction();
+
+    private final ConnectFourState root = ConnectFourState.fromMoves("4453");
+
+    /**
+     * Ponders after the move of the engine and checks the move made after
+     * each possible reply of the opponent, the expected one and the others.
+     */
+    @Test
+    public void ponderedMovesMatchTheSearch() {
+        ConnectFourState state = makePly(createGameEngine(), root);
+
+        for (ConnectFourState reply : state.children()) {
+            AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine = createGameEngine();
+
+            makePly(gameEngine, root);
+            startPondering(gameEngine, state);
+            assertTrue(gameEngine.isPondering());
+
+            ConnectFourState result =
+                    gameEngine.makePonderedPly(
+                            reply,
+                            ConnectFourPlayerColor.YELLOW_PLAYER,
+                            ConnectFourPlayerColor.RED_PLAYER,
+                            reply.getPlayerToMove());
+
+            assertFalse(gameEngine.isPondering());
+
+            if (reply.isTerminal()) {
+                continue;
+            }
+
+            int color = getColor(reply);
+            assertEquals(negamax(reply, DEPTH, color),
+                         -negamax(result, DEPTH - 1, -color),
+                         0.0);
+        }
+    }
+
+    @Test
+    public void stopPonderingLeavesEngineUsable() {
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine = createGameEngine();
+        ConnectFourState state = makePly(gameEngine, root);
+
+        startPondering(gameEngine, state);
+        gameEngine.stopPondering();
+        assertFalse(gameEngine.isPondering());
+
+        ConnectFourState reply = state.children().get(0);
+        assertTrue(reply.children().contains(makePly(gameEngine, reply)));
+    }
+
+    @Test
+    public void doesNotPonderOnFinishedGame() {
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine = createGameEngine();
+
+        startPondering(gameEngine, ConnectFourState.fromMoves("1213141"));
+        assertFalse(gameEngine.isPondering());
+    }
+
+    private static AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+        createGameEngine() {
+        AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine = new PrincipalVariationSearchGameEngine<>(
+                        EVALUATOR_FUNCTION, DEPTH);
+
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+        return gameEngine;
+    }
+
+    private static ConnectFourState makePly(
+            AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine,
+            ConnectFourState state) {
+        return gameEngine.makePly(state,
+                                  ConnectFourPlayerColor.YELLOW_PLAYER,
+                                  ConnectFourPlayerColor.RED_PLAYER,
+                                  state.getPlayerToMove());
+    }
+
+    /**
+     * Starts pondering for the player who has just moved into {@code state}.
+     */
+    private static void startPondering(
+            AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine,
+            ConnectFourState state) {
+        ConnectFourPlayerColor player =
+                state.getPlayerToMove() ==
+                        ConnectFourPlayerColor.RED_PLAYER ?
+                ConnectFourPlayerColor.YELLOW_PLAYER :
+                ConnectFourPlayerColor.RED_PLAYER;
+
+        gameEngine.startPondering(state,
+                                  ConnectFourPlayerColor.YELLOW_PLAYER,
+                                  ConnectFourPlayerColor.RED_PLAYER,
+                                  player);
+    }
+
+    /**
+     * Computes the score of {@code state} from the point of view of the
+     * player to move by a plain negamax search.
+     */
+    private static double negamax(ConnectFourState state,
+                                  int depth,
+                                  int color) {
+        if (depth == 0 || state.isTerminal()) {
+            return color * EVALUATOR_FUNCTION.evaluate(state);
+        }
+
+        double score = Double.NEGATIVE_INFINITY;
+
+        for (ConnectFourState child : state.children()) {
+            score = Math.max(score, -negamax(child, depth - 1, -color));
+        }
+
+        return score;
+    }
+
+    private static int getColor(ConnectFourState state) {
+        return state.getPlayerToMove() == ConnectFourPlayerColor.RED_PLAYER ?
+               1 :
+               -1;
+    }
+}
@@ -0,0 +1,182 @@
+package net.coderodde.zerosum.ai;
+
+import net.coderodde.zerosum.ai.TranspositionTable.ReplacementPolicy;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TranspositionTableTest {
+
+    /**
+     * The smallest table. Under the single-entry policies it has two buckets,
+     * under the two-tier policy a single bucket of two entries.
+     */
+    private static final int CAPACITY = 2;
+
+    /**
+     * The keys mapping to the same bucket.
+     */
+    private static final long KEY1 = 2L;
+    private static final long KEY2 = 4L;
+    private static final long KEY3 = 6L;
+
+    private final TranspositionTable.Entry entry =
+            new TranspositionTable.Entry();
+
+    @Test
+    public void probeMissesOnEmptyTable() {
+        for (ReplacementPolicy policy : ReplacementPolicy.values()) {
+            TranspositionTable table = new TranspositionTable(CAPACITY,
+                                                              policy);
+            assertFalse(table.probe(KEY1, entry));
+            assertFalse(table.probe(0L, entry));
+        }
+    }
+
+    @Test
+    public void probeReturnsStoredEntry() {
+        for (ReplacementPolicy policy : ReplacementPolicy.values()) {
+            TranspositionTable table = new TranspositionTable(CAPACITY,
+                                                              policy);
+            table.store(KEY1, 7, TranspositionTable.LOWER_BOUND, -2.5, 3);
+
+            assertTrue(table.probe(KEY1, entry));
+            assertEquals(-2.5, entry.getScore(), 0.0);
+            assertEquals(7, entry.getDepth());
+            assertEquals(TranspositionTable.LOWER_BOUND, entry.getBound());
+            assertEquals(3, entry.getBestMove());
+            assertFalse(table.probe(KEY2, entry));
+        }
+    }
+
+    @Test
+    public void storesInfiniteScoreAndNoMove() {
+        TranspositionTable table = new TranspositionTable(CAPACITY);
+        table.store(KEY1,
+                    0,
+                    TranspositionTable.EXACT,
+                    Double.NEGATIVE_INFINITY,
+                    TranspositionTable.NO_MOVE);
+
+        assertTrue(table.probe(KEY1, entry));
+        assertEquals(Double.NEGATIVE_INFINITY, entry.getScore(), 0.0);
+        assertEquals(TranspositionTable.EXACT, entry.getBound());
+        assertEquals(TranspositionTable.NO_MOVE, entry.getBestMove());
+    }
+
+    @Test
+    public void alwaysReplaceOverwritesUnconditionally() {
+        TranspositionTable table =
+                new TranspositionTable(CAPACITY,
+                                       ReplacementPolicy.ALWAYS_REPLACE);
+
+        table.store(KEY1, 5, TranspositionTable.EXACT, 1.0, 0);
+        table.store(KEY1, 1, TranspositionTable.EXACT, 2.0, 1);
+        assertTrue(table.probe(KEY1, entry));
+        assertEquals(1, entry.getDepth());
+        assertEquals(2.0, entry.getScore(), 0.0);
+
+        table.store(KEY2, 0, TranspositionTable.EXACT, 3.0, 2);
+        assertFalse(table.probe(KEY1, entry));
+        assertTrue(table.probe(KEY2, entry));
+        assertEquals(1L, table.getNumberOfOverwrites());
+    }
+
+    @Test
+    public void depthPreferredKeepsDeeperEntry() {
+        TranspositionTable table =
+                new TranspositionTable(CAPACITY,
+                                       ReplacementPolicy.DEPTH_PREFERRED);
+
+        table.store(KEY1, 5, TranspositionTable.EXACT, 1.0, 0);
+        table.store(KEY1, 1, TranspositionTable.EXACT, 2.0, 1);
+        table.store(KEY2, 4, TranspositionTable.EXACT, 3.0, 2);
+
+        assertTrue(table.probe(KEY1, entry));
+        assertEquals(5, entry.getDepth());
+        assertEquals(1.0, entry.getScore(), 0.0);
+        assertFalse(table.probe(KEY2, entry));
+
+        table.store(KEY2, 5, TranspositionTable.EXACT, 3.0, 2);
+        assertFalse(table.probe(KEY1, entry));
+        assertTrue(table.probe(KEY2, entry));
+    }
+
+    @Test
+    public void depthPreferredGivesWayToNewerGenerations() {
+        TranspositionTable table =
+                new TranspositionTable(CAPACITY,
+                                       ReplacementPolicy.DEPTH_PREFERRED);
+
+        table.store(KEY1, 5, TranspositionTable.EXACT, 1.0, 0);
+
+        // The entries of the previous search are still protected:
+        table.age();
+        table.store(KEY2, 1, TranspositionTable.EXACT, 2.0, 1);
+        assertTrue(table.probe(KEY1, entry));
+        assertFalse(table.probe(KEY2, entry));
+
+        table.age();
+        table.store(KEY2, 1, TranspositionTable.EXACT, 2.0, 1);
+        assertFalse(table.probe(KEY1, entry));
+        assertTrue(table.probe(KEY2, entry));
+    }
+
+    @Test
+    public void twoTierKeepsDeepEntryAndReplacesSecondEntry() {
+        TranspositionTable table =
+                new TranspositionTable(CAPACITY, ReplacementPolicy.TWO_TIER);
+
+        table.store(KEY1, 5, TranspositionTable.EXACT, 1.0, 0);
+        table.store(KEY2, 1, TranspositionTable.EXACT, 2.0, 1);
+        assertTrue(table.probe(KEY1, entry));
+        assertTrue(table.probe(KEY2, entry));
+
+        table.store(KEY3, 2, TranspositionTable.EXACT, 3.0, 2);
+        assertTrue(table.probe(KEY1, entry));
+        assertFalse(table.probe(KEY2, entry));
+        assertTrue(table.probe(KEY3, entry));
+
+        // A shallower search does not overwrite the deeper entry of the same
+        // position in either tier:
+        table.store(KEY1, 4, TranspositionTable.EXACT, 4.0, 3);
+        table.store(KEY3, 1, TranspositionTable.EXACT, 4.0, 3);
+        assertTrue(table.probe(KEY1, entry));
+        assertEquals(5, entry.getDepth());
+        assertTrue(table.probe(KEY3, entry));
+        assertEquals(2, entry.getDepth());
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        TranspositionTable table = new TranspositionTable(CAPACITY);
+        table.store(KEY1, 5, TranspositionTable.EXACT, 1.0, 0);
+        table.clear();
+
+        assertFalse(table.probe(KEY1, entry));
+    }
+
+    @Test
+    public void getBoundClassifiesFailSoftScores() {
+        assertEquals(TranspositionTable.UPPER_BOUND,
+                     TranspositionTable.getBound(-1.0, 0.0, 1.0));
+        assertEquals(TranspositionTable.UPPER_BOUND,
+                     TranspositionTable.getBound(0.0, 0.0, 1.0));
+        assertEquals(TranspositionTable.EXACT,
+                     TranspositionTable.getBound(0.5, 0.0, 1.0));
+        assertEquals(TranspositionTable.LOWER_BOUND,
+                     TranspositionTable.getBound(1.0, 0.0, 1.0));
+    }
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(4, new TranspositionTable(3).getCapacity());
+        assertEquals(4, new TranspositionTable(4).getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsOnTooSmallCapacity() {
+        new TranspositionTable(1);
+    }
+}
@@ -0,0 +1,124 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import net.coderodde.zerosum.ai.impl.PrincipalVariationSearchGameEngine;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+
+public class ConnectFourEndgameDatabaseTest {
+
+    /**
+     * The moves leading to a late position with 14 empty cells.
+     */
+    private static final String ENDGAME = "4771725634534432152153667744";
+
+    /**
+     * The maximum number of empty cells of the positions in the database.
+     */
+    private static final int ENDGAME_DATABASE_EMPTY_CELLS = 10;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * The values of the non-terminal positions solved by a plain negamax.
+     */
+    private final Map<ConnectFourState, Integer> values = new HashMap<>();
+
+    @Test
+    public void lookupsMatchSolvedValues() throws IOException {
+        ConnectFourState root = ConnectFourState.fromMoves(ENDGAME);
+        ConnectFourEndgameDatabase endgameDatabase = generate(root);
+        solve(root);
+        int size = 0;
+
+        for (Map.Entry<ConnectFourState, Integer> entry : values.entrySet()) {
+            ConnectFourState state = entry.getKey();
+
+            if (ConnectFourState.NUMBER_OF_CELLS - state.getNumberOfMoves()
+                    > ENDGAME_DATABASE_EMPTY_CELLS) {
+                assertEquals(ConnectFourEndgameDatabase.UNKNOWN,
+                             endgameDatabase.getValue(state));
+            } else {
+                assertEquals((int) entry.getValue(),
+                             endgameDatabase.getValue(state));
+                size++;
+            }
+        }
+
+        assertEquals(size, endgameDatabase.size());
+    }
+
+    @Test
+    public void shallowSearchFindsSolvedMove() throws IOException {
+        ConnectFourState root = ConnectFourState.fromMoves(ENDGAME);
+        ConnectFourEndgameDatabase endgameDatabase = generate(root);
+        int emptyCells = ConnectFourState.NUMBER_OF_CELLS -
+                         root.getNumberOfMoves();
+
+        // Search down to the first positions in the database:
+        ConnectFourState state =
+                new PrincipalVariationSearchGameEngine<>(
+                        new ConnectFourEndgameEvaluatorFunction(
+                                endgameDatabase),
+                        emptyCells - ENDGAME_DATABASE_EMPTY_CELLS)
+                .makePly(root,
+                         ConnectFourPlayerColor.YELLOW_PLAYER,
+                         ConnectFourPlayerColor.RED_PLAYER,
+                         root.getPlayerToMove());
+
+        // The best move leaves the opponent the worst value:
+        assertEquals(ConnectFourEndgameDatabase.WIN -
+                     solve(root) +
+                     ConnectFourEndgameDatabase.LOSS,
+                     solve(state));
+    }
+
+    private ConnectFourEndgameDatabase generate(ConnectFourState root)
+            throws IOException {
+        Path path = temporaryFolder.newFile("connect-four.endgame").toPath();
+        new ConnectFourEndgameDatabaseGenerator()
+                .generate(root, ENDGAME_DATABASE_EMPTY_CELLS, path);
+
+        return new ConnectFourEndgameDatabase(path);
+    }
+
+    /**
+     * Returns the value of {@code state} from the point of view of the player
+     * to move, solving all the positions reachable from it.
+     */
+    private int solve(ConnectFourState state) {
+        if (state.checkVictory() != null) {
+            // The previous move won:
+            return ConnectFourEndgameDatabase.LOSS;
+        }
+
+        if (state.isTerminal()) {
+            return ConnectFourEndgameDatabase.DRAW;
+        }
+
+        Integer value = values.get(state);
+
+        if (value != null) {
+            return value;
+        }
+
+        int bestValue = ConnectFourEndgameDatabase.LOSS;
+
+        for (ConnectFourState child : state.children()) {
+            // The value of the child flips between the players:
+            bestValue = Math.max(bestValue,
+                                 ConnectFourEndgameDatabase.WIN -
+                                 solve(child) +
+                                 ConnectFourEndgameDatabase.LOSS);
+        }
+
+        values.put(state, bestValue);
+        return bestValue;
+    }
+}
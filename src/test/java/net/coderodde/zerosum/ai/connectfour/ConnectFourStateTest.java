@@ -0,0 +1,201 @@
+package net.coderodde.zerosum.ai.connectfour;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import net.coderodde.zerosum.ai.ChildIterator;
+import net.coderodde.zerosum.ai.HistoryTable;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectFourStateTest {
+
+    private static final long SEED = 13L;
+    private static final int GAMES = 20;
+
+    /**
+     * A full board without an alignment.
+     */
+    private static final String DRAW =
+            "111111222222333333544444455555666666777777";
+
+    @Test
+    public void detectsHorizontalVictory() {
+        assertVictory("1122334", ConnectFourPlayerColor.RED_PLAYER);
+    }
+
+    @Test
+    public void detectsVerticalVictory() {
+        assertVictory("1212121", ConnectFourPlayerColor.RED_PLAYER);
+        assertVictory("12121232", ConnectFourPlayerColor.YELLOW_PLAYER);
+    }
+
+    @Test
+    public void detectsDiagonalVictoryGoingUpToTheRight() {
+        assertVictory("12233434544", ConnectFourPlayerColor.RED_PLAYER);
+    }
+
+    @Test
+    public void detectsDiagonalVictoryGoingDownToTheRight() {
+        assertVictory("76655454344", ConnectFourPlayerColor.RED_PLAYER);
+    }
+
+    @Test
+    public void fullBoardWithoutAlignmentIsDraw() {
+        ConnectFourState state = ConnectFourState.fromMoves(DRAW);
+
+        assertNull(state.checkVictory());
+        assertTrue(state.isTerminal());
+        assertTrue(state.children().isEmpty());
+        assertFalse(state.childIterator(TranspositionTable.NO_MOVE)
+                         .hasNext());
+    }
+
+    @Test
+    public void openPositionIsNotTerminal() {
+        ConnectFourState state = ConnectFourState.fromMoves("4453");
+
+        assertNull(state.checkVictory());
+        assertFalse(state.isTerminal());
+        assertEquals(ConnectFourPlayerColor.RED_PLAYER,
+                     state.getPlayerToMove());
+        assertEquals(4, state.getNumberOfMoves());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsOnFullColumn() {
+        ConnectFourState.fromMoves("1111111");
+    }
+
+    @Test
+    public void makeMoveMatchesPlayAndUnmakeMoveRestoresState() {
+        Random random = new Random(SEED);
+        int[] moves = new int[ConnectFourState.WIDTH];
+
+        for (int game = 0; game < GAMES; game++) {
+            ConnectFourState state = new ConnectFourState();
+
+            while (!state.isTerminal()) {
+                int numberOfMoves = state.generateMoves(moves);
+
+                for (int i = 0; i < numberOfMoves; i++) {
+                    ConnectFourState copy = state.copy();
+                    copy.makeMove(moves[i]);
+                    assertSameState(state.play(moves[i]), copy);
+
+                    copy.unmakeMove(moves[i]);
+                    assertSameState(state, copy);
+                }
+
+                state = state.play(moves[random.nextInt(numberOfMoves)]);
+            }
+        }
+    }
+
+    @Test
+    public void alignmentScoreIsIndependentOfMoveOrder() {
+        // The same position reached by the moves in different orders:
+        ConnectFourState state1 = ConnectFourState.fromMoves("4453");
+        ConnectFourState state2 = ConnectFourState.fromMoves("4354");
+
+        assertSameState(state1, state2);
+    }
+
+    @Test
+    public void childrenFollowMoveIds() {
+        ConnectFourState state = ConnectFourState.fromMoves("44444433");
+        List<ConnectFourState> children = state.children();
+        int[] moves = new int[ConnectFourState.WIDTH];
+
+        assertEquals(children.size(), state.generateMoves(moves));
+
+        for (int i = 0; i < children.size(); i++) {
+            assertEquals(moves[i], state.getMoveId(i));
+            assertSameState(state.play(state.getMoveId(i)), children.get(i));
+        }
+    }
+
+    @Test
+    public void childIteratorReturnsEachChildOnceStartingWithFirstIndex() {
+        Random random = new Random(SEED);
+        HistoryTable historyTable = new HistoryTable(ConnectFourState.WIDTH);
+
+        for (int game = 0; game < GAMES; game++) {
+            ConnectFourState state = new ConnectFourState();
+
+            while (!state.isTerminal()) {
+                List<ConnectFourState> children = state.children();
+
+                for (int firstIndex = TranspositionTable.NO_MOVE;
+                        firstIndex < children.size();
+                        firstIndex++) {
+                    assertChildIterator(children,
+                                        firstIndex,
+                                        state.childIterator(firstIndex));
+                    assertChildIterator(children,
+                                        firstIndex,
+                                        state.childIterator(firstIndex,
+                                                            historyTable,
+                                                            0));
+                }
+
+                int childIndex = random.nextInt(children.size());
+                historyTable.recordCutoff(0,
+                                          state.getMoveId(childIndex),
+                                          random.nextInt(4));
+                state = children.get(childIndex);
+            }
+        }
+    }
+
+    private static void assertChildIterator(
+            List<ConnectFourState> children,
+            int firstIndex,
+            ChildIterator<ConnectFourState> iterator) {
+        List<ConnectFourState> iterated = new ArrayList<>();
+        Set<Integer> indices = new HashSet<>();
+
+        while (iterator.hasNext()) {
+            ConnectFourState child = iterator.next();
+            assertEquals(children.get(iterator.index()), child);
+            assertTrue(indices.add(iterator.index()));
+            iterated.add(child);
+        }
+
+        assertEquals(children.size(), iterated.size());
+
+        if (firstIndex != TranspositionTable.NO_MOVE) {
+            assertEquals(children.get(firstIndex), iterated.get(0));
+        }
+    }
+
+    private static void assertVictory(String moves,
+                                      ConnectFourPlayerColor winner) {
+        ConnectFourState state = ConnectFourState.fromMoves(moves);
+        ConnectFourState previousState =
+                ConnectFourState.fromMoves(
+                        moves.substring(0, moves.length() - 1));
+
+        assertEquals(winner, state.checkVictory());
+        assertTrue(state.isTerminal());
+        assertNull(previousState.checkVictory());
+        assertFalse(previousState.isTerminal());
+    }
+
+    private static void assertSameState(ConnectFourState expected,
+                                        ConnectFourState actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.getHashKey(), actual.getHashKey());
+        assertEquals(expected.getAlignmentScore(),
+                     actual.getAlignmentScore());
+        assertEquals(expected.getNumberOfMoves(), actual.getNumberOfMoves());
+        assertEquals(expected.getPlayerToMove(), actual.getPlayerToMove());
+        assertEquals(expected.checkVictory(), actual.checkVictory());
+    }
+}
@@ -0,0 +1,252 @@
+package net.coderodde.zerosum.ai.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.HistoryTable;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.demo.DemoEvaluatorFunction;
+import net.coderodde.zerosum.ai.demo.DemoPlayerColor;
+import net.coderodde.zerosum.ai.demo.DemoState;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that all the engines choose a move of the same minimax value as a
+ * plain negamax search of the same depth on a number of Connect Four
+ * positions. The engines may choose different moves of equal value.
+ */
+public class GameEngineAgreementTest {
+
+    private static final int DEPTH = 5;
+    private static final int POSITIONS = 12;
+    private static final int MAXIMUM_OPENING_LENGTH = 14;
+    private static final long SEED = 5L;
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 16;
+    private static final int DEMO_TREES = 20;
+
+    /**
+     * Enough Lazy SMP threads for the helpers to use several depth schedules.
+     */
+    private static final int LAZY_SMP_THREADS = 8;
+    private static final int MAXIMUM_DEMO_CHILDREN = 3;
+
+    /**
+     * The distance of the victory cut-offs of the demo states from zero, far
+     * enough for the states never to be won.
+     */
+    private static final double VICTORY_CUT_OFF = 100.0;
+
+    /**
+     * A narrow aspiration window, so that the re-searches come into play.
+     */
+    private static final double ASPIRATION_WINDOW = 1.0;
+
+    /**
+     * The time limit in milliseconds of the iterative deepening, long enough
+     * for the search to reach the full depth.
+     */
+    private static final long TIME_LIMIT = 1_000_000L;
+
+    private static final ConnectFourEvaluatorFunction EVALUATOR_FUNCTION =
+            new ConnectFourEvaluatorFunction();
+
+    @Test
+    public void enginesAgreeWithNegamaxOnIntScores() {
+        checkEngines(createGameEngines(EVALUATOR_FUNCTION));
+    }
+
+    @Test
+    public void enginesAgreeWithNegamaxOnDoubleScores() {
+        // Hide the integer evaluation so that the double paths are taken:
+        EvaluatorFunction<ConnectFourState> evaluatorFunction =
+                (state) -> EVALUATOR_FUNCTION.evaluate(state);
+
+        checkEngines(createGameEngines(evaluatorFunction));
+    }
+
+    @Test
+    public void enginesAgreeWithNegamaxWithTables() {
+        List<AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>>
+                gameEngines = Arrays.asList(
+                new AlphaBetaPruningGameEngine<>(EVALUATOR_FUNCTION, DEPTH),
+                new SortingAlphaBetaPruningGameEngine<>(EVALUATOR_FUNCTION,
+                                                        DEPTH),
+                new PrincipalVariationSearchGameEngine<>(EVALUATOR_FUNCTION,
+                                                         DEPTH),
+                new LazySMPGameEngine<>(EVALUATOR_FUNCTION,
+                                        DEPTH,
+                                        LAZY_SMP_THREADS));
+
+        for (AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine : gameEngines) {
+            gameEngine.setTranspositionTable(
+                    new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+            gameEngine.setHistoryTable(
+                    new HistoryTable(ConnectFourState.WIDTH));
+        }
+
+        checkEngines(gameEngines);
+    }
+
+    @Test
+    public void principalVariationSearchAgreesWithNegamaxWithAspiration() {
+        PrincipalVariationSearchGameEngine<ConnectFourState,
+                                           ConnectFourPlayerColor>
+                gameEngine = new PrincipalVariationSearchGameEngine<>(
+                        EVALUATOR_FUNCTION, DEPTH);
+
+        gameEngine.setTranspositionTable(
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY));
+        gameEngine.setAspirationWindow(ASPIRATION_WINDOW);
+        checkEngines(Arrays.asList(gameEngine));
+    }
+
+    /**
+     * Searches random demo trees, in which the nodes right above the leaves
+     * may have no children at all, and checks that the batch evaluation of
+     * the leaves copes with them.
+     */
+    @Test
+    public void minimaxSearchesChildlessNodes() {
+        Random random = new Random(SEED);
+
+        for (int tree = 0; tree < DEMO_TREES; tree++) {
+            DemoState root = new DemoState(random,
+                                           DemoPlayerColor.MAXIMIZING_PLAYER,
+                                           -VICTORY_CUT_OFF,
+                                           VICTORY_CUT_OFF,
+                                           0,
+                                           MAXIMUM_DEMO_CHILDREN);
+
+            DemoState state =
+                    new MinimaxGameEngine<>(new DemoEvaluatorFunction(), DEPTH)
+                    .makePly(root,
+                             DemoPlayerColor.MINIMIZING_PLAYER,
+                             DemoPlayerColor.MAXIMIZING_PLAYER,
+                             DemoPlayerColor.MAXIMIZING_PLAYER);
+
+            // A childless node scores as a loss, so the root may have no move
+            // better than one:
+            assertTrue(state == null || root.children().contains(state));
+        }
+    }
+
+    private static List<AbstractGameEngine<ConnectFourState,
+                                           ConnectFourPlayerColor>>
+        createGameEngines(EvaluatorFunction<ConnectFourState> ef) {
+        return Arrays.asList(
+                new MinimaxGameEngine<>(ef, DEPTH),
+                new AlphaBetaPruningGameEngine<>(ef, DEPTH),
+                new SortingAlphaBetaPruningGameEngine<>(ef, DEPTH),
+                new SortingAlphaBetaPruningGameEngine<>(ef, DEPTH, DEPTH - 1),
+                new PrincipalVariationSearchGameEngine<>(ef, DEPTH),
+                new MTDFGameEngine<>(ef, DEPTH),
+                new YoungBrothersWaitGameEngine<>(ef, DEPTH, DEPTH - 2),
+                new LazySMPGameEngine<>(ef, DEPTH, 2),
+                new LazySMPGameEngine<>(ef, DEPTH, LAZY_SMP_THREADS));
+    }
+
+    private static void checkEngines(
+            List<AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>>
+                    gameEngines) {
+        for (String moves : createOpenings()) {
+            ConnectFourState state = ConnectFourState.fromMoves(moves);
+            int color = getColor(state);
+            double bestScore = negamax(state, DEPTH, color);
+
+            for (AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine : gameEngines) {
+                String message = gameEngine.getClass().getSimpleName() +
+                                 " after \"" + moves + "\"";
+
+                ConnectFourState result =
+                        gameEngine.makePly(state,
+                                           ConnectFourPlayerColor.YELLOW_PLAYER,
+                                           ConnectFourPlayerColor.RED_PLAYER,
+                                           state.getPlayerToMove());
+
+                assertEquals(message,
+                             bestScore,
+                             -negamax(result, DEPTH - 1, -color),
+                             0.0);
+
+                result = gameEngine.makePly(
+                        state,
+                        ConnectFourPlayerColor.YELLOW_PLAYER,
+                        ConnectFourPlayerColor.RED_PLAYER,
+                        state.getPlayerToMove(),
+                        TIME_LIMIT,
+                        TIME_LIMIT);
+
+                assertEquals("Iterative " + message,
+                             bestScore,
+                             -negamax(result, DEPTH - 1, -color),
+                             0.0);
+            }
+        }
+    }
+
+    /**
+     * Returns the openings leading to the positions to search. Each opening
+     * is a random sequence of moves that does not end the game.
+     */
+    private static List<String> createOpenings() {
+        Random random = new Random(SEED);
+        List<String> openings = new ArrayList<>(POSITIONS);
+
+        while (openings.size() < POSITIONS) {
+            ConnectFourState state = new ConnectFourState();
+            StringBuilder moves = new StringBuilder();
+            int length = random.nextInt(MAXIMUM_OPENING_LENGTH + 1);
+
+            while (moves.length() < length) {
+                int column = random.nextInt(ConnectFourState.WIDTH);
+
+                if (state.canPlay(column)) {
+                    state = state.play(column);
+                    moves.append((char)('1' + column));
+                }
+            }
+
+            if (!state.isTerminal()) {
+                openings.add(moves.toString());
+            }
+        }
+
+        return openings;
+    }
+
+    /**
+     * Computes the score of {@code state} from the point of view of the
+     * player to move by a plain negamax search.
+     */
+    private static double negamax(ConnectFourState state,
+                                  int depth,
+                                  int color) {
+        if (depth == 0 || state.isTerminal()) {
+            return color * EVALUATOR_FUNCTION.evaluate(state);
+        }
+
+        double score = Double.NEGATIVE_INFINITY;
+
+        for (ConnectFourState child : state.children()) {
+            score = Math.max(score, -negamax(child, depth - 1, -color));
+        }
+
+        return score;
+    }
+
+    private static int getColor(ConnectFourState state) {
+        return state.getPlayerToMove() == ConnectFourPlayerColor.RED_PLAYER ?
+               1 :
+               -1;
+    }
+}
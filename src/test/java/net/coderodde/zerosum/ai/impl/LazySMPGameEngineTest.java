@@ -0,0 +1,59 @@
+package net.coderodde.zerosum.ai.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.TranspositionTable;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import org.junit.Test;
+
+public class LazySMPGameEngineTest {
+
+    private static final int DEPTH = 5;
+    private static final int NUMBER_OF_THREADS = 2;
+    private static final int TRANSPOSITION_TABLE_CAPACITY = 1 << 16;
+    private static final long HELPER_FAILURE_TIMEOUT = 10L;
+
+    private static final ConnectFourEvaluatorFunction EVALUATOR_FUNCTION =
+            new ConnectFourEvaluatorFunction();
+
+    private final ConnectFourState root = ConnectFourState.fromMoves("4453");
+
+    /**
+     * Fails the evaluator on the helper thread only; the main thread waits
+     * for the failure so that it does not complete the search first.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void rethrowsFailureOfHelper() {
+        Thread mainThread = Thread.currentThread();
+        CountDownLatch helperFailed = new CountDownLatch(1);
+        EvaluatorFunction<ConnectFourState> evaluatorFunction = (state) -> {
+            if (Thread.currentThread() != mainThread) {
+                helperFailed.countDown();
+                throw new IllegalStateException();
+            }
+
+            try {
+                helperFailed.await(HELPER_FAILURE_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            return EVALUATOR_FUNCTION.evaluate(state);
+        };
+
+        new LazySMPGameEngine<>(
+                evaluatorFunction,
+                DEPTH,
+                NUMBER_OF_THREADS,
+                new TranspositionTable(TRANSPOSITION_TABLE_CAPACITY),
+                ForkJoinPool.commonPool())
+                .makePly(root,
+                         ConnectFourPlayerColor.YELLOW_PLAYER,
+                         ConnectFourPlayerColor.RED_PLAYER,
+                         root.getPlayerToMove());
+    }
+}
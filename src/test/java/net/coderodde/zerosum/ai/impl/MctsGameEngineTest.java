@@ -0,0 +1,222 @@
+package net.coderodde.zerosum.ai.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import net.coderodde.zerosum.ai.EvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import net.coderodde.zerosum.ai.demo.DemoEvaluatorFunction;
+import net.coderodde.zerosum.ai.demo.DemoPlayerColor;
+import net.coderodde.zerosum.ai.demo.DemoState;
+import net.coderodde.zerosum.ai.impl.MctsGameEngine.PlayoutPolicy;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MctsGameEngineTest {
+
+    private static final int ITERATIONS = 5000;
+    private static final int NUMBER_OF_THREADS = 2;
+    private static final int CAPACITY = 1 << 16;
+    private static final long TIME_LIMIT = 200L;
+    private static final long SEED = 7L;
+    private static final int TREES = 20;
+    private static final int DEMO_ITERATIONS = 500;
+    private static final int MAXIMUM_DEMO_CHILDREN = 3;
+    private static final long HELPER_FAILURE_TIMEOUT = 10L;
+
+    /**
+     * The distance of the victory cut-offs of the demo states from zero, far
+     * enough for the states never to be won.
+     */
+    private static final double VICTORY_CUT_OFF = 100.0;
+
+    /**
+     * The red player wins by playing into the first column.
+     */
+    private static final String WIN = "121212";
+
+    /**
+     * The red player must block the yellow player in the first column.
+     */
+    private static final String BLOCK = "212161";
+
+    private static final ConnectFourEvaluatorFunction EVALUATOR_FUNCTION =
+            new ConnectFourEvaluatorFunction();
+
+    @Test
+    public void makesWinningMove() {
+        for (MctsGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine : createGameEngines()) {
+            checkMove(gameEngine, WIN, 0);
+        }
+    }
+
+    @Test
+    public void blocksLosingThreat() {
+        for (MctsGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine : createGameEngines()) {
+            checkMove(gameEngine, BLOCK, 0);
+        }
+    }
+
+    @Test
+    public void timeLimitedSearchBlocksLosingThreat() {
+        MctsGameEngine<ConnectFourState, ConnectFourPlayerColor> gameEngine =
+                new MctsGameEngine<>(EVALUATOR_FUNCTION, ITERATIONS);
+        ConnectFourState state = ConnectFourState.fromMoves(BLOCK);
+
+        assertEquals(state.play(0),
+                     gameEngine.makePly(state,
+                                        ConnectFourPlayerColor.YELLOW_PLAYER,
+                                        ConnectFourPlayerColor.RED_PLAYER,
+                                        state.getPlayerToMove(),
+                                        TIME_LIMIT,
+                                        TIME_LIMIT));
+    }
+
+    /**
+     * Searches random demo trees, in which a node without children is not
+     * necessarily terminal.
+     */
+    @Test
+    public void scoresChildlessNodesDirectly() {
+        Random random = new Random(SEED);
+
+        for (int tree = 0; tree < TREES; tree++) {
+            DemoState root = new DemoState(random,
+                                           DemoPlayerColor.MAXIMIZING_PLAYER,
+                                           -VICTORY_CUT_OFF,
+                                           VICTORY_CUT_OFF,
+                                           0,
+                                           MAXIMUM_DEMO_CHILDREN);
+
+            for (PlayoutPolicy playoutPolicy : PlayoutPolicy.values()) {
+                MctsGameEngine<DemoState, DemoPlayerColor> gameEngine =
+                        new MctsGameEngine<>(new DemoEvaluatorFunction(),
+                                             DEMO_ITERATIONS);
+                gameEngine.setPlayoutPolicy(playoutPolicy);
+
+                DemoState state =
+                        gameEngine.makePly(root,
+                                           DemoPlayerColor.MINIMIZING_PLAYER,
+                                           DemoPlayerColor.MAXIMIZING_PLAYER,
+                                           DemoPlayerColor.MAXIMIZING_PLAYER);
+
+                if (root.children().isEmpty()) {
+                    assertNull(state);
+                } else {
+                    assertTrue(root.children().contains(state));
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails the evaluator on the helper thread only; the main thread waits
+     * for the failure so that it does not run all the iterations alone.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void rethrowsFailureOfHelper() {
+        Thread mainThread = Thread.currentThread();
+        CountDownLatch helperFailed = new CountDownLatch(1);
+        EvaluatorFunction<ConnectFourState> evaluatorFunction = (state) -> {
+            if (Thread.currentThread() != mainThread) {
+                helperFailed.countDown();
+                throw new IllegalStateException();
+            }
+
+            try {
+                helperFailed.await(HELPER_FAILURE_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            return EVALUATOR_FUNCTION.evaluate(state);
+        };
+
+        MctsGameEngine<ConnectFourState, ConnectFourPlayerColor> gameEngine =
+                new MctsGameEngine<>(evaluatorFunction,
+                                     ITERATIONS,
+                                     NUMBER_OF_THREADS,
+                                     CAPACITY,
+                                     ForkJoinPool.commonPool());
+        gameEngine.setPlayoutPolicy(PlayoutPolicy.EVALUATOR);
+
+        makePly(gameEngine, ConnectFourState.fromMoves("4453"));
+    }
+
+    /**
+     * Checks that the subtree of the position after the move and each reply
+     * is kept. A single iteration from scratch adds at most the root and its
+     * children to the tree.
+     */
+    @Test
+    public void treeReuseKeepsSubtreeOfReply() {
+        ConnectFourState root = ConnectFourState.fromMoves("4453");
+
+        for (int reply = 0; reply < ConnectFourState.WIDTH; reply++) {
+            MctsGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine =
+                    new MctsGameEngine<>(EVALUATOR_FUNCTION, ITERATIONS);
+
+            gameEngine.setTreeReuse(true);
+            ConnectFourState state = makePly(gameEngine, root).play(reply);
+            gameEngine.setIterations(1);
+
+            assertTrue(state.children().contains(makePly(gameEngine, state)));
+            assertTrue(gameEngine.getTreeSize() > ConnectFourState.WIDTH + 1);
+
+            gameEngine.newGame();
+            makePly(gameEngine, state);
+            assertTrue(gameEngine.getTreeSize() <= ConnectFourState.WIDTH + 1);
+        }
+    }
+
+    private static List<MctsGameEngine<ConnectFourState,
+                                       ConnectFourPlayerColor>>
+        createGameEngines() {
+        MctsGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                evaluatingGameEngine =
+                new MctsGameEngine<>(EVALUATOR_FUNCTION, ITERATIONS);
+
+        evaluatingGameEngine.setPlayoutPolicy(PlayoutPolicy.EVALUATOR);
+        return Arrays.asList(
+                new MctsGameEngine<>(EVALUATOR_FUNCTION, ITERATIONS),
+                new MctsGameEngine<>(EVALUATOR_FUNCTION,
+                                     ITERATIONS,
+                                     NUMBER_OF_THREADS,
+                                     CAPACITY,
+                                     ForkJoinPool.commonPool()),
+                evaluatingGameEngine);
+    }
+
+    private static void checkMove(
+            MctsGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine,
+            String moves,
+            int column) {
+        ConnectFourState state = ConnectFourState.fromMoves(moves);
+
+        assertEquals(gameEngine.getPlayoutPolicy() + " with " +
+                     gameEngine.getNumberOfThreads() + " threads",
+                     state.play(column),
+                     makePly(gameEngine, state));
+    }
+
+    private static ConnectFourState makePly(
+            MctsGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                    gameEngine,
+            ConnectFourState state) {
+        return gameEngine.makePly(state,
+                                  ConnectFourPlayerColor.YELLOW_PLAYER,
+                                  ConnectFourPlayerColor.RED_PLAYER,
+                                  state.getPlayerToMove());
+    }
+}
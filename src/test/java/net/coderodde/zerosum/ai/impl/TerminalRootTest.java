@@ -0,0 +1,75 @@
+package net.coderodde.zerosum.ai.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import net.coderodde.zerosum.ai.AbstractGameEngine;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourEvaluatorFunction;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourPlayerColor;
+import net.coderodde.zerosum.ai.connectfour.ConnectFourState;
+import org.junit.Test;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that all the engines return {@code null} instead of a move when the
+ * game is already over at the root.
+ */
+public class TerminalRootTest {
+
+    private static final int DEPTH = 4;
+    private static final int MCTS_ITERATIONS = 1000;
+    private static final long TIME_LIMIT = 1000L;
+
+    /**
+     * A position won by the red player.
+     */
+    private static final String WON = "1213141";
+
+    /**
+     * A full board without an alignment.
+     */
+    private static final String DRAW =
+            "111111222222333333544444455555666666777777";
+
+    @Test
+    public void returnsNullOnWonRoot() {
+        checkEngines(ConnectFourState.fromMoves(WON));
+    }
+
+    @Test
+    public void returnsNullOnFullBoard() {
+        checkEngines(ConnectFourState.fromMoves(DRAW));
+    }
+
+    private static void checkEngines(ConnectFourState state) {
+        ConnectFourEvaluatorFunction ef = new ConnectFourEvaluatorFunction();
+        List<AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>>
+                gameEngines = Arrays.asList(
+                new MinimaxGameEngine<>(ef, DEPTH),
+                new AlphaBetaPruningGameEngine<>(ef, DEPTH),
+                new SortingAlphaBetaPruningGameEngine<>(ef, DEPTH),
+                new PrincipalVariationSearchGameEngine<>(ef, DEPTH),
+                new MTDFGameEngine<>(ef, DEPTH),
+                new YoungBrothersWaitGameEngine<>(ef, DEPTH, DEPTH - 2),
+                new LazySMPGameEngine<>(ef, DEPTH, 2),
+                new MctsGameEngine<>(ef, MCTS_ITERATIONS));
+
+        for (AbstractGameEngine<ConnectFourState, ConnectFourPlayerColor>
+                gameEngine : gameEngines) {
+            String name = gameEngine.getClass().getSimpleName();
+
+            assertNull(name,
+                       gameEngine.makePly(state,
+                                          ConnectFourPlayerColor.YELLOW_PLAYER,
+                                          ConnectFourPlayerColor.RED_PLAYER,
+                                          state.getPlayerToMove()));
+
+            assertNull("Iterative " + name,
+                       gameEngine.makePly(state,
+                                          ConnectFourPlayerColor.YELLOW_PLAYER,
+                                          ConnectFourPlayerColor.RED_PLAYER,
+                                          state.getPlayerToMove(),
+                                          TIME_LIMIT,
+                                          TIME_LIMIT));
+        }
+    }
+}